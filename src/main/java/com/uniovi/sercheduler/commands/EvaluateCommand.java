@@ -3,6 +3,7 @@ package com.uniovi.sercheduler.commands;
 import static org.uma.jmetal.util.AbstractAlgorithmRunner.printFinalSolutionSet;
 
 import com.uniovi.sercheduler.dao.Objective;
+import com.uniovi.sercheduler.jmetal.evaluation.EvaluationExecutor;
 import com.uniovi.sercheduler.jmetal.evaluation.MultiThreadEvaluationMulti;
 import com.uniovi.sercheduler.jmetal.operator.ScheduleCrossover;
 import com.uniovi.sercheduler.jmetal.operator.ScheduleMutation;
@@ -103,18 +104,25 @@ public class EvaluateCommand {
 
     Termination termination = new TerminationByEvaluations(executions);
 
+    EvaluationExecutor evaluationExecutor = new EvaluationExecutor(16);
+
     EvolutionaryAlgorithm<SchedulePermutationSolution> gaAlgo =
         new NSGAIIBuilder<>(problem, populationSize, offspringPopulationSize, crossover, mutation)
             .setTermination(termination)
             .setEvaluation(
-                new MultiThreadEvaluationMulti(16, problem, objectives.get(1).objectiveName))
+                new MultiThreadEvaluationMulti(
+                    evaluationExecutor, problem, objectives.get(1).objectiveName))
             //  .setSelection(new ScheduleSelection(new Random(seed)))
             //  .setReplacement(new ScheduleReplacement(new Random(seed)))
             .build();
 
     gaAlgo.observable().register(new FitnessObserver(100));
 
-    gaAlgo.run();
+    try {
+      gaAlgo.run();
+    } finally {
+      evaluationExecutor.close();
+    }
 
     var population = gaAlgo.result();
     LOG.info("Total execution time : {} ms", gaAlgo.totalComputingTime());
@@ -4,6 +4,8 @@ import com.uniovi.sercheduler.dao.Objective;
 import com.uniovi.sercheduler.dao.experiment.ExperimentConfig;
 import com.uniovi.sercheduler.dto.analysis.GenerationInfo;
 import com.uniovi.sercheduler.jmetal.algorithm.*;
+import com.uniovi.sercheduler.jmetal.evaluation.EvaluationExecutor;
+import com.uniovi.sercheduler.jmetal.evaluation.MultiThreadEvaluationMulti;
 import com.uniovi.sercheduler.jmetal.evaluation.MultiThreadedEvaluation;
 import com.uniovi.sercheduler.jmetal.evaluation.SequentialEvaluationMulti;
 import com.uniovi.sercheduler.jmetal.operator.ScheduleCrossover;
@@ -464,6 +466,13 @@ public class ExperimentJmetalCommand {
 
     var objectives = experimentConfig.objectives().stream().map(Objective::of).toList();
 
+    // Shared by every run, so the threads live as long as the experiment
+    EvaluationExecutor evaluationExecutor =
+        experimentConfig.evaluationThreads() > 0
+            ? new EvaluationExecutor(
+                experimentConfig.evaluationThreads(), experimentConfig.evaluationChunksPerThread())
+            : null;
+
     for (var benchmark : benchmarks) {
 
       for (int i = experimentConfig.minHosts();
@@ -498,6 +507,9 @@ public class ExperimentJmetalCommand {
                   objectives.get(0).objectiveName,
                   executions);
           schedulingProblemList.add(problem);
+          if (experimentConfig.evaluationCacheCapacity() > 0) {
+            problem.enableEvaluationCache(experimentConfig.evaluationCacheCapacity());
+          }
 
           Operators operators = new Operators(problem.getInstanceData(), random);
           CrossoverOperator<SchedulePermutationSolution> crossover =
@@ -521,7 +533,8 @@ public class ExperimentJmetalCommand {
                               crossover,
                               mutation)
                           .setTermination(termination)
-                          .setEvaluation(getEvaluator("simple", problem, objectives))
+                          .setEvaluation(
+                              getEvaluator("simple", problem, objectives, evaluationExecutor))
                           .setSelection(new ScheduleSelection(random))
                           .setReplacement(new ScheduleReplacement(random, objectives.get(0)))
                           .build();
@@ -547,14 +560,16 @@ public class ExperimentJmetalCommand {
                   algorithm =
                       new IBEABuilder(problem, populationSize, 100, crossover, mutation)
                           .setMaxEvaluations(executions)
-                          .setEvaluation(getEvaluator("multi", problem, objectives))
+                          .setEvaluation(
+                              getEvaluator("multi", problem, objectives, evaluationExecutor))
                           .build();
 
               case IBEA ->
                   algorithm =
                       new IBEABuilder(problem, populationSize, 100, crossover, mutation)
                           .setMaxEvaluations(executions)
-                          .setEvaluation(getEvaluator("simple", problem, objectives))
+                          .setEvaluation(
+                              getEvaluator("simple", problem, objectives, evaluationExecutor))
                           .build();
 
               case MULTI -> {
@@ -577,7 +592,8 @@ public class ExperimentJmetalCommand {
                             customCrossover,
                             mutation)
                         .setTermination(termination)
-                        .setEvaluation(getEvaluator("multi", problem, objectives))
+                        .setEvaluation(
+                            getEvaluator("multi", problem, objectives, evaluationExecutor))
                         .build();
               }
 
@@ -585,7 +601,8 @@ public class ExperimentJmetalCommand {
                   algorithm =
                       new NSGAIIBuilderMulti(problem, 50, 50, crossover, mutation)
                           .setTermination(new TerminationByEvaluations(executions * 2))
-                          .setEvaluation(getEvaluator("multi", problem, objectives))
+                          .setEvaluation(
+                              getEvaluator("multi", problem, objectives, evaluationExecutor))
                           .build();
               case MOHEFT -> algorithm = new MOHEFT(problem, 10);
               case MOACO ->
@@ -593,21 +610,22 @@ public class ExperimentJmetalCommand {
                       new MOACO(
                           problem,
                           random,
-                          getEvaluator("simple", problem, objectives),
+                          getEvaluator("simple", problem, objectives, evaluationExecutor),
                           new MoAcoParameters(350, 10, 1.0, 1.0, 2.0, 0.1));
               case MULTI_MOACO ->
                   algorithm =
                       new MOACO(
                           problem,
                           random,
-                          getEvaluator("multi", problem, objectives),
+                          getEvaluator("multi", problem, objectives, evaluationExecutor),
                           new MoAcoParameters(350, 10, 1.0, 1.0, 2.0, 0.1));
               default ->
                   algorithm =
                       new NSGAIIBuilder<>(
                               problem, populationSize, offspringPopulationSize, crossover, mutation)
                           .setTermination(termination)
-                          .setEvaluation(getEvaluator("simple", problem, objectives))
+                          .setEvaluation(
+                              getEvaluator("simple", problem, objectives, evaluationExecutor))
                           .build();
             }
 
@@ -641,10 +659,28 @@ public class ExperimentJmetalCommand {
 
     long start = System.currentTimeMillis();
 
-    new ExecuteAlgorithms<>(experiment).run();
+    try {
+      new ExecuteAlgorithms<>(experiment).run();
+    } finally {
+      if (evaluationExecutor != null) {
+        evaluationExecutor.close();
+      }
+    }
 
     long end = System.currentTimeMillis();
 
+    for (var problem : schedulingProblemList) {
+      var evaluationCache = problem.getEvaluationCache();
+      if (evaluationCache != null) {
+        LOG.info(
+            "Evaluation cache of {} ({}): {} hits, {} misses",
+            problem.name(),
+            problem.getFitnessCalculator().fitnessName(),
+            evaluationCache.hits(),
+            evaluationCache.misses());
+      }
+    }
+
     calculateConvergenceCSV(
         executions, algorithmList, populationSize, experimentConfig, experiment);
 
@@ -670,11 +706,22 @@ public class ExperimentJmetalCommand {
   }
 
   private Evaluation<SchedulePermutationSolution> getEvaluator(
-      String evaluator, Problem<SchedulePermutationSolution> problem, List<Objective> objectives) {
+      String evaluator,
+      Problem<SchedulePermutationSolution> problem,
+      List<Objective> objectives,
+      EvaluationExecutor evaluationExecutor) {
+    if (evaluationExecutor != null) {
+      return switch (evaluator) {
+        case "multi" ->
+            new MultiThreadEvaluationMulti(
+                evaluationExecutor, problem, objectives.get(1).objectiveName);
+        default -> new MultiThreadedEvaluation(evaluationExecutor, problem);
+      };
+    }
     return switch (evaluator) {
       case "simple" -> new SequentialEvaluation<>(problem);
       case "multi" -> new SequentialEvaluationMulti(0, problem, objectives.get(1).objectiveName);
-      default -> new MultiThreadedEvaluation(0, problem);
+      default -> throw new IllegalArgumentException("Unknown evaluator: " + evaluator);
     };
   }
 
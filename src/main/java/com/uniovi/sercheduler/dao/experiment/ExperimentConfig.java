@@ -2,6 +2,15 @@ package com.uniovi.sercheduler.dao.experiment;
 
 import java.util.List;
 
+/**
+ * Configuration of an experiment.
+ *
+ * <p>{@code evaluationThreads} enables the parallel evaluation of the populations with an executor
+ * shared by the whole experiment, 0 or absent keeps the sequential evaluation. {@code
+ * evaluationChunksPerThread} tunes how the population is split between the threads, 0 or absent
+ * uses the default. {@code evaluationCacheCapacity} keeps that many evaluations per problem so
+ * repeated plans aren't scheduled again, 0 or absent disables the cache.
+ */
 public record ExperimentConfig(
     List<String> fitness,
     List<String> workflows,
@@ -11,4 +20,7 @@ public record ExperimentConfig(
     String referenceSpeed,
     int independentRuns,
     List<String> objectives,
-    boolean jmetalAnalysis) {}
+    boolean jmetalAnalysis,
+    int evaluationThreads,
+    int evaluationChunksPerThread,
+    int evaluationCacheCapacity) {}
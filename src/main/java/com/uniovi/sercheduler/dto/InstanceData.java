@@ -8,6 +8,21 @@ import java.util.Map;
  *
  * @param workflow Map of tasks to solve.
  * @param hosts The infrastructure used to run the workflow.
+ * @param referenceFlops The reference speed of the CPU.
+ * @param taskGraph The dependencies of the workflow as integer arrays.
  */
-public record InstanceData(Map<String, Task> workflow, Map<String, Host> hosts, Long referenceFlops)
-    implements Serializable {}
+public record InstanceData(
+    Map<String, Task> workflow, Map<String, Host> hosts, Long referenceFlops, TaskGraph taskGraph)
+    implements Serializable {
+
+  /**
+   * Builds the instance and the graph of its workflow.
+   *
+   * @param workflow Map of tasks to solve, with their parents and children already linked.
+   * @param hosts The infrastructure used to run the workflow.
+   * @param referenceFlops The reference speed of the CPU.
+   */
+  public InstanceData(Map<String, Task> workflow, Map<String, Host> hosts, Long referenceFlops) {
+    this(workflow, hosts, referenceFlops, TaskGraph.of(workflow));
+  }
+}
@@ -0,0 +1,201 @@
+package com.uniovi.sercheduler.dto;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compact form of the dependencies of a workflow.
+ *
+ * <p>Every task is given an ordinal following the iteration order of the workflow and the edges
+ * are stored in compressed sparse row form: the parents of task {@code t} are {@code
+ * parents()[parentOffsets()[t] .. parentOffsets()[t + 1]]}, in the same order as {@link
+ * Task#getParents()}, and the bits each parent sends to {@code t} are at the same positions of
+ * {@code parentBits()}. The children are stored the same way. The bits read from staging, the input
+ * that doesn't come from any parent, are also kept per task.
+ *
+ * <p>Large workflows join the output files of the parents with the input files of each task in
+ * parallel, every task only writes its own rows.
+ *
+ * <p>The graph is immutable, the arrays returned by the accessors are shared and must not be
+ * modified.
+ */
+public final class TaskGraph implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final Logger LOG = LoggerFactory.getLogger(TaskGraph.class);
+
+  /** Workflows with at least this number of tasks are built in parallel. */
+  static final int PARALLEL_TASKS = 1000;
+
+  private final String[] taskNames;
+  private final Map<String, Integer> taskOrdinals;
+  private final int[] parentOffsets;
+  private final int[] parents;
+  private final long[] parentBits;
+  private final int[] childOffsets;
+  private final int[] children;
+  private final long[] stagingBits;
+
+  private TaskGraph(Map<String, Task> workflow, boolean parallel) {
+    int taskCount = workflow.size();
+    var tasks = workflow.values().toArray(new Task[0]);
+
+    this.taskNames = new String[taskCount];
+    this.taskOrdinals = new HashMap<>(taskCount * 2);
+    this.parentOffsets = new int[taskCount + 1];
+    this.childOffsets = new int[taskCount + 1];
+    for (int t = 0; t < taskCount; t++) {
+      taskNames[t] = tasks[t].getName();
+      taskOrdinals.put(taskNames[t], t);
+      parentOffsets[t + 1] = parentOffsets[t] + tasks[t].getParents().size();
+      childOffsets[t + 1] = childOffsets[t] + tasks[t].getChildren().size();
+    }
+
+    this.parents = new int[parentOffsets[taskCount]];
+    this.parentBits = new long[parentOffsets[taskCount]];
+    this.children = new int[childOffsets[taskCount]];
+    this.stagingBits = new long[taskCount];
+
+    var rows = IntStream.range(0, taskCount);
+    if (parallel) {
+      rows = rows.parallel();
+    }
+    rows.forEach(t -> buildRows(tasks[t], t));
+  }
+
+  /** Fills the parents, children and staging of a task, which only belong to it. */
+  private void buildRows(Task task, int t) {
+    // The input files are indexed by name, so each output file of the parents is checked once.
+    Set<String> inputFiles = new HashSet<>();
+    for (var file : task.getInput().getFiles()) {
+      inputFiles.add(file.getName());
+    }
+
+    long tasksBits = 0L;
+    int edge = parentOffsets[t];
+    for (var parent : task.getParents()) {
+      long bitsTransferred = 0L;
+      for (var file : parent.getOutput().getFiles()) {
+        if (inputFiles.contains(file.getName())) {
+          bitsTransferred += file.getSize();
+        }
+      }
+      parents[edge] = taskOrdinals.get(parent.getName());
+      parentBits[edge] = bitsTransferred;
+      tasksBits += bitsTransferred;
+      edge++;
+    }
+    stagingBits[t] = task.getInput().getSizeInBits() - tasksBits;
+
+    edge = childOffsets[t];
+    for (var child : task.getChildren()) {
+      children[edge++] = taskOrdinals.get(child.getName());
+    }
+  }
+
+  /**
+   * Builds the graph of a workflow.
+   *
+   * @param workflow The tasks of the workflow, with their parents and children already linked.
+   * @return The graph.
+   */
+  public static TaskGraph of(Map<String, Task> workflow) {
+    return of(workflow, workflow.size() >= PARALLEL_TASKS);
+  }
+
+  /**
+   * Builds the graph of a workflow, optionally splitting the tasks between threads.
+   *
+   * @param workflow The tasks of the workflow, with their parents and children already linked.
+   * @param parallel If the tasks should be processed in parallel.
+   * @return The graph.
+   */
+  public static TaskGraph of(Map<String, Task> workflow, boolean parallel) {
+    var start = System.nanoTime();
+    var graph = new TaskGraph(workflow, parallel);
+    LOG.info(
+        "Task graph of {} tasks built in {} ms",
+        workflow.size(),
+        (System.nanoTime() - start) / 1_000_000);
+    return graph;
+  }
+
+  public int taskCount() {
+    return taskNames.length;
+  }
+
+  public String taskName(int task) {
+    return taskNames[task];
+  }
+
+  /**
+   * Finds the ordinal of a task.
+   *
+   * @param taskName The name of the task.
+   * @return The ordinal.
+   */
+  public int taskOrdinal(String taskName) {
+    return taskOrdinals.get(taskName);
+  }
+
+  public Map<String, Integer> taskOrdinals() {
+    return taskOrdinals;
+  }
+
+  public int[] parentOffsets() {
+    return parentOffsets;
+  }
+
+  public int[] parents() {
+    return parents;
+  }
+
+  public long[] parentBits() {
+    return parentBits;
+  }
+
+  public int[] childOffsets() {
+    return childOffsets;
+  }
+
+  public int[] children() {
+    return children;
+  }
+
+  public long stagingBits(int task) {
+    return stagingBits[task];
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof TaskGraph that)) {
+      return false;
+    }
+    return Arrays.equals(taskNames, that.taskNames)
+        && Arrays.equals(parentOffsets, that.parentOffsets)
+        && Arrays.equals(parents, that.parents)
+        && Arrays.equals(parentBits, that.parentBits)
+        && Arrays.equals(childOffsets, that.childOffsets)
+        && Arrays.equals(children, that.children)
+        && Arrays.equals(stagingBits, that.stagingBits);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = Arrays.hashCode(taskNames);
+    result = 31 * result + Arrays.hashCode(parents);
+    result = 31 * result + Arrays.hashCode(parentBits);
+    return result;
+  }
+}
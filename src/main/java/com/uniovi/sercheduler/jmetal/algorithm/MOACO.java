@@ -1,18 +1,19 @@
 package com.uniovi.sercheduler.jmetal.algorithm;
 
 import com.uniovi.sercheduler.dao.Objective;
-import com.uniovi.sercheduler.dto.Host;
-import com.uniovi.sercheduler.dto.Task;
+import com.uniovi.sercheduler.jmetal.evaluation.MultiThreadEvaluationMulti;
 import com.uniovi.sercheduler.jmetal.evaluation.SequentialEvaluationMulti;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.jmetal.problem.SchedulingProblem;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import com.uniovi.sercheduler.service.PlanPair;
 import com.uniovi.sercheduler.service.TaskSchedule;
-import com.uniovi.sercheduler.service.core.SchedulingHelper;
+import com.uniovi.sercheduler.service.core.CandidateHosts;
+import com.uniovi.sercheduler.service.core.CompiledInstance;
+import com.uniovi.sercheduler.service.core.PrecomputedInstance;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uma.jmetal.algorithm.Algorithm;
@@ -29,10 +30,19 @@ public class MOACO implements Algorithm<List<SchedulePermutationSolution>> {
   private final SchedulingProblem problem;
   Random random = new Random();
 
-  // Pheromone matrix: pheromone[i][j] represents pheromone level for assigning task i to host j
-  private double[][] pheromone;
-  private List<String> taskIds;
-  private List<String> hostIds;
+  private final CompiledInstance instance;
+  private final int taskCount;
+  private final int hostCount;
+  // Hosts an ant considers for each task
+  private final CandidateHosts candidateHosts;
+
+  // Pheromone matrix: pheromone[i * hostCount + j] represents pheromone level for assigning task i
+  // to host j
+  private double[] pheromone;
+  // Heuristic of each assignment raised to beta, it doesn't change during the run
+  private double[] heuristic;
+  // Pheromone raised to alpha times the heuristic, updated every time the pheromone changes
+  private double[] attractiveness;
 
   // Parameters (can be tuned later)
   private final double alpha; // Pheromone importance
@@ -46,9 +56,6 @@ public class MOACO implements Algorithm<List<SchedulePermutationSolution>> {
   private final double initialPheromone;
 
 
-
-  private final Map<String, Map<String, Double>> computationMatrix;
-
   private final CrowdingDistanceArchive<SchedulePermutationSolution> archive;
   private List<SchedulePermutationSolution> solutions;
 
@@ -68,16 +75,16 @@ public class MOACO implements Algorithm<List<SchedulePermutationSolution>> {
       Evaluation<SchedulePermutationSolution> evaluation,
       MoAcoParameters parameters) {
     this.problem = problem;
-    this.taskIds = problem.getInstanceData().workflow().keySet().stream().toList();
-    this.hostIds = problem.getInstanceData().hosts().keySet().stream().toList();
+    this.instance = PrecomputedInstance.of(problem.getInstanceData()).compiledInstance();
+    this.taskCount = instance.taskCount();
+    this.hostCount = instance.hostCount();
+    // Without a schedule there is nothing that tells when the candidates aren't enough
+    this.candidateHosts = CandidateHosts.topK(instance, parameters.candidateHosts(), false);
     this.archive = new CrowdingDistanceArchive<>(ARCHIVE_SIZE);
     this.solutions = new ArrayList<>();
     this.random = random;
 
     this.evaluation = evaluation;
-    this.computationMatrix =
-        SchedulingHelper.calculateComputationMatrix(
-            problem.getInstanceData(), problem.getInstanceData().referenceFlops());
 
     // Parameters initialization
     this.alpha = parameters.alpha();
@@ -86,77 +93,51 @@ public class MOACO implements Algorithm<List<SchedulePermutationSolution>> {
     this.rho = parameters.rho();
     this.maxIterations = parameters.iterations();
     this.antsPerIteration = parameters.numberOfAnts();
-    this.initialPheromone = (double) antsPerIteration / taskIds.size();
+    this.initialPheromone = (double) antsPerIteration / taskCount;
+    initializeHeuristicMatrix();
     initializePheromoneMatrix();
-
-
   }
 
-  /** Constructs a schedule solution probabilistically using pheromone and heuristic information. */
-  private SchedulePermutationSolution constructAntSolution() {
-    List<PlanPair> plan = new ArrayList<>();
-
-    Map<String, Task> workflow = problem.getInstanceData().workflow();
-    Map<String, List<String>> parentStatus =
-        workflow.values().stream()
-            .map(
-                t ->
-                    Map.entry(
-                        t.getName(),
-                        t.getParents().stream().map(Task::getName).collect(Collectors.toList())))
-            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-
-    Map<String, Task> tasksToExplore =
-        workflow.values().stream()
-            .filter(t -> t.getParents().isEmpty())
-            .collect(Collectors.toMap(Task::getName, t -> t));
-
-    while (!tasksToExplore.isEmpty()) {
-      List<Task> availableTasks = new ArrayList<>(tasksToExplore.values());
-      Task task = availableTasks.get(random.nextInt(availableTasks.size()));
-      int taskIdx = taskIds.indexOf(task.getName());
-
-      // Compute selection probabilities for hosts
-      double[] probabilities = new double[hostIds.size()];
-      double denominator = 0.0;
-
-      for (int j = 0; j < hostIds.size(); j++) {
-        double pheromoneVal = pheromone[taskIdx][j];
-        String hostId = hostIds.get(j);
-        double execTime = estimateExecutionTime(task, hostId);
-        double energy = estimateEnergy(task, hostId);
-        double numerator =
-            Math.pow(pheromoneVal, alpha)
-                * Math.pow(execTime, beta / 2.0)
-                * Math.pow(energy, beta / 2.0);
-        probabilities[j] = numerator;
-        denominator += numerator;
-      }
-
-      for (int j = 0; j < probabilities.length; j++) {
-        probabilities[j] /= denominator;
+  /**
+   * Constructs a schedule solution probabilistically using pheromone and heuristic information.
+   *
+   * <p>The pheromone matrices are only read, so several ants can be constructed at the same time as
+   * long as each one uses its own random generator.
+   *
+   * @param random The random generator of the ant.
+   * @return The solution of the ant, not evaluated.
+   */
+  private SchedulePermutationSolution constructAntSolution(Random random) {
+    List<PlanPair> plan = new ArrayList<>(taskCount);
+
+    int[] parentOffsets = instance.parentOffsets();
+    int[] childOffsets = instance.childOffsets();
+    int[] children = instance.children();
+
+    // Parents of each task not placed yet, a task can be placed when it has none left
+    int[] pendingParents = new int[taskCount];
+    int[] tasksToExplore = new int[taskCount];
+    int tasksToExploreCount = 0;
+    for (int t = 0; t < taskCount; t++) {
+      pendingParents[t] = parentOffsets[t + 1] - parentOffsets[t];
+      if (pendingParents[t] == 0) {
+        tasksToExplore[tasksToExploreCount++] = t;
       }
+    }
 
-      double r = random.nextDouble();
-      double cumulative = 0.0;
-      int selectedHostIdx = 0;
-      for (int j = 0; j < probabilities.length; j++) {
-        cumulative += probabilities[j];
-        if (r <= cumulative) {
-          selectedHostIdx = j;
-          break;
-        }
-      }
+    double[] cumulative = new double[hostCount];
+    while (tasksToExploreCount > 0) {
+      int selected = random.nextInt(tasksToExploreCount);
+      int taskIdx = tasksToExplore[selected];
+      tasksToExplore[selected] = tasksToExplore[--tasksToExploreCount];
 
-      String selectedHost = hostIds.get(selectedHostIdx);
-      plan.add(new PlanPair(task, problem.getInstanceData().hosts().get(selectedHost)));
+      int selectedHostIdx = selectHost(taskIdx, random, cumulative);
+      plan.add(new PlanPair(instance.task(taskIdx), instance.host(selectedHostIdx)));
 
-      tasksToExplore.remove(task.getName());
-      for (Task child : task.getChildren()) {
-        List<String> parents = parentStatus.get(child.getName());
-        parents.remove(task.getName());
-        if (parents.isEmpty()) {
-          tasksToExplore.put(child.getName(), child);
+      for (int edge = childOffsets[taskIdx]; edge < childOffsets[taskIdx + 1]; edge++) {
+        int child = children[edge];
+        if (--pendingParents[child] == 0) {
+          tasksToExplore[tasksToExploreCount++] = child;
         }
       }
     }
@@ -165,83 +146,154 @@ public class MOACO implements Algorithm<List<SchedulePermutationSolution>> {
         plan.size(), problem.numberOfObjectives(), null, plan, Objective.ENERGY.objectiveName);
   }
 
-  private double estimateExecutionTime(Task task, String hostId) {
-    Host host = problem.getInstanceData().hosts().get(hostId);
-    var computationTime = computationMatrix.get(task.getName()).get(hostId);
-    return computationTime + ((double) task.getOutput().getSizeInBits() / host.getDiskSpeed());
+  /**
+   * Selects the host of a task with a roulette among its candidates, the probability of each host
+   * is proportional to its attractiveness.
+   *
+   * @param taskIdx The ordinal of the task.
+   * @param random The random generator of the ant.
+   * @param cumulative Buffer for the cumulative attractiveness, one position per host.
+   * @return The ordinal of the selected host.
+   */
+  private int selectHost(int taskIdx, Random random, double[] cumulative) {
+    int[] hosts = candidateHosts.hosts(taskIdx);
+    int row = taskIdx * hostCount;
+    double total = 0.0;
+    for (int j = 0; j < hosts.length; j++) {
+      total += attractiveness[row + hosts[j]];
+      cumulative[j] = total;
+    }
+
+    // First host whose cumulative attractiveness reaches the ball
+    double r = random.nextDouble() * total;
+    int low = 0;
+    int high = hosts.length - 1;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (r <= cumulative[middle]) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return hosts[low];
+  }
+
+  private double estimateExecutionTime(int taskIdx, int hostIdx) {
+    return instance.computation(taskIdx, hostIdx)
+        + ((double) instance.outputBits(taskIdx) / instance.diskSpeed(hostIdx));
   }
 
-  private double estimateEnergy(Task task, String hostId) {
-    Host host = problem.getInstanceData().hosts().get(hostId);
-    double execTime = estimateExecutionTime(task, hostId);
-    return execTime * host.getEnergyCost();
+  private double estimateEnergy(int taskIdx, int hostIdx) {
+    return estimateExecutionTime(taskIdx, hostIdx) * instance.energyCost(hostIdx);
   }
 
-  /** Executes the MOACO algorithm logic. This method will be implemented step by step. */
+  /**
+   * Executes the MOACO algorithm logic.
+   *
+   * <p>The ants of an iteration are constructed in parallel from the same pheromone matrix and then
+   * evaluated as a single batch. Each ant gets its own random generator, seeded from the one of the
+   * algorithm in the order of the ants, and the local pheromone updates are applied after the
+   * evaluation following that same order, so the result only depends on the seed and not on the
+   * number of threads.
+   */
   @Override
   public void run() {
+    // We need to update the counter of ants if we are using the MOCMF, every ant is evaluated twice
+    int antsToConstruct =
+        isMultiEvaluation() ? (antsPerIteration + 1) / 2 : antsPerIteration;
 
     for (int iteration = 0; iteration < maxIterations; iteration++) {
-      List<SchedulePermutationSolution> currentAnts = new ArrayList<>();
+      long[] seeds = new long[antsToConstruct];
+      for (int i = 0; i < antsToConstruct; i++) {
+        seeds[i] = random.nextLong();
+      }
 
-      for (int i = 0; i < antsPerIteration; i++) {
-        SchedulePermutationSolution solution = constructAntSolution();
-        var solutions = evaluation.evaluate(List.of(solution));
+      List<SchedulePermutationSolution> ants =
+          IntStream.range(0, antsToConstruct)
+              .parallel()
+              .mapToObj(i -> constructAntSolution(new Random(seeds[i])))
+              .toList();
 
-        // update the local pheromone
-        solutions.forEach(this::localPheromoneUpdate);
+      List<SchedulePermutationSolution> currentAnts = evaluation.evaluate(ants);
 
-        solutions.forEach(archive::add);
+      // update the local pheromone
+      currentAnts.forEach(this::localPheromoneUpdate);
+
+      currentAnts.forEach(archive::add);
 
-        currentAnts.addAll(solutions); // For update
-        // logSolution(iteration, i, solution);
-        if (evaluation instanceof SequentialEvaluationMulti) {
-          // We need to update the counter of ants if we are using the MOCMF
-          i++;
-        }
-      }
       // Add global pheromone update based on current ants
       globalPheromoneUpdate(currentAnts);
     }
     solutions = archive.solutions();
   }
 
+  private boolean isMultiEvaluation() {
+    return evaluation instanceof SequentialEvaluationMulti
+        || evaluation instanceof MultiThreadEvaluationMulti;
+  }
+
   private void globalPheromoneUpdate(List<SchedulePermutationSolution> currentAnts) {
     // Step 1: Evaporation (keep this)
     for (int i = 0; i < pheromone.length; i++) {
-      for (int j = 0; j < pheromone[i].length; j++) {
-        pheromone[i][j] *= (1 - rho);
-      }
+      pheromone[i] *= (1 - rho);
     }
 
     // Step 2: Deposit using only the best ant from this generation
     // SchedulePermutationSolution best = getBestSolutionByMakespan(currentAnts);
 
+    // Every assignment of a solution deposits in a different cell, so the order of the schedule
+    // doesn't change the result
     for (var solution : archive.solutions()) {
-
-      for (TaskSchedule assignment : solution.getFitnessInfo().schedule()) {
-        int taskIdx = getTaskIndex(assignment.task().getName());
-        int hostIdx = getHostIndex(assignment.host().getName());
-
-        double time = assignment.eft();
-        double energy = assignment.eft() * assignment.host().getEnergyCost();
-
-        pheromone[taskIdx][hostIdx] += lambda / (time + energy);
-
+      var fitnessInfo = solution.getFitnessInfo();
+      var schedule = fitnessInfo.rawSchedule();
+      if (schedule != null) {
+        for (int i = 0; i < schedule.size(); i++) {
+          depositPheromone(schedule.task(i), schedule.host(i), schedule.eft(i));
+        }
+      } else {
+        for (TaskSchedule assignment : fitnessInfo.schedule()) {
+          depositPheromone(
+              instance.taskOrdinal(assignment.task()),
+              instance.hostOrdinal(assignment.host()),
+              assignment.eft());
+        }
       }
     }
+
+    // Every pheromone has evaporated
+    for (int i = 0; i < pheromone.length; i++) {
+      updateAttractiveness(i);
+    }
+  }
+
+  private void depositPheromone(int taskIdx, int hostIdx, double eft) {
+    double energy = eft * instance.energyCost(hostIdx);
+    pheromone[taskIdx * hostCount + hostIdx] += lambda / (eft + energy);
   }
 
   private void localPheromoneUpdate(SchedulePermutationSolution solution) {
+    // The evaluated schedule has the same assignments as the plan, already as ordinals
+    var schedule = solution.getFitnessInfo().rawSchedule();
+    if (schedule != null) {
+      for (int i = 0; i < schedule.size(); i++) {
+        localPheromoneUpdate(schedule.task(i), schedule.host(i));
+      }
+      return;
+    }
     for (var pair : solution.getPlan()) {
-      int taskIdx = getTaskIndex(pair.task().getName());
-      int hostIdx = getHostIndex(pair.host().getName());
-      localPheromoneUpdate(taskIdx, hostIdx);
+      localPheromoneUpdate(instance.taskOrdinal(pair.task()), instance.hostOrdinal(pair.host()));
     }
   }
 
   private void localPheromoneUpdate(int taskIdx, int hostIdx) {
-    pheromone[taskIdx][hostIdx] = (1 - rho) * pheromone[taskIdx][hostIdx];
+    int i = taskIdx * hostCount + hostIdx;
+    pheromone[i] = (1 - rho) * pheromone[i];
+    updateAttractiveness(i);
+  }
+
+  private void updateAttractiveness(int i) {
+    attractiveness[i] = Math.pow(pheromone[i], alpha) * heuristic[i];
   }
 
   private SchedulePermutationSolution getBestSolutionByMakespan(
@@ -279,26 +331,29 @@ public class MOACO implements Algorithm<List<SchedulePermutationSolution>> {
     return "Multi-Objective Ant Colony Optimization for Workflow Scheduling";
   }
 
-  /** Initializes the pheromone matrix with default values. */
-  private void initializePheromoneMatrix() {
-    int numberOfTasks = taskIds.size();
-    int numberOfHosts = hostIds.size();
-    pheromone = new double[numberOfTasks][numberOfHosts];
-
-
-    for (int i = 0; i < numberOfTasks; i++) {
-      for (int j = 0; j < numberOfHosts; j++) {
-        pheromone[i][j] = initialPheromone;
+  /**
+   * Initializes the heuristic of every assignment, it grows with the estimated execution time and
+   * energy of the task in the host, so the slow and power hungry hosts get the highest values.
+   */
+  private void initializeHeuristicMatrix() {
+    heuristic = new double[taskCount * hostCount];
+    for (int i = 0; i < taskCount; i++) {
+      for (int j = 0; j < hostCount; j++) {
+        double execTime = estimateExecutionTime(i, j);
+        double energy = estimateEnergy(i, j);
+        heuristic[i * hostCount + j] =
+            Math.pow(execTime, beta / 2.0) * Math.pow(energy, beta / 2.0);
       }
     }
   }
 
-  // Optionally: add helper methods to get indices from task/host names if needed
-  private int getTaskIndex(String taskId) {
-    return taskIds.indexOf(taskId);
-  }
-
-  private int getHostIndex(String hostId) {
-    return hostIds.indexOf(hostId);
+  /** Initializes the pheromone matrix with default values. */
+  private void initializePheromoneMatrix() {
+    pheromone = new double[taskCount * hostCount];
+    attractiveness = new double[taskCount * hostCount];
+    for (int i = 0; i < pheromone.length; i++) {
+      pheromone[i] = initialPheromone;
+      updateAttractiveness(i);
+    }
   }
 }
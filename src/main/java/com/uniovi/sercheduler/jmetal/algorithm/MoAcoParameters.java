@@ -1,3 +1,29 @@
 package com.uniovi.sercheduler.jmetal.algorithm;
 
-public record MoAcoParameters(int iterations, int numberOfAnts, double alpha, double beta, double lambda, double rho) {}
+/**
+ * Parameters of the {@link MOACO}.
+ *
+ * @param iterations How many iterations are done.
+ * @param numberOfAnts How many ants are evaluated per iteration.
+ * @param alpha Pheromone importance.
+ * @param beta Heuristic importance.
+ * @param lambda Global update contribution.
+ * @param rho Local pheromone volatility.
+ * @param candidateHosts How many hosts of each ranking an ant considers for each task, see {@link
+ *     com.uniovi.sercheduler.service.core.CandidateHosts#topK}. 0 considers every host.
+ */
+public record MoAcoParameters(
+    int iterations,
+    int numberOfAnts,
+    double alpha,
+    double beta,
+    double lambda,
+    double rho,
+    int candidateHosts) {
+
+  /** Parameters considering every host. */
+  public MoAcoParameters(
+      int iterations, int numberOfAnts, double alpha, double beta, double lambda, double rho) {
+    this(iterations, numberOfAnts, alpha, beta, lambda, rho, 0);
+  }
+}
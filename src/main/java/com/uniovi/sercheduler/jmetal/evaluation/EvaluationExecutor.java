@@ -0,0 +1,125 @@
+package com.uniovi.sercheduler.jmetal.evaluation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import org.uma.jmetal.util.errorchecking.Check;
+
+/**
+ * Pool of threads used to evaluate populations in parallel.
+ *
+ * <p>The pool is meant to live as long as the experiment and to be shared between all the
+ * evaluations, so the threads aren't created and destroyed every generation. Every call splits the
+ * solutions in a few chunks per thread, that way each task is big enough to not be dominated by
+ * the scheduling overhead, but there are still enough of them to balance the load when some
+ * evaluations are slower than others.
+ */
+public class EvaluationExecutor implements AutoCloseable {
+
+  public static final int DEFAULT_CHUNKS_PER_THREAD = 4;
+
+  private final ForkJoinPool pool;
+  private final int numberOfThreads;
+  private final int chunksPerThread;
+
+  /**
+   * Full constructor.
+   *
+   * @param numberOfThreads The number of threads, 0 uses one per available processor.
+   * @param chunksPerThread How many chunks are created per thread, 0 uses the default.
+   */
+  public EvaluationExecutor(int numberOfThreads, int chunksPerThread) {
+    Check.that(
+        numberOfThreads >= 0, "The number of threads is a negative value: " + numberOfThreads);
+    Check.that(
+        chunksPerThread >= 0, "The number of chunks is a negative value: " + chunksPerThread);
+
+    if (numberOfThreads == 0) {
+      numberOfThreads = Runtime.getRuntime().availableProcessors();
+    }
+    if (chunksPerThread == 0) {
+      chunksPerThread = DEFAULT_CHUNKS_PER_THREAD;
+    }
+    this.numberOfThreads = numberOfThreads;
+    this.chunksPerThread = chunksPerThread;
+    this.pool = new ForkJoinPool(numberOfThreads);
+  }
+
+  /**
+   * Constructor with the default number of chunks.
+   *
+   * @param numberOfThreads The number of threads, 0 uses one per available processor.
+   */
+  public EvaluationExecutor(int numberOfThreads) {
+    this(numberOfThreads, 0);
+  }
+
+  /**
+   * Applies an action to every element of a list in parallel and waits until all are done.
+   *
+   * @param elements The elements, normally the solutions to evaluate.
+   * @param action What to do with each element.
+   * @param <S> The type of the elements.
+   */
+  public <S> void forEach(List<S> elements, Consumer<? super S> action) {
+    int size = elements.size();
+    if (size == 0) {
+      return;
+    }
+    int chunks = numberOfThreads * chunksPerThread;
+    int chunkSize = Math.max(1, (size + chunks - 1) / chunks);
+
+    List<Runnable> tasks = new ArrayList<>();
+    for (int start = 0; start < size; start += chunkSize) {
+      var chunk = elements.subList(start, Math.min(size, start + chunkSize));
+      tasks.add(() -> chunk.forEach(action));
+    }
+    run(tasks);
+  }
+
+  /**
+   * Runs some tasks in parallel and waits until all are done. Used when each chunk needs its own
+   * state, the caller splits the work and gives every task what it needs.
+   *
+   * @param tasks The tasks.
+   */
+  public void run(List<? extends Runnable> tasks) {
+    List<Callable<Void>> callables = new ArrayList<>(tasks.size());
+    for (Runnable task : tasks) {
+      callables.add(
+          () -> {
+            task.run();
+            return null;
+          });
+    }
+
+    try {
+      for (Future<Void> future : pool.invokeAll(callables)) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  public int numberOfThreads() {
+    return numberOfThreads;
+  }
+
+  public int chunksPerThread() {
+    return chunksPerThread;
+  }
+
+  /** Stops the threads, the executor can't be used afterward. */
+  @Override
+  public void close() {
+    pool.shutdown();
+  }
+}
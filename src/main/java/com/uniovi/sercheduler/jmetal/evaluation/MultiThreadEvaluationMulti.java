@@ -1,33 +1,40 @@
 package com.uniovi.sercheduler.jmetal.evaluation;
 
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
+import com.uniovi.sercheduler.jmetal.problem.SchedulingProblem;
 import java.util.List;
-import java.util.stream.Stream;
 import org.uma.jmetal.component.catalogue.common.evaluation.Evaluation;
 import org.uma.jmetal.problem.Problem;
-import org.uma.jmetal.solution.Solution;
 import org.uma.jmetal.util.errorchecking.Check;
 
+/**
+ * Evaluates every solution with both arbiters in parallel using a long-lived {@link
+ * EvaluationExecutor}.
+ *
+ * <p>The executor belongs to whoever creates it, which must close it once the algorithm ends.
+ */
 public class MultiThreadEvaluationMulti implements Evaluation<SchedulePermutationSolution> {
 
   private final Problem<SchedulePermutationSolution> problem;
-  private final int numberOfThreads;
+  private final EvaluationExecutor executor;
   private int computedEvaluations;
   private String alternativeArbiter;
 
+  /**
+   * Creates the evaluation using a shared executor.
+   *
+   * @param executor The executor, it is not closed by the evaluation.
+   * @param problem The problem to evaluate.
+   * @param alternativeArbiter The arbiter of the copy of each solution.
+   */
   public MultiThreadEvaluationMulti(
-      int numberOfThreads, Problem<SchedulePermutationSolution> problem, String alternativeArbiter) {
-    Check.that(
-        numberOfThreads >= 0, "The number of threads is a negative value: " + numberOfThreads);
+      EvaluationExecutor executor,
+      Problem<SchedulePermutationSolution> problem,
+      String alternativeArbiter) {
+    Check.notNull(executor);
     Check.notNull(problem);
 
-    if (numberOfThreads == 0) {
-      numberOfThreads = Runtime.getRuntime().availableProcessors();
-    }
-    System.setProperty(
-        "java.util.concurrent.ForkJoinPool.common.parallelism", "" + numberOfThreads);
-
-    this.numberOfThreads = numberOfThreads;
+    this.executor = executor;
     this.problem = problem;
     this.alternativeArbiter = alternativeArbiter;
     computedEvaluations = 0;
@@ -38,17 +45,23 @@ public class MultiThreadEvaluationMulti implements Evaluation<SchedulePermutatio
       List<SchedulePermutationSolution> solutionList) {
     Check.notNull(solutionList);
 
-    solutionList =
+    var pairs =
         solutionList.stream()
-            .flatMap(
+            .map(
                 s -> {
                   var copy = (SchedulePermutationSolution) s.copy();
                   copy.setArbiter(alternativeArbiter);
 
-                  return Stream.of(s, copy);
+                  return List.of(s, copy);
                 })
             .toList();
-    solutionList.parallelStream().forEach(problem::evaluate);
+    solutionList = pairs.stream().flatMap(List::stream).toList();
+    if (problem instanceof SchedulingProblem schedulingProblem) {
+      // Both arbiters of a solution are evaluated in a single pass
+      executor.forEach(pairs, pair -> schedulingProblem.evaluate(pair.get(0), pair.get(1)));
+    } else {
+      executor.forEach(solutionList, problem::evaluate);
+    }
     computedEvaluations = solutionList.size();
 
     return solutionList;
@@ -60,7 +73,7 @@ public class MultiThreadEvaluationMulti implements Evaluation<SchedulePermutatio
   }
 
   public int numberOfThreads() {
-    return numberOfThreads;
+    return executor.numberOfThreads();
   }
 
   @Override
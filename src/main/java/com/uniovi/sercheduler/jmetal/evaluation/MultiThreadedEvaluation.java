@@ -2,32 +2,36 @@ package com.uniovi.sercheduler.jmetal.evaluation;
 
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ForkJoinPool;
-import java.util.stream.Stream;
 import org.uma.jmetal.component.catalogue.common.evaluation.Evaluation;
 import org.uma.jmetal.problem.Problem;
 import org.uma.jmetal.util.errorchecking.Check;
 
+/**
+ * Evaluates the population in parallel using a long-lived {@link EvaluationExecutor}.
+ *
+ * <p>The executor belongs to whoever creates it, which must close it once the algorithm ends.
+ *
+ * <p>Every thread uses the same calculator, which is safe because calculators are stateless between
+ * evaluations, see {@link com.uniovi.sercheduler.service.calculator.FitnessCalculator}.
+ */
 public class MultiThreadedEvaluation implements Evaluation<SchedulePermutationSolution> {
 
   private final Problem<SchedulePermutationSolution> problem;
-  private final int numberOfThreads;
+  private final EvaluationExecutor executor;
   private int computedEvaluations;
 
+  /**
+   * Creates the evaluation using a shared executor.
+   *
+   * @param executor The executor, it is not closed by the evaluation.
+   * @param problem The problem to evaluate.
+   */
   public MultiThreadedEvaluation(
-      int numberOfThreads, Problem<SchedulePermutationSolution> problem) {
-    Check.that(
-        numberOfThreads >= 0, "The number of threads is a negative value: " + numberOfThreads);
+      EvaluationExecutor executor, Problem<SchedulePermutationSolution> problem) {
+    Check.notNull(executor);
     Check.notNull(problem);
 
-    if (numberOfThreads == 0) {
-      numberOfThreads = Runtime.getRuntime().availableProcessors();
-    }
-    System.setProperty(
-        "java.util.concurrent.ForkJoinPool.common.parallelism", "" + numberOfThreads);
-
-    this.numberOfThreads = numberOfThreads;
+    this.executor = executor;
     this.problem = problem;
     computedEvaluations = 0;
   }
@@ -37,19 +41,8 @@ public class MultiThreadedEvaluation implements Evaluation<SchedulePermutationSo
       List<SchedulePermutationSolution> solutionList) {
     Check.notNull(solutionList);
 
-    // Create a custom ForkJoinPool with the desired parallelism level
-    ForkJoinPool customThreadPool = new ForkJoinPool(numberOfThreads);
-      try {
-          customThreadPool.submit(()->{
-            solutionList.parallelStream().forEach(problem::evaluate);
-          }).get();
-      } catch (InterruptedException | ExecutionException e) {
-          throw new RuntimeException(e);
-      }finally{
-        customThreadPool.shutdown();
-      }
-
-      computedEvaluations = solutionList.size();
+    executor.forEach(solutionList, problem::evaluate);
+    computedEvaluations = solutionList.size();
 
     return solutionList;
   }
@@ -60,7 +53,7 @@ public class MultiThreadedEvaluation implements Evaluation<SchedulePermutationSo
   }
 
   public int numberOfThreads() {
-    return numberOfThreads;
+    return executor.numberOfThreads();
   }
 
   @Override
@@ -1,8 +1,8 @@
 package com.uniovi.sercheduler.jmetal.evaluation;
 
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
+import com.uniovi.sercheduler.jmetal.problem.SchedulingProblem;
 import java.util.List;
-import java.util.stream.Stream;
 import org.uma.jmetal.component.catalogue.common.evaluation.Evaluation;
 import org.uma.jmetal.problem.Problem;
 import org.uma.jmetal.util.errorchecking.Check;
@@ -28,8 +28,6 @@ public class SequentialEvaluationMulti
     if (numberOfThreads == 0) {
       numberOfThreads = Runtime.getRuntime().availableProcessors();
     }
-    System.setProperty(
-        "java.util.concurrent.ForkJoinPool.common.parallelism", "" + numberOfThreads);
 
     this.numberOfThreads = numberOfThreads;
     this.problem = problem;
@@ -42,17 +40,23 @@ public class SequentialEvaluationMulti
       List<SchedulePermutationSolution> solutionList) {
     Check.notNull(solutionList);
 
-    solutionList =
+    var pairs =
         solutionList.stream()
-            .flatMap(
+            .map(
                 s -> {
                   var copy = (SchedulePermutationSolution) s.copy();
                   copy.setArbiter(alternativeArbiter);
 
-                  return Stream.of(s, copy);
+                  return List.of(s, copy);
                 })
             .toList();
-    solutionList.forEach(problem::evaluate);
+    solutionList = pairs.stream().flatMap(List::stream).toList();
+    if (problem instanceof SchedulingProblem schedulingProblem) {
+      // Both arbiters of a solution are evaluated in a single pass
+      pairs.forEach(pair -> schedulingProblem.evaluate(pair.get(0), pair.get(1)));
+    } else {
+      solutionList.forEach(problem::evaluate);
+    }
     computedEvaluations = solutionList.size();
 
     return solutionList;
@@ -46,13 +46,14 @@ public class ExecuteAlgorithmsCustom
                 unfinishedAlgorithmList.parallelStream().forEach((algorithm) -> algorithm.runAlgorithm(this.experiment));
               }).get();
           } catch (InterruptedException | ExecutionException e) {
+              customThreadPool.shutdown();
               throw new RuntimeException(e);
-          } finally {
-            customThreadPool.shutdown(); // Shut down the custom thread pool
           }
           ++retryCounter;
       }
     }
+    // The pool is kept between retries, it lives as long as the experiment
+    customThreadPool.shutdown();
 
     if (computationNotFinished) {
       JMetalLogger.logger.severe("There are unfinished tasks after " + maxRetries + " tries");
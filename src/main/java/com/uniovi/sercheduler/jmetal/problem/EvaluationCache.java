@@ -0,0 +1,127 @@
+package com.uniovi.sercheduler.jmetal.problem;
+
+import com.uniovi.sercheduler.dto.analysis.MultiResult;
+import com.uniovi.sercheduler.service.FitnessInfo;
+import com.uniovi.sercheduler.service.PlanPair;
+import com.uniovi.sercheduler.service.core.CompiledInstance;
+import com.uniovi.sercheduler.service.core.PlanHasher;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of evaluations, so plans that are evaluated again only cost a lookup.
+ *
+ * <p>Plans are identified by the two independent hashes of a {@link PlanHasher} and the arbiter
+ * of the solution. The least recently used evaluation is dropped once the cache is full. The cache can be
+ * used from several threads at the same time.
+ */
+public final class EvaluationCache {
+
+  private final PlanHasher hasher;
+  private final Map<Key, Evaluation> evaluations;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Full constructor.
+   *
+   * @param instance The compiled instance the plans belong to.
+   * @param ignoreTaskOrder If the fitness only depends on the host of each position.
+   * @param capacity The maximum number of evaluations kept.
+   */
+  public EvaluationCache(CompiledInstance instance, boolean ignoreTaskOrder, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("The capacity of the cache must be positive");
+    }
+    this.hasher = new PlanHasher(instance, ignoreTaskOrder, 0x5EC4ED01L);
+    this.evaluations =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Key, Evaluation> eldest) {
+            return size() > capacity;
+          }
+        };
+  }
+
+  /**
+   * Builds the key of a plan, it must be built before evaluating because some calculators change
+   * the plan.
+   *
+   * @param plan The plan to evaluate.
+   * @param arbiter The arbiter of the solution.
+   * @return The key.
+   */
+  public Key key(List<PlanPair> plan, String arbiter) {
+    var hash = hasher.hash(plan);
+    return new Key(hash.hash(), hash.check(), arbiter);
+  }
+
+  /**
+   * Finds a previous evaluation.
+   *
+   * @param key The key of the plan.
+   * @return The evaluation or null if the plan hasn't been evaluated or was dropped.
+   */
+  public Evaluation get(Key key) {
+    Evaluation evaluation;
+    synchronized (evaluations) {
+      evaluation = evaluations.get(key);
+    }
+    if (evaluation == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return evaluation;
+  }
+
+  /**
+   * Saves an evaluation.
+   *
+   * @param key The key of the plan.
+   * @param evaluation The result of the evaluation.
+   */
+  public void put(Key key, Evaluation evaluation) {
+    synchronized (evaluations) {
+      evaluations.put(key, evaluation);
+    }
+  }
+
+  public long hits() {
+    return hits.sum();
+  }
+
+  public long misses() {
+    return misses.sum();
+  }
+
+  /**
+   * Number of evaluations currently kept.
+   *
+   * @return The size.
+   */
+  public int size() {
+    synchronized (evaluations) {
+      return evaluations.size();
+    }
+  }
+
+  /**
+   * Identifies a plan.
+   *
+   * @param hash The hash of the plan.
+   * @param check A second hash, to tell apart plans whose first hash collides.
+   * @param arbiter The arbiter of the solution.
+   */
+  public record Key(long hash, long check, String arbiter) {}
+
+  /**
+   * The result of evaluating a plan.
+   *
+   * @param fitnessInfo The fitness, it's shared between every solution with the same plan.
+   * @param multiResult The result of the multi fitness, null if the fitness isn't multi.
+   */
+  public record Evaluation(FitnessInfo fitnessInfo, MultiResult multiResult) {}
+}
@@ -65,11 +65,7 @@ public class ScheduleDoubleSolution extends AbstractSolution<Double> implements
     FitnessInfo fitnessInfoCopy = null;
 
     if (fitnessInfo != null) {
-      fitnessInfoCopy =
-          new FitnessInfo(
-              Map.copyOf(fitnessInfo.fitness()),
-              List.copyOf(fitnessInfo.schedule()),
-              fitnessInfo.fitnessFunction());
+      fitnessInfoCopy = fitnessInfo.copy();
     }
 
     this.fitnessInfo = fitnessInfoCopy;
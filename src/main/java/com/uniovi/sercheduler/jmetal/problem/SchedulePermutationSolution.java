@@ -4,8 +4,9 @@ import com.uniovi.sercheduler.dao.Objective;
 import com.uniovi.sercheduler.dto.analysis.MultiResult;
 import com.uniovi.sercheduler.service.FitnessInfo;
 import com.uniovi.sercheduler.service.PlanPair;
+import com.uniovi.sercheduler.service.PlanPositions;
+import com.uniovi.sercheduler.service.core.CompiledInstance;
 import java.util.List;
-import java.util.Map;
 import org.uma.jmetal.solution.AbstractSolution;
 import org.uma.jmetal.solution.Solution;
 import org.uma.jmetal.solution.permutationsolution.PermutationSolution;
@@ -18,6 +19,8 @@ public class SchedulePermutationSolution extends AbstractSolution<PlanPair>
 
   String arbiter;
   List<PlanPair> plan;
+  PlanPositions planPositions;
+  CompiledInstance compiledInstance;
  private  MultiResult multiResult;
 
   public MultiResult getMultiResult() {
@@ -58,19 +61,20 @@ public class SchedulePermutationSolution extends AbstractSolution<PlanPair>
     FitnessInfo fitnessInfoCopy = null;
 
     if (fitnessInfo != null) {
-      fitnessInfoCopy =
-          new FitnessInfo(
-              Map.copyOf(fitnessInfo.fitness()),
-              List.copyOf(fitnessInfo.schedule()),
-              fitnessInfo.fitnessFunction());
+      fitnessInfoCopy = fitnessInfo.copy();
     }
 
-    return new SchedulePermutationSolution(
-        this.variables().size(),
-        this.objectives().length,
-        fitnessInfoCopy,
-        List.copyOf(this.plan),
-        this.arbiter);
+    var solution =
+        new SchedulePermutationSolution(
+            this.variables().size(),
+            this.objectives().length,
+            fitnessInfoCopy,
+            List.copyOf(this.plan),
+            this.arbiter);
+    // The index is immutable, so it can be shared by both plans.
+    solution.planPositions = this.planPositions;
+    solution.compiledInstance = this.compiledInstance;
+    return solution;
   }
 
   public List<PlanPair> getPlan() {
@@ -79,6 +83,46 @@ public class SchedulePermutationSolution extends AbstractSolution<PlanPair>
 
   public void setPlan(List<PlanPair> plan) {
     this.plan = plan;
+    this.planPositions = null;
+  }
+
+  /**
+   * Gets the index of the positions of the tasks in the plan, it's built the first time it's
+   * requested. A plan that is indexed must be replaced with {@link #setPlan(List)}, not modified.
+   *
+   * @return The index.
+   */
+  public PlanPositions getPlanPositions() {
+    if (planPositions == null) {
+      if (compiledInstance == null) {
+        throw new IllegalStateException("The plan can't be indexed without its compiled instance");
+      }
+      planPositions = PlanPositions.of(compiledInstance, plan);
+    }
+    return planPositions;
+  }
+
+  /**
+   * Sets the index of the plan when it can be derived from the one of another plan.
+   *
+   * @param planPositions The index, it must match the plan.
+   */
+  public void setPlanPositions(PlanPositions planPositions) {
+    this.planPositions = planPositions;
+    this.compiledInstance = planPositions.instance();
+  }
+
+  public CompiledInstance getCompiledInstance() {
+    return compiledInstance;
+  }
+
+  /**
+   * Sets the instance the plan belongs to, its ordinals are the ones used to index the plan.
+   *
+   * @param compiledInstance The compiled instance.
+   */
+  public void setCompiledInstance(CompiledInstance compiledInstance) {
+    this.compiledInstance = compiledInstance;
   }
 
   public FitnessInfo getFitnessInfo() {
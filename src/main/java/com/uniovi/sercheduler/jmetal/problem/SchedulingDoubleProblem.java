@@ -182,25 +182,32 @@ public class SchedulingDoubleProblem implements DoubleProblem {
   @Override
   public DoubleSolution evaluate(DoubleSolution doubleSolution) {
 
-    // We need to create a temporal SchedulePermutationSolution
+    // We need to create a temporal SchedulePermutationSolution, the particle is read only once
+    var variables = doubleSolution.variables();
+    var particle = new double[variables.size()];
+    for (int i = 0; i < particle.length; i++) {
+      particle[i] = variables.get(i);
+    }
 
-    var plan = randomKeysCoder.decode(doubleSolution.variables());
+    var plan = randomKeysCoder.decode(particle);
 
     var arbiter = (String) doubleSolution.attributes().get("arbiter");
 
     var tempSolution =
         new SchedulePermutationSolution(
-            doubleSolution.variables().size(), objectives.size(), null, plan, arbiter);
+            variables.size(), objectives.size(), null, plan, arbiter);
 
     var fitnessInfo = fitnessCalculator.calculateFitness(tempSolution);
 
     var orderedPlan =
         fitnessInfo.schedule().stream().map(s -> new PlanPair(s.task(), s.host())).toList();
 
-    var particles = randomKeysCoder.encode(orderedPlan);
-
-    for (int i = 0; i < particles.size(); i++) {
-      doubleSolution.variables().set(i, particles.get(i));
+    // The ordered plan is encoded over the same particle and written back in a single pass
+    randomKeysCoder.encode(orderedPlan, particle);
+    var keys = variables.listIterator();
+    for (double key : particle) {
+      keys.next();
+      keys.set(key);
     }
 
     for (int i = 0; i < objectives.size(); i++) {
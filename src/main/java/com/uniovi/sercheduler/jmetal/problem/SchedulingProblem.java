@@ -7,9 +7,10 @@ import com.uniovi.sercheduler.parser.HostFileLoader;
 import com.uniovi.sercheduler.parser.HostLoader;
 import com.uniovi.sercheduler.parser.WorkflowFileLoader;
 import com.uniovi.sercheduler.parser.WorkflowLoader;
+import com.uniovi.sercheduler.service.FitnessInfo;
 import com.uniovi.sercheduler.service.calculator.FitnessCalculator;
+import com.uniovi.sercheduler.service.calculator.FitnessCalculatorMulti;
 import com.uniovi.sercheduler.service.PlanGenerator;
-import com.uniovi.sercheduler.service.PlanPair;
 import com.uniovi.sercheduler.util.UnitParser;
 import java.io.File;
 import java.util.ArrayList;
@@ -30,6 +31,7 @@ public class SchedulingProblem implements PermutationProblem<SchedulePermutation
   private List<Objective> objectives;
   private String defaultArbiter;
   private ArrayList<MultiResult> evaluationsHistory;
+  private EvaluationCache evaluationCache;
 
 
   /**
@@ -176,10 +178,42 @@ public class SchedulingProblem implements PermutationProblem<SchedulePermutation
   public SchedulePermutationSolution evaluate(
       SchedulePermutationSolution schedulePermutationSolution) {
 
-    var fitnessInfo = fitnessCalculator.calculateFitness(schedulePermutationSolution);
-    var plan = fitnessInfo.schedule().stream().map(s -> new PlanPair(s.task(), s.host())).toList();
+    FitnessInfo fitnessInfo;
+    if (evaluationCache == null) {
+      fitnessInfo = fitnessCalculator.calculateFitness(schedulePermutationSolution);
+    } else {
+      fitnessInfo = evaluateCached(schedulePermutationSolution);
+    }
+    return applyFitness(schedulePermutationSolution, fitnessInfo);
+  }
+
+  /**
+   * Evaluates a solution and a copy of it with a different arbiter.
+   *
+   * <p>The result is the same as evaluating both, but the multi fitness schedules them in a single
+   * pass, sharing the calculators used by both arbiters.
+   *
+   * @param solution Solution to evaluate.
+   * @param alternative Copy of the solution with the alternative arbiter.
+   */
+  public void evaluate(
+      SchedulePermutationSolution solution, SchedulePermutationSolution alternative) {
+    if (evaluationCache != null
+        || !(fitnessCalculator instanceof FitnessCalculatorMulti fitnessCalculatorMulti)) {
+      evaluate(solution);
+      evaluate(alternative);
+      return;
+    }
 
-    schedulePermutationSolution.setPlan(plan);
+    var fitnessInfos = fitnessCalculatorMulti.calculateFitness(solution, alternative);
+    applyFitness(solution, fitnessInfos[0]);
+    applyFitness(alternative, fitnessInfos[1]);
+  }
+
+  private SchedulePermutationSolution applyFitness(
+      SchedulePermutationSolution schedulePermutationSolution, FitnessInfo fitnessInfo) {
+    // The plan is only sorted if it's read, offspring that are discarded never pay for it.
+    schedulePermutationSolution.setPlan(fitnessInfo.orderedPlan());
     schedulePermutationSolution.setFitnessInfo(fitnessInfo);
 
     for (int i = 0; i < objectives.size(); i++) {
@@ -190,6 +224,52 @@ public class SchedulingProblem implements PermutationProblem<SchedulePermutation
     return schedulePermutationSolution;
   }
 
+  private FitnessInfo evaluateCached(SchedulePermutationSolution schedulePermutationSolution) {
+    var key =
+        evaluationCache.key(
+            schedulePermutationSolution.getPlan(), schedulePermutationSolution.getArbiter());
+    var evaluation = evaluationCache.get(key);
+    if (evaluation != null) {
+      if (evaluation.multiResult() != null) {
+        schedulePermutationSolution.setMultiResult(evaluation.multiResult());
+      }
+      return evaluation.fitnessInfo();
+    }
+
+    var previousMultiResult = schedulePermutationSolution.getMultiResult();
+    var fitnessInfo = fitnessCalculator.calculateFitness(schedulePermutationSolution);
+    // Only the multi fitness leaves a result in the solution.
+    var multiResult = schedulePermutationSolution.getMultiResult();
+    evaluationCache.put(
+        key,
+        new EvaluationCache.Evaluation(
+            fitnessInfo, multiResult != previousMultiResult ? multiResult : null));
+    return fitnessInfo;
+  }
+
+  /**
+   * Keeps the last evaluations, so solutions whose plan has already been evaluated don't need to be
+   * scheduled again.
+   *
+   * @param capacity The maximum number of evaluations kept.
+   */
+  public void enableEvaluationCache(int capacity) {
+    this.evaluationCache =
+        new EvaluationCache(
+            fitnessCalculator.getCompiledInstance(),
+            fitnessCalculator.ignoresTaskOrder(),
+            capacity);
+  }
+
+  /**
+   * The cache of evaluations.
+   *
+   * @return The cache or null if it's not enabled.
+   */
+  public EvaluationCache getEvaluationCache() {
+    return evaluationCache;
+  }
+
   /**
    * Generates a random solution.
    *
@@ -198,7 +278,27 @@ public class SchedulingProblem implements PermutationProblem<SchedulePermutation
   @Override
   public SchedulePermutationSolution createSolution() {
     var plan = planGenerator.generatePlan();
-    return new SchedulePermutationSolution(numberOfVariables(), numberOfObjectives(), null, plan, defaultArbiter);
+    var solution =
+        new SchedulePermutationSolution(
+            numberOfVariables(), numberOfObjectives(), null, plan, defaultArbiter);
+    solution.setCompiledInstance(fitnessCalculator.getCompiledInstance());
+    return solution;
+  }
+
+  /**
+   * Generates a random solution with another generator, so concurrent callers don't share the
+   * random generator of the problem.
+   *
+   * @param planGenerator The generator of the plan.
+   * @return A new solution.
+   */
+  public SchedulePermutationSolution createSolution(PlanGenerator planGenerator) {
+    var plan = planGenerator.generatePlan();
+    var solution =
+        new SchedulePermutationSolution(
+            numberOfVariables(), numberOfObjectives(), null, plan, defaultArbiter);
+    solution.setCompiledInstance(fitnessCalculator.getCompiledInstance());
+    return solution;
   }
 
   private InstanceData loadData(File workflowFile, File hostsFile, String referenceSpeed) {
@@ -215,6 +315,10 @@ public class SchedulingProblem implements PermutationProblem<SchedulePermutation
     return instanceData;
   }
 
+  public FitnessCalculator getFitnessCalculator() {
+    return fitnessCalculator;
+  }
+
   public ArrayList<MultiResult> getEvaluationsHistory() {
     return evaluationsHistory;
   }
@@ -1,8 +1,11 @@
 package com.uniovi.sercheduler.localsearch.algorithms;
 
+import com.uniovi.sercheduler.jmetal.evaluation.EvaluationExecutor;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.jmetal.problem.SchedulingProblem;
 import com.uniovi.sercheduler.localsearch.algorithms.localsearchalgorithm.LocalSearchAlgorithm;
+import com.uniovi.sercheduler.localsearch.algorithms.localsearchcomponents.InitialSolutionGeneratorImpl;
+import com.uniovi.sercheduler.localsearch.algorithms.localsearchcomponents.NeighborGeneratorAndSelectorImpl;
 import com.uniovi.sercheduler.localsearch.algorithms.localsearchcomponents.UpgradeAndTimeLimitTermination;
 import com.uniovi.sercheduler.localsearch.algorithms.multistart.MultiStartLocalSearch;
 import com.uniovi.sercheduler.localsearch.algorithms.multistartcomponents.AllStartOperatorSelector;
@@ -17,6 +20,20 @@ public class MaximumGradientStrategy {
 
     private final double UPGRADE_THRESHOLD = 0.01;
 
+    private final EvaluationExecutor executor;
+
+    public MaximumGradientStrategy() {
+        this(null);
+    }
+
+    /**
+     * @param executor los hilos en los que se evalúan los vecinos de cada iteración, null los evalúa en el hilo que
+     *                 ejecuta la búsqueda. El vecino escogido es el mismo que evaluándolos en uno solo. Quien crea el
+     *                 executor es quien lo cierra
+     */
+    public MaximumGradientStrategy(EvaluationExecutor executor) {
+        this.executor = executor;
+    }
 
     /**
      * Dados un problema y un operador de vecindad global, aplica el algoritmo LSA bajo la estrategia GD
@@ -46,7 +63,9 @@ public class MaximumGradientStrategy {
                                                List<NeighborhoodOperatorGlobal> neighborhoodOperatorList,
                                                Observer observer){
 
-        LocalSearchAlgorithm localSearchAlgorithm = new LocalSearchAlgorithm.Builder(problem).build();
+        LocalSearchAlgorithm localSearchAlgorithm = new LocalSearchAlgorithm.Builder(problem)
+                .neighborGeneratorAndSelector(new NeighborGeneratorAndSelectorImpl(executor))
+                .build();
 
         observer.startRun(localSearchAlgorithm.startTimeCounter());
 
@@ -92,6 +111,7 @@ public class MaximumGradientStrategy {
 
         LocalSearchAlgorithm localSearchAlgorithm = new LocalSearchAlgorithm.Builder(problem)
                 .terminationCriterion(new UpgradeAndTimeLimitTermination(limitTime))
+                .neighborGeneratorAndSelector(new NeighborGeneratorAndSelectorImpl(executor))
                 .build();
 
         MultiStartLocalSearch multiStartLocalSearch = new MultiStartLocalSearch(new AllStartOperatorSelector());
@@ -100,6 +120,35 @@ public class MaximumGradientStrategy {
 
     }
 
+    /**
+     * Dados un problema y una lista de operadores de vecindad globales, aplica un algoritmo multi-arranque ejecutando
+     * varios arranques del algoritmo LSA bajo la estrategia GD a la vez, cada uno en un hilo con su propio generador
+     * aleatorio, tantas veces como le sea posible en el tiempo especificado y devuelve la mejor solución hallada
+     *
+     * @param problem el problema a resolver (principalmente el workflow, una infraestructura y la función de evaluación)
+     * @param neighborhoodOperatorList la lista de operadores de vecindad globales
+     * @param limitTime el tiempo límite
+     * @param numberOfWorkers el número de arranques simultáneos, 0 usa uno por procesador disponible
+     * @param seed la semilla de la que se derivan los generadores aleatorios de los hilos
+     * @param observer un observer para registrar métricas del algoritmo
+     * @return la mejor solución encontrada entre todos los arranques
+     */
+    public SchedulePermutationSolution execute(SchedulingProblem problem,
+                                               List<NeighborhoodOperatorGlobal> neighborhoodOperatorList, Long limitTime,
+                                               int numberOfWorkers, long seed, Observer observer){
+
+        MultiStartLocalSearch multiStartLocalSearch =
+                new MultiStartLocalSearch(new AllStartOperatorSelector(), numberOfWorkers, seed);
+
+        return multiStartLocalSearch.executeGlobal(
+                random -> new LocalSearchAlgorithm.Builder(problem)
+                        .initialSolutionGenerator(new InitialSolutionGeneratorImpl(problem, random))
+                        .terminationCriterion(new UpgradeAndTimeLimitTermination(limitTime))
+                        .neighborGeneratorAndSelector(new NeighborGeneratorAndSelectorImpl(executor, random))
+                        .build(),
+                neighborhoodOperatorList, limitTime, observer);
+    }
+
     /**
      * Dados un problema y una lista de operadores de vecindad globales, aplica un algoritmo multi-arranque ejecutando
      * el algoritmo LSA bajo la estrategia GD, escogiendo un operador aleatoriamente de la lista, tantas veces como le
@@ -117,6 +166,7 @@ public class MaximumGradientStrategy {
 
         LocalSearchAlgorithm localSearchAlgorithm = new LocalSearchAlgorithm.Builder(problem)
                 .terminationCriterion(new UpgradeAndTimeLimitTermination(limitTime))
+                .neighborGeneratorAndSelector(new NeighborGeneratorAndSelectorImpl(executor))
                 .build();
 
         MultiStartLocalSearch multiStartLocalSearch = new MultiStartLocalSearch(new RandomStartOperatorSelector());
@@ -3,6 +3,8 @@ package com.uniovi.sercheduler.localsearch.algorithms;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.jmetal.problem.SchedulingProblem;
 import com.uniovi.sercheduler.localsearch.algorithms.localsearchalgorithm.LocalSearchAlgorithm;
+import com.uniovi.sercheduler.localsearch.algorithms.localsearchcomponents.InitialSolutionGeneratorImpl;
+import com.uniovi.sercheduler.localsearch.algorithms.localsearchcomponents.NeighborGeneratorImpl;
 import com.uniovi.sercheduler.localsearch.algorithms.localsearchcomponents.UpgradeAndTimeLimitTermination;
 import com.uniovi.sercheduler.localsearch.algorithms.multistart.MultiStartLocalSearch;
 import com.uniovi.sercheduler.localsearch.observer.LocalSearchObserver;
@@ -60,6 +62,28 @@ public class SimpleClimbingStrategy {
 
     }
 
+    /**
+     * Multi-arranque con varios arranques a la vez, cada hilo con su propio generador aleatorio derivado de la semilla.
+     *
+     * @param numberOfWorkers el número de arranques simultáneos, 0 usa uno por procesador disponible
+     * @param seed la semilla de la que se derivan los generadores aleatorios de los hilos
+     */
+    public SchedulePermutationSolution execute(SchedulingProblem problem, List<NeighborhoodOperatorLazy> neighborhoodLazyOperatorList,
+                                               Long limitTime, int numberOfWorkers, long seed, Observer observer){
+
+        MultiStartLocalSearch multiStartLocalSearch =
+                new MultiStartLocalSearch(new AllStartOperatorSelector(), numberOfWorkers, seed);
+
+        return multiStartLocalSearch.executeLazy(
+                random -> new LocalSearchAlgorithm.Builder(problem)
+                        .initialSolutionGenerator(new InitialSolutionGeneratorImpl(problem, random))
+                        .neighborGenerator(new NeighborGeneratorImpl(random))
+                        .terminationCriterion(new UpgradeAndTimeLimitTermination(limitTime))
+                        .build(),
+                neighborhoodLazyOperatorList, limitTime, observer);
+
+    }
+
     public SchedulePermutationSolution executeVNS(SchedulingProblem problem, List<NeighborhoodOperatorLazy> neighborhoodLazyOperatorList,
                                                   Long limitTime, Observer observer){
 
@@ -5,4 +5,15 @@ import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 public interface AcceptanceCriterion {
 
     boolean checkAcceptance(SchedulePermutationSolution actualSolution, SchedulePermutationSolution bestNeighbor);
+
+    /**
+     * The makespan a neighbor must be lower than to have any chance of being accepted, neighbors that can't
+     * beat it don't need to be fully evaluated.
+     *
+     * @param actualSolution the current solution
+     * @return the bound, by default there is none
+     */
+    default double makespanBound(SchedulePermutationSolution actualSolution){
+        return Double.POSITIVE_INFINITY;
+    }
 }
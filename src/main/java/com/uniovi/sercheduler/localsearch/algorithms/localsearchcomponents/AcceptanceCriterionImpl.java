@@ -11,4 +11,9 @@ public class AcceptanceCriterionImpl implements AcceptanceCriterion {
         return actualSolution.getFitnessInfo().fitness().get("makespan") - bestNeighborSolution.getFitnessInfo().fitness().get("makespan") > UPGRADE_THRESHOLD;
     }
 
+    @Override
+    public double makespanBound(SchedulePermutationSolution actualSolution){
+        return actualSolution.getFitnessInfo().fitness().get("makespan") - UPGRADE_THRESHOLD;
+    }
+
 }
@@ -5,18 +5,33 @@ import com.uniovi.sercheduler.jmetal.problem.SchedulingProblem;
 import com.uniovi.sercheduler.service.FitnessCalculator;
 import com.uniovi.sercheduler.service.FitnessCalculatorSimple;
 import com.uniovi.sercheduler.service.FitnessInfo;
+import com.uniovi.sercheduler.service.PlanGenerator;
+
+import java.util.Random;
 
 public class InitialSolutionGeneratorImpl implements InitialSolutionGenerator {
 
     private final SchedulingProblem problem;
+    private final PlanGenerator planGenerator;
 
     public InitialSolutionGeneratorImpl(SchedulingProblem problem){
         this.problem = problem;
+        this.planGenerator = null;
+    }
+
+    /**
+     * @param problem the problem to solve
+     * @param random the random generator of the initial plans, instead of the one of the problem
+     */
+    public InitialSolutionGeneratorImpl(SchedulingProblem problem, Random random){
+        this.problem = problem;
+        this.planGenerator = new PlanGenerator(random, problem.getInstanceData());
     }
 
     public SchedulePermutationSolution createInitialSolution(FitnessCalculator fitnessCalculator){
 
-        SchedulePermutationSolution actualSolution = problem.createSolution();
+        SchedulePermutationSolution actualSolution = planGenerator == null ?
+                problem.createSolution() : problem.createSolution(planGenerator);
 
         //Evaluate this new created solution (this step is skipped in the pseudocode)
         FitnessInfo fitnessInfo = fitnessCalculator.calculateFitness(actualSolution);
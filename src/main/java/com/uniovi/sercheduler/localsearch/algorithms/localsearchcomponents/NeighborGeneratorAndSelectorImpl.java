@@ -1,5 +1,6 @@
 package com.uniovi.sercheduler.localsearch.algorithms.localsearchcomponents;
 
+import com.uniovi.sercheduler.jmetal.evaluation.EvaluationExecutor;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.localsearch.evaluator.LocalsearchEvaluator;
 import com.uniovi.sercheduler.localsearch.observer.Observer;
@@ -11,9 +12,30 @@ import java.util.*;
 public class NeighborGeneratorAndSelectorImpl implements NeighborGeneratorAndSelector {
 
     private final NeighborSelector selector;
+    private final boolean parallel;
+    private final Random random;
 
     public NeighborGeneratorAndSelectorImpl() {
-        this.selector = new NeighborSelectorImpl();
+        this(null);
+    }
+
+    /**
+     * @param executor the threads that evaluate the neighbors, null evaluates them in the calling thread, see
+     *                 {@link NeighborSelectorImpl}
+     */
+    public NeighborGeneratorAndSelectorImpl(EvaluationExecutor executor) {
+        this(executor, new Random());
+    }
+
+    /**
+     * @param executor the threads that evaluate the neighbors, null evaluates them in the calling thread, see
+     *                 {@link NeighborSelectorImpl}
+     * @param random the random generator that shuffles the operators
+     */
+    public NeighborGeneratorAndSelectorImpl(EvaluationExecutor executor, Random random) {
+        this.selector = new NeighborSelectorImpl(executor);
+        this.parallel = executor != null;
+        this.random = random;
     }
 
     public int numberOfGeneratedNeighbors() {
@@ -28,7 +50,7 @@ public class NeighborGeneratorAndSelectorImpl implements NeighborGeneratorAndSel
 
         List<SchedulePermutationSolution> generatedSolutions = new ArrayList<>();
 
-        Collections.shuffle(neighborhoodOperatorList);
+        Collections.shuffle(neighborhoodOperatorList, random);
 
         for(NeighborhoodOperatorGlobal globalOperator : neighborhoodOperatorList){
 
@@ -54,18 +76,25 @@ public class NeighborGeneratorAndSelectorImpl implements NeighborGeneratorAndSel
                                                                                  Observer observer){
 
         List<PlanPair> plan = List.copyOf(actualSolution.getPlan());
-        List<GeneratedNeighbor> positionalGeneratedNeighbors;
+        List<GeneratedNeighbor> positionalGeneratedNeighbors = new ArrayList<>();
 
         SchedulePermutationSolution positionalBestNeighbor, totalBestNeighbor = null;
         NeighborhoodOperatorPositional positionalOperator = globalOperator.getNeighborhoodOperatorPositional();
 
         for(int i = 0; i < plan.size(); i++) {
 
-            positionalGeneratedNeighbors = positionalOperator.execute(actualSolution, i);
+            positionalGeneratedNeighbors.addAll(positionalOperator.execute(actualSolution, i));
+
+            //A single position has too few neighbors to split them between threads, so several are evaluated together.
+            //They are still reduced in order, so the selected neighbor is the same.
+            if(parallel && positionalGeneratedNeighbors.size() < NeighborSelectorImpl.PARALLEL_BLOCK_SIZE
+                    && i < plan.size() - 1)
+                continue;
 
-            //Select the best neighbors from all neighbors generated in that position
+            //Select the best neighbors from all neighbors generated in those positions
             positionalBestNeighbor = this.selector.selectBestNeighborGlobal(actualSolution, totalBestNeighbor,
                     positionalGeneratedNeighbors, evaluator, terminationCriterion, observer);
+            positionalGeneratedNeighbors = new ArrayList<>();
 
             if(totalBestNeighbor == null || totalBestNeighbor.getFitnessInfo().fitness().get("makespan") > positionalBestNeighbor.getFitnessInfo().fitness().get("makespan"))
                     totalBestNeighbor = positionalBestNeighbor;
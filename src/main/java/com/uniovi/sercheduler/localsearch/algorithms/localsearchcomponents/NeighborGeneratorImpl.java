@@ -13,6 +13,19 @@ import java.util.stream.StreamSupport;
 
 public class NeighborGeneratorImpl implements NeighborGenerator {
 
+    private final Random random;
+
+    public NeighborGeneratorImpl() {
+        this(new Random());
+    }
+
+    /**
+     * @param random the random generator that interleaves the neighbors of the operators
+     */
+    public NeighborGeneratorImpl(Random random) {
+        this.random = random;
+    }
+
     public Stream<GeneratedNeighbor> generateNeighborsLazy(List<NeighborhoodOperatorLazy> neighborhoodLazyOperatorList,
                                                            SchedulePermutationSolution actualSolution,
                                                            Observer observer){
@@ -52,8 +65,6 @@ public class NeighborGeneratorImpl implements NeighborGenerator {
                 .map(Stream::iterator)
                 .toList();
 
-        Random rand = new Random();
-
         Iterator<T> randomizedIterator = new Iterator<>() {
             @Override
             public boolean hasNext() {
@@ -74,7 +85,7 @@ public class NeighborGeneratorImpl implements NeighborGenerator {
 
                     observer.updateMakespanEvolution(actualSolutionMakespan, 0);
 
-                    Iterator<T> chosen = available.get(rand.nextInt(available.size()));
+                    Iterator<T> chosen = available.get(random.nextInt(available.size()));
 
                     return chosen.next();
                 } else {
@@ -1,10 +1,13 @@
 package com.uniovi.sercheduler.localsearch.algorithms.localsearchcomponents;
 
+import com.uniovi.sercheduler.jmetal.evaluation.EvaluationExecutor;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.localsearch.evaluator.LocalsearchEvaluator;
 import com.uniovi.sercheduler.localsearch.observer.Observer;
 import com.uniovi.sercheduler.localsearch.operator.GeneratedNeighbor;
+import com.uniovi.sercheduler.service.FitnessInfo;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -12,15 +15,43 @@ import java.util.stream.Stream;
 
 public class NeighborSelectorImpl implements NeighborSelector {
 
+    /**
+     * Neighbors evaluated together by the threads in the parallel mode, between blocks the observer is updated and the
+     * time is checked.
+     */
+    static final int PARALLEL_BLOCK_SIZE = 1024;
+
+    private final EvaluationExecutor executor;
+
+    //The evaluators of the partitions of a block, copies of the last evaluator received
+    private LocalsearchEvaluator partitionedEvaluator;
+    private LocalsearchEvaluator[] partitionEvaluators;
+
     private int numberOfBetterNeighbors = 0;
     private double allNeighborsImprovingRatioSum = 0.0;
     private double betterNeighborsImprovingRatioSum = 0.0;
     private int numberOfGeneratedNeighbors = 0;
 
+    public NeighborSelectorImpl() {
+        this(null);
+    }
+
+    /**
+     * @param executor the threads that evaluate the neighbors of the global selection, null evaluates them in the
+     *                 calling thread. The neighbors are still reduced in order, so the best neighbor, ties included,
+     *                 and the metrics are the same as evaluating them one by one. The executor isn't closed here.
+     */
+    public NeighborSelectorImpl(EvaluationExecutor executor) {
+        this.executor = executor;
+    }
+
     public Optional<GeneratedNeighbor> selectBestNeighborLazy(SchedulePermutationSolution actualSolution,
                                                               Stream<GeneratedNeighbor> neighbors, LocalsearchEvaluator evaluator,
                                                               AtomicInteger counter, AcceptanceCriterion acceptanceCriterion,
                                                               TerminationCriterion terminationCriterion, Observer observer) {
+        //Neighbors that can't beat this makespan are discarded without finishing their evaluation
+        double makespanBound = acceptanceCriterion.makespanBound(actualSolution);
+
         return neighbors
                 .takeWhile(neighbor -> !terminationCriterion.hasTimeExceeded())
                 .filter(neighbor -> {
@@ -29,8 +60,12 @@ public class NeighborSelectorImpl implements NeighborSelector {
 
                     observer.updateMakespanEvolution(actualSolution.getFitnessInfo().fitness().get("makespan"), counter.get());
 
-                    evaluator.evaluate(actualSolution, neighbor.generatedSolution(), neighbor.movements().get(neighbor.movements().size() - 1));
+                    //The plan of the neighbor is only built if it can be accepted
+                    FitnessInfo fitnessInfo = evaluator.evaluate(actualSolution, neighbor, makespanBound);
+                    if(fitnessInfo == null)
+                        return false;
 
+                    neighbor.generatedSolution().setFitnessInfo(fitnessInfo);
                     return acceptanceCriterion.checkAcceptance(actualSolution, neighbor.generatedSolution());
                 })
                 .findFirst();   //this breaks laziness
@@ -79,38 +114,50 @@ public class NeighborSelectorImpl implements NeighborSelector {
         double originalMakespan = originalSolution.getFitnessInfo().fitness().get("makespan");
         double bestMakespan = originalMakespan;
         double neighborMakespan;
-        SchedulePermutationSolution neighborSolution;
+        FitnessInfo fitnessInfo;
 
-        double bestMakespanKnown = bestSolutionKnown.getFitnessInfo().fitness().get("makespan");
+        //There is no best solution known before the first position is explored
+        double bestMakespanKnown = bestSolutionKnown == null ?
+                Double.POSITIVE_INFINITY : bestSolutionKnown.getFitnessInfo().fitness().get("makespan");
 
         double neighborImprovingRatio;
 
         this.numberOfGeneratedNeighbors += neighborsList.size();
 
-        for(GeneratedNeighbor neighbor : neighborsList){
+        int blockSize = executor != null ? PARALLEL_BLOCK_SIZE : 1;
 
-            //update evolution
-            observer.updateMakespanEvolution(Math.min(bestMakespan, bestMakespanKnown), this.numberOfGeneratedNeighbors);
+        for(int blockStart = 0; blockStart < neighborsList.size(); blockStart += blockSize){
 
-            neighborSolution = neighbor.generatedSolution();
-            evaluator.evaluate(originalSolution, neighborSolution, neighbor.movements().get(neighbor.movements().size() - 1));
-            neighborMakespan = neighborSolution.getFitnessInfo().fitness().get("makespan");
+            int blockEnd = Math.min(neighborsList.size(), blockStart + blockSize);
+            FitnessInfo[] blockFitness = evaluateBlock(originalSolution, neighborsList, blockStart, blockEnd, evaluator);
 
-            neighborImprovingRatio = (originalMakespan - neighborMakespan) / originalMakespan * 100;
-            this.allNeighborsImprovingRatioSum += neighborImprovingRatio;
+            //The block is reduced in order, so the first of the best neighbors is kept
+            for(int i = blockStart; i < blockEnd; i++){
 
-            if(neighborMakespan < originalMakespan){
-                this.numberOfBetterNeighbors++;
-                this.betterNeighborsImprovingRatioSum += neighborImprovingRatio;
+                //update evolution
+                observer.updateMakespanEvolution(Math.min(bestMakespan, bestMakespanKnown), this.numberOfGeneratedNeighbors);
 
-                if(bestMakespan > neighborMakespan){
-                    bestMakespan = neighborMakespan;
-                    bestSolution = neighborSolution;
+                fitnessInfo = blockFitness[i - blockStart];
+                neighborMakespan = fitnessInfo.fitness().get("makespan");
+
+                neighborImprovingRatio = (originalMakespan - neighborMakespan) / originalMakespan * 100;
+                this.allNeighborsImprovingRatioSum += neighborImprovingRatio;
+
+                if(neighborMakespan < originalMakespan){
+                    this.numberOfBetterNeighbors++;
+                    this.betterNeighborsImprovingRatioSum += neighborImprovingRatio;
+
+                    //Only the neighbors that become the best have their plan built
+                    if(bestMakespan > neighborMakespan){
+                        bestMakespan = neighborMakespan;
+                        bestSolution = neighborsList.get(i).generatedSolution();
+                        bestSolution.setFitnessInfo(fitnessInfo);
+                    }
                 }
-            }
 
-            //update evolution
-            observer.updateMakespanEvolution(Math.min(bestMakespan, bestMakespanKnown), this.numberOfGeneratedNeighbors);
+                //update evolution
+                observer.updateMakespanEvolution(Math.min(bestMakespan, bestMakespanKnown), this.numberOfGeneratedNeighbors);
+            }
 
             if(terminationCriterion.hasTimeExceeded())
                 break;
@@ -120,6 +167,54 @@ public class NeighborSelectorImpl implements NeighborSelector {
         return bestSolution;
     }
 
+    /**
+     * Evaluates a block of neighbors. With an executor the block is split in partitions, each one evaluated with its
+     * own copy of the evaluator.
+     */
+    private FitnessInfo[] evaluateBlock(SchedulePermutationSolution originalSolution,
+                                        List<GeneratedNeighbor> neighborsList, int blockStart, int blockEnd,
+                                        LocalsearchEvaluator evaluator){
+
+        FitnessInfo[] blockFitness = new FitnessInfo[blockEnd - blockStart];
+
+        if(executor == null){
+            for(int i = blockStart; i < blockEnd; i++)
+                blockFitness[i - blockStart] =
+                        evaluator.evaluate(originalSolution, neighborsList.get(i), Double.POSITIVE_INFINITY);
+            return blockFitness;
+        }
+
+        LocalsearchEvaluator[] evaluators = partitionEvaluators(evaluator);
+        int partitionSize = (blockFitness.length + evaluators.length - 1) / evaluators.length;
+
+        List<Runnable> partitions = new ArrayList<>(evaluators.length);
+        for(int p = 0; p * partitionSize < blockFitness.length; p++){
+            LocalsearchEvaluator partitionEvaluator = evaluators[p];
+            int partitionStart = blockStart + p * partitionSize;
+            int partitionEnd = Math.min(blockEnd, partitionStart + partitionSize);
+            partitions.add(() -> {
+                for(int i = partitionStart; i < partitionEnd; i++)
+                    blockFitness[i - blockStart] = partitionEvaluator.evaluate(originalSolution, neighborsList.get(i),
+                            Double.POSITIVE_INFINITY);
+            });
+        }
+        executor.run(partitions);
+
+        return blockFitness;
+    }
+
+    private LocalsearchEvaluator[] partitionEvaluators(LocalsearchEvaluator evaluator){
+
+        if(partitionedEvaluator != evaluator){
+            partitionEvaluators = new LocalsearchEvaluator[executor.numberOfThreads() * executor.chunksPerThread()];
+            for(int p = 0; p < partitionEvaluators.length; p++)
+                partitionEvaluators[p] = evaluator.copy();
+            partitionedEvaluator = evaluator;
+        }
+
+        return partitionEvaluators;
+    }
+
     public void updateObserverMetrics(Observer observer){
         observer.setBetterNeighborsRatio(this.numberOfBetterNeighbors * 1.00 / this.numberOfGeneratedNeighbors);
         observer.setAllNeighborsImprovingRatio(allNeighborsImprovingRatioSum / this.numberOfGeneratedNeighbors );
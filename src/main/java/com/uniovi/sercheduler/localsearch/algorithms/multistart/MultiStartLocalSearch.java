@@ -4,19 +4,53 @@ import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.localsearch.algorithms.localsearchalgorithm.LocalSearchAlgorithm;
 import com.uniovi.sercheduler.localsearch.algorithms.multistartcomponents.StartOperatorSelector;
 import com.uniovi.sercheduler.localsearch.observer.LocalSearchObserver;
+import com.uniovi.sercheduler.localsearch.observer.LocalSearchWorkerObserver;
 import com.uniovi.sercheduler.localsearch.observer.Observer;
 import com.uniovi.sercheduler.localsearch.operator.NeighborhoodOperatorGlobal;
 import com.uniovi.sercheduler.localsearch.operator.NeighborhoodOperatorLazy;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 public class MultiStartLocalSearch {
 
     private final StartOperatorSelector startOperatorSelector;
+    private final int numberOfWorkers;
+    private final long seed;
+
+    //The best solution found by any of the workers
+    private final AtomicReference<SchedulePermutationSolution> incumbent = new AtomicReference<>();
 
 
     public MultiStartLocalSearch(StartOperatorSelector startOperatorSelector){
+        this(startOperatorSelector, 1, System.nanoTime());
+    }
+
+    /**
+     * @param startOperatorSelector the selector of the operators of each start
+     * @param numberOfWorkers the number of starts that run at the same time in the concurrent mode, 0 uses one per
+     *                        available processor
+     * @param seed the seed the random generator of each worker is derived from
+     */
+    public MultiStartLocalSearch(StartOperatorSelector startOperatorSelector, int numberOfWorkers, long seed){
+        if(numberOfWorkers < 0)
+            throw new IllegalArgumentException("The number of workers is a negative value: " + numberOfWorkers);
+
         this.startOperatorSelector = startOperatorSelector;
+        this.numberOfWorkers = numberOfWorkers == 0 ? Runtime.getRuntime().availableProcessors() : numberOfWorkers;
+        this.seed = seed;
     }
 
     public SchedulePermutationSolution executeGlobal(LocalSearchAlgorithm localSearchAlgorithm,
@@ -94,4 +128,154 @@ public class MultiStartLocalSearch {
         return totalBestNeighbor;
     }
 
+    /**
+     * Runs independent starts on several workers until the time limit is reached. Each worker builds its own local
+     * search algorithm, with its own random generator, evaluator and termination criterion. The random generator of
+     * the worker is also the one its start operator selector draws from. The makespan evolution of the observer is
+     * sampled from the best solution of the workers and the neighbors they have generated.
+     *
+     * @param localSearchAlgorithmFactory creates the algorithm of a worker from its random generator
+     * @param neighborhoodOperatorList the operators the starts choose from
+     * @param limitTime the time limit of the whole run
+     * @param observer the observer of the run, every start is added to it when it ends
+     * @return the best solution found by the workers
+     */
+    public SchedulePermutationSolution executeGlobal(Function<Random, LocalSearchAlgorithm> localSearchAlgorithmFactory,
+                                                     List<NeighborhoodOperatorGlobal> neighborhoodOperatorList,
+                                                     Long limitTime,
+                                                     Observer observer)
+    {
+        //The operators are copied because the algorithm shuffles them
+        return executeConcurrently(localSearchAlgorithmFactory, limitTime, observer,
+                (worker, workerObserver) -> worker.localSearchAlgorithm().runLocalSearchGlobal(
+                        new ArrayList<>(worker.startOperatorSelector().selectOperatorsGlobal(neighborhoodOperatorList)),
+                        workerObserver));
+    }
+
+    /**
+     * Runs independent starts on several workers until the time limit is reached, see
+     * {@link #executeGlobal(Function, List, Long, Observer)}.
+     */
+    public SchedulePermutationSolution executeLazy(Function<Random, LocalSearchAlgorithm> localSearchAlgorithmFactory,
+                                                   List<NeighborhoodOperatorLazy> neighborhoodOperatorList,
+                                                   Long limitTime,
+                                                   Observer observer)
+    {
+        return executeConcurrently(localSearchAlgorithmFactory, limitTime, observer,
+                (worker, workerObserver) -> worker.localSearchAlgorithm().runLocalSearchLazy(
+                        new ArrayList<>(worker.startOperatorSelector().selectOperatorsLazy(neighborhoodOperatorList)),
+                        workerObserver));
+    }
+
+    /**
+     * The makespan of the best solution found by the workers so far. It can be read while they run, the makespan
+     * evolution of the concurrent mode is sampled from it.
+     *
+     * @return the makespan, or infinity if no start has ended
+     */
+    public double incumbentMakespan(){
+        SchedulePermutationSolution best = incumbent.get();
+        return best == null ? Double.POSITIVE_INFINITY : makespan(best);
+    }
+
+    private SchedulePermutationSolution executeConcurrently(
+            Function<Random, LocalSearchAlgorithm> localSearchAlgorithmFactory, Long limitTime, Observer observer,
+            BiFunction<Worker, Observer, SchedulePermutationSolution> start)
+    {
+        long startingTime = System.currentTimeMillis();
+
+        observer.startRun(startingTime);
+        incumbent.set(null);
+
+        //The workers only add the neighbors of each iteration, nothing else is shared while they search
+        AtomicLong generatedNeighbors = new AtomicLong();
+
+        //Each worker has its own random generator, all of them derived from the seed
+        Random seeds = new Random(seed);
+        List<Callable<Void>> workers = new ArrayList<>();
+        for(int i = 0; i < numberOfWorkers; i++){
+            long workerSeed = seeds.nextLong();
+            workers.add(() -> {
+                Random random = new Random(workerSeed);
+                Worker worker = new Worker(localSearchAlgorithmFactory.apply(random),
+                        startOperatorSelector.withRandom(random));
+                Observer workerObserver = new LocalSearchWorkerObserver(observer, generatedNeighbors);
+                workerObserver.startRun(startingTime);
+                worker.localSearchAlgorithm().startTimeCounter();
+
+                do {
+                    offer(start.apply(worker, workerObserver));
+                    workerObserver.endStart();
+                } while(System.currentTimeMillis() - startingTime < limitTime);
+
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfWorkers);
+        ScheduledExecutorService sampler = sampleMakespanEvolution(observer, generatedNeighbors);
+        try {
+            for(Future<Void> future : executor.invokeAll(workers))
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdown();
+            stop(sampler);
+        }
+
+        observer.endRun();
+
+        return incumbent.get();
+    }
+
+    /**
+     * Samples the makespan evolution of the run from a single thread, every period of the observer, while the workers
+     * search.
+     *
+     * @return the sampler, or null if the observer doesn't record the evolution
+     */
+    private ScheduledExecutorService sampleMakespanEvolution(Observer observer, AtomicLong generatedNeighbors){
+        long period = observer.getPeriodicTimeForMakespanEvolution();
+        if(period <= 0)
+            return null;
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            //Nothing is recorded until a start ends
+            if(incumbent.get() != null)
+                observer.sampleMakespanEvolution(incumbentMakespan(), generatedNeighbors.get());
+        }, period, period, TimeUnit.MILLISECONDS);
+
+        return sampler;
+    }
+
+    //The last sample has to end before the run of the observer does
+    private static void stop(ScheduledExecutorService sampler){
+        if(sampler == null)
+            return;
+
+        sampler.shutdownNow();
+        try {
+            sampler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void offer(SchedulePermutationSolution solution){
+        incumbent.accumulateAndGet(solution, (best, candidate) ->
+                best == null || makespan(candidate) < makespan(best) ? candidate : best);
+    }
+
+    private static double makespan(SchedulePermutationSolution solution){
+        return solution.getFitnessInfo().fitness().get("makespan");
+    }
+
+    //The algorithm and the operator selector of a worker, both draw from the random generator of the worker
+    private record Worker(LocalSearchAlgorithm localSearchAlgorithm, StartOperatorSelector startOperatorSelector) {}
+
 }
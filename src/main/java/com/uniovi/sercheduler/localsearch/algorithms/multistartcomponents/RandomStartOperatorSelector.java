@@ -8,7 +8,23 @@ import java.util.Random;
 
 public class RandomStartOperatorSelector implements StartOperatorSelector{
 
-    private final Random random = new Random();
+    private final Random random;
+
+    public RandomStartOperatorSelector(){
+        this(new Random());
+    }
+
+    /**
+     * @param random the random generator that chooses the operator of each start
+     */
+    public RandomStartOperatorSelector(Random random){
+        this.random = random;
+    }
+
+    @Override
+    public StartOperatorSelector withRandom(Random random) {
+        return new RandomStartOperatorSelector(random);
+    }
 
     @Override
     public List<NeighborhoodOperatorLazy> selectOperatorsLazy(List<NeighborhoodOperatorLazy> originalList) {
@@ -4,10 +4,21 @@ import com.uniovi.sercheduler.localsearch.operator.NeighborhoodOperatorGlobal;
 import com.uniovi.sercheduler.localsearch.operator.NeighborhoodOperatorLazy;
 
 import java.util.List;
+import java.util.Random;
 
 public interface StartOperatorSelector {
 
     List<NeighborhoodOperatorLazy> selectOperatorsLazy(List<NeighborhoodOperatorLazy> originalList);
 
     List<NeighborhoodOperatorGlobal> selectOperatorsGlobal(List<NeighborhoodOperatorGlobal> neighborhoodOperatorList);
+
+    /**
+     * The selector used by one of the workers of a concurrent multi-start.
+     *
+     * @param random the random generator of the worker
+     * @return a selector that draws from the given generator, or this one if it doesn't use any
+     */
+    default StartOperatorSelector withRandom(Random random) {
+        return this;
+    }
 }
@@ -2,210 +2,411 @@ package com.uniovi.sercheduler.localsearch.evaluator;
 
 import com.uniovi.sercheduler.dto.Host;
 import com.uniovi.sercheduler.dto.InstanceData;
-import com.uniovi.sercheduler.dto.Task;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.localsearch.movement.*;
-import com.uniovi.sercheduler.localsearch.operator.NeighborUtils;
+import com.uniovi.sercheduler.localsearch.operator.GeneratedNeighbor;
 import com.uniovi.sercheduler.service.FitnessInfo;
 import com.uniovi.sercheduler.service.PlanPair;
+import com.uniovi.sercheduler.service.RawSchedule;
 import com.uniovi.sercheduler.service.TaskSchedule;
+import com.uniovi.sercheduler.service.core.CompiledInstance;
+import com.uniovi.sercheduler.service.core.PrecomputedInstance;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
+/**
+ * Evaluates the neighbors of an already evaluated solution reusing its schedule.
+ *
+ * <p>Everything is kept in primitive arrays indexed by task ordinal of the {@link CompiledInstance}. The times of
+ * the original solution are extracted once and reused by all its neighbors, and each neighbor only reschedules
+ * from the first position the movement changed, which costs O(n + edges). The evaluator reuses its buffers, so it
+ * can't be shared between threads, each thread works with its own {@link #copy()}.
+ */
 public class LocalsearchEvaluator {
 
-    private Map<String, Map<String, Double>> computationMatrix;
-    private Map<String, Map<String, Long>> networkMatrix;
+    private final CompiledInstance compiledInstance;
 
-    private InstanceData instanceData;
+    private final double[] computation;
+    private final long[] stagingBits;
+    private final long[] parentBits;
+    private final int[] childEdges;
+
+    private final Scratch scratch;
+
+    private OriginalTimes lastOriginal;
 
     public LocalsearchEvaluator(Map<String, Map<String, Double>> computationMatrix, Map<String, Map<String, Long>> networkMatrix, InstanceData instanceData) {
-        this.computationMatrix = new HashMap<>(computationMatrix);
-        this.networkMatrix = new HashMap<>(networkMatrix);
-        this.instanceData = instanceData;
-    }
+        this.compiledInstance = PrecomputedInstance.of(instanceData).compiledInstance();
+
+        int taskCount = compiledInstance.taskCount();
+        int hostCount = compiledInstance.hostCount();
+        var parentOffsets = compiledInstance.parentOffsets();
+        var parents = compiledInstance.parents();
+
+        this.computation = new double[taskCount * hostCount];
+        this.stagingBits = new long[taskCount];
+        this.parentBits = new long[parents.length];
+        for (int t = 0; t < taskCount; t++) {
+            String taskName = compiledInstance.task(t).getName();
+            for (int h = 0; h < hostCount; h++) {
+                computation[t * hostCount + h] = computationMatrix.get(taskName).get(compiledInstance.host(h).getName());
+            }
+            stagingBits[t] = networkMatrix.get(taskName).get(taskName);
+            for (int edge = parentOffsets[t]; edge < parentOffsets[t + 1]; edge++) {
+                parentBits[edge] = networkMatrix.get(taskName).get(compiledInstance.task(parents[edge]).getName());
+            }
+        }
 
-    public void evaluate(SchedulePermutationSolution originalSolution, SchedulePermutationSolution generatedSolution, Movement movement){
+        //For each child edge, the parent edge going the other way, so the bits can be found without searching
+        var childOffsets = compiledInstance.childOffsets();
+        var children = compiledInstance.children();
+        this.childEdges = new int[children.length];
+        for (int t = 0; t < taskCount; t++) {
+            for (int edge = childOffsets[t]; edge < childOffsets[t + 1]; edge++) {
+                childEdges[edge] = findParentEdge(children[edge], t);
+            }
+        }
 
-        if(originalSolution.getFitnessInfo() == null)
-            throw new IllegalArgumentException("The solution must have been evaluated first.");
+        this.scratch = new Scratch(taskCount, hostCount);
+    }
 
-        Map<String, TaskSchedule> originalSchedule = obtainOriginalSchedule(originalSolution);
+    private LocalsearchEvaluator(LocalsearchEvaluator evaluator) {
+        this.compiledInstance = evaluator.compiledInstance;
+        this.computation = evaluator.computation;
+        this.stagingBits = evaluator.stagingBits;
+        this.parentBits = evaluator.parentBits;
+        this.childEdges = evaluator.childEdges;
+        this.scratch = new Scratch(compiledInstance.taskCount(), compiledInstance.hostCount());
+    }
+
+    /**
+     * Creates an evaluator for another thread. The tables of the instance are shared, only the buffers are new.
+     *
+     * @return an evaluator that gives the same results as this one
+     */
+    public LocalsearchEvaluator copy() {
+        return new LocalsearchEvaluator(this);
+    }
 
-        if(movement.changedHostPositions().length != 0)
-            updateOriginalScheduleDurations(originalSchedule, generatedSolution.getPlan(), movement.changedHostPositions());
+    public void evaluate(SchedulePermutationSolution originalSolution, SchedulePermutationSolution generatedSolution, Movement movement){
+        evaluate(originalSolution, generatedSolution, movement, Double.POSITIVE_INFINITY);
+    }
 
-        generatedSolution.setFitnessInfo(
-                computeNewFitnessInfo(originalSchedule, generatedSolution.getPlan(), movement.getFirstChangePosition())
-        );
+    /**
+     * Evaluates the generated solution only while its makespan can still be lower than the bound. When the
+     * tasks already scheduled prove that it can't, the evaluation stops and the solution is left without fitness.
+     *
+     * @param originalSolution the evaluated solution the neighbor comes from
+     * @param generatedSolution the neighbor to evaluate
+     * @param movement the last movement applied to generate the neighbor
+     * @param makespanBound the makespan the neighbor must improve
+     * @return true if the neighbor was evaluated, false if it was discarded
+     */
+    public boolean evaluate(SchedulePermutationSolution originalSolution, SchedulePermutationSolution generatedSolution,
+                            Movement movement, double makespanBound){
+
+        FitnessInfo fitnessInfo =
+                computeNewFitnessInfo(originalSolution, generatedSolution.getPlan(), null, movement, makespanBound);
+
+        if(fitnessInfo == null)
+            return false;
+
+        generatedSolution.setFitnessInfo(fitnessInfo);
+        return true;
     }
 
 
-    public double computeMakespanEnhancement(SchedulePermutationSolution originalSolution, SchedulePermutationSolution generatedSolution, Movement movement){
+    /**
+     * Evaluates a neighbor only while its makespan can still be lower than the bound. Neighbors described by a single
+     * movement are read through it from the plan they come from, so their own plan isn't built.
+     *
+     * @param originalSolution the evaluated solution the neighbor comes from
+     * @param neighbor the neighbor to evaluate
+     * @param makespanBound the makespan the neighbor must improve
+     * @return the fitness of the neighbor, which isn't set on it, or null if it was discarded
+     */
+    public FitnessInfo evaluate(SchedulePermutationSolution originalSolution, GeneratedNeighbor neighbor,
+                                double makespanBound){
 
-        if(originalSolution.getFitnessInfo() == null)
-            throw new IllegalArgumentException("The solution must have been evaluated first.");
+        List<Movement> movements = neighbor.movements();
+        Movement movement = movements.get(movements.size() - 1);
 
-        Map<String, TaskSchedule> originalSchedule = obtainOriginalSchedule(originalSolution);
+        if(neighbor.originalPlan() == null)
+            return computeNewFitnessInfo(originalSolution, neighbor.generatedSolution().getPlan(), null, movement,
+                    makespanBound);
 
-        if(movement.changedHostPositions().length != 0)
-            updateOriginalScheduleDurations(originalSchedule, generatedSolution.getPlan(), movement.changedHostPositions());
+        return computeNewFitnessInfo(originalSolution, neighbor.originalPlan(), movement, movement, makespanBound);
+    }
+
+    public double computeMakespanEnhancement(SchedulePermutationSolution originalSolution, SchedulePermutationSolution generatedSolution, Movement movement){
 
         return originalSolution.getFitnessInfo().fitness().get("makespan")
-                - computeNewFitnessInfo(originalSchedule, generatedSolution.getPlan(), movement.getFirstChangePosition()).fitness().get("makespan");
+                - computeNewFitnessInfo(originalSolution, generatedSolution.getPlan(), null, movement,
+                        Double.POSITIVE_INFINITY).fitness().get("makespan");
     }
 
-    private void updateOriginalScheduleDurations(Map<String, TaskSchedule> originalSchedule, List<PlanPair> plan, int[] changedHostPositions) {
-
-        for(int taskPos : changedHostPositions){
+    /**
+     * Evaluates a plan, given as a plan and optionally a movement to apply to it.
+     *
+     * @param plan the plan of the neighbor or the one the movement is applied to
+     * @param planMovement the movement to apply to the plan, null if the plan is already the one of the neighbor
+     * @param movement the last movement applied to generate the neighbor
+     */
+    private FitnessInfo computeNewFitnessInfo(SchedulePermutationSolution originalSolution, List<PlanPair> plan,
+                                              Movement planMovement, Movement movement, double makespanBound){
 
-            Task task = plan.get(taskPos).task();
+        if(originalSolution.getFitnessInfo() == null)
+            throw new IllegalArgumentException("The solution must have been evaluated first.");
 
-            int[] taskParentsPos = NeighborUtils.getParentsPositions(plan, taskPos);
+        OriginalTimes original = obtainOriginalTimes(originalSolution.getFitnessInfo());
+        Scratch s = scratch;
+        s.loadPlan(plan, planMovement);
 
-            double newEft = originalSchedule.get(task.getName()).ast()
-                    + computeDurationOfATask(plan, taskPos, taskParentsPos);
+        double[] ast = original.ast;
+        double[] eft = original.eft;
 
-            TaskSchedule originalTaskSchedule = originalSchedule.get(task.getName());
+        int[] changedHostPositions = movement.changedHostPositions();
+        if(changedHostPositions.length != 0) {
+            System.arraycopy(original.ast, 0, s.ast, 0, ast.length);
+            System.arraycopy(original.eft, 0, s.eft, 0, eft.length);
+            ast = s.ast;
+            eft = s.eft;
+            updateOriginalScheduleDurations(original, s, changedHostPositions);
+        }
 
-            originalSchedule.put(task.getName(),
-                new TaskSchedule(originalTaskSchedule.task(), originalTaskSchedule.ast(), newEft, originalTaskSchedule.host()));
+        return reschedule(s, ast, eft, plan.size(), movement.getFirstChangePosition(), makespanBound);
+    }
 
-            //Updating children communications with this task
-            for(int childPos : NeighborUtils.getChildrenPositions(plan, taskPos)){
+    /**
+     * Updates the duration of the tasks whose host changed and the communications with their children, the start of
+     * every task is kept.
+     */
+    private void updateOriginalScheduleDurations(OriginalTimes original, Scratch s, int[] changedHostPositions) {
 
-                Task childTask = plan.get(childPos).task();
+        var childOffsets = compiledInstance.childOffsets();
+        var children = compiledInstance.children();
 
-                TaskSchedule originalChildTaskSchedule = originalSchedule.get(childTask.getName());
+        for(int taskPos : changedHostPositions){
 
-                double oldCommunicationTime = computeCommunicationTime(originalChildTaskSchedule.task(), originalChildTaskSchedule.host(),
-                        originalTaskSchedule.task(), originalTaskSchedule.host());
+            int task = s.planTasks[taskPos];
+            int host = s.planHosts[taskPos];
 
-                double newCommunicationTime = computeCommunicationTime(plan.get(childPos).task(), plan.get(childPos).host(),
-                        plan.get(taskPos).task(), plan.get(taskPos).host());
+            s.eft[task] = s.ast[task] + computeDurationOfATask(s, task, host);
 
+            //Updating children communications with this task
+            for(int edge = childOffsets[task]; edge < childOffsets[task + 1]; edge++){
 
-                //----------------------- Changed lines -----------------------
-//                double newChildDuration = computeDurationOfATask(plan, childPos, NeighborUtils.getParentsPositions(plan, childPos)) - oldCommunicationTime + newCommunicationTime;
-//
-//                double newChildEft = originalChildTaskSchedule.ast() + newChildDuration;
+                int child = children[edge];
+                long bits = parentBits[childEdges[edge]];
 
-                //------------------------ Changed lines ---------------------
+                double oldCommunicationTime =
+                        bits * compiledInstance.inverseTransferSpeed(original.hostOf[child], original.hostOf[task]);
 
-                double newChildEft = originalChildTaskSchedule.eft() - oldCommunicationTime + newCommunicationTime;
+                double newCommunicationTime = bits * compiledInstance.inverseTransferSpeed(s.hostOf[child], host);
 
-                originalSchedule.put(childTask.getName(),
-                        new TaskSchedule(originalChildTaskSchedule.task(), originalChildTaskSchedule.ast(), newChildEft, originalChildTaskSchedule.host()));
+                s.eft[child] = s.eft[child] - oldCommunicationTime + newCommunicationTime;
             }
         }
     }
 
-    private double computeCommunicationTime(Task childTask, Host childHost, Task parentTask, Host parentHost){
+    /**
+     * Keeps the times of the tasks before the first change and schedules the rest again, each one as soon as its host
+     * and its parents allow it.
+     *
+     * @return the fitness or null if the makespan can't be lower than the bound
+     */
+    private FitnessInfo reschedule(Scratch s, double[] ast, double[] eft, int planSize, int firstChangePosition,
+                                   double makespanBound){
 
-        double slowestSpeed = findHostSpeed(childHost, parentHost);
-
-        return networkMatrix.get(childTask.getName()).get(parentTask.getName()) / slowestSpeed;
-
-    }
-
-
-    private static Map<String, TaskSchedule> obtainOriginalSchedule(SchedulePermutationSolution originalSolution) {
-        List<TaskSchedule> originalOrderedSchedule = new ArrayList<>(originalSolution.getFitnessInfo().schedule());
-        return originalOrderedSchedule.stream().collect(Collectors.toMap(ts -> ts.task().getName(), ts -> ts));
-    }
-
-    private FitnessInfo computeNewFitnessInfo(Map<String, TaskSchedule> originalSchedule, List<PlanPair> newPlan, int firstChangePosition){
+        var parentOffsets = compiledInstance.parentOffsets();
+        var parents = compiledInstance.parents();
 
         double newMakespan = 0D;
+        Arrays.fill(s.available, 0D);
 
-        Map<String, Double> available = new HashMap<>(instanceData.hosts().size());
-        Map<String, TaskSchedule> newSchedule = new HashMap<>(instanceData.workflow().size());
-
-        for(int i = 0; i < newPlan.size(); i ++){
+        for(int i = 0; i < planSize; i ++){
 
-            Task t = newPlan.get(i).task();
-            Host h = newPlan.get(i).host();
-
-            double duration = originalSchedule.get(t.getName()).eft() - originalSchedule.get(t.getName()).ast();
+            int t = s.planTasks[i];
+            int h = s.planHosts[i];
 
             if(i >= firstChangePosition){
 
-                double readyHost = available.getOrDefault(h.getName(), 0D);
-                double parentsMaxEft = computeParentsMaxEft(newSchedule, t);
+                double duration = eft[t] - ast[t];
+
+                //Only the parents placed before the task in the new plan are already scheduled
+                double parentsMaxEft = 0D;
+                for(int edge = parentOffsets[t]; edge < parentOffsets[t + 1]; edge++){
+                    int parent = parents[edge];
+                    if(s.positionOf[parent] < i)
+                        parentsMaxEft = Math.max(parentsMaxEft, s.newEft[parent]);
+                }
 
-                double newAst = Math.max(readyHost, parentsMaxEft);
+                double newAst = Math.max(s.available[h], parentsMaxEft);
                 double newEft = newAst + duration;
 
-                available.put(h.getName(), newEft);
-                newSchedule.put(t.getName(), new TaskSchedule(t, newAst, newEft, h));
+                s.available[h] = newEft;
+                s.newAst[t] = newAst;
+                s.newEft[t] = newEft;
 
                 newMakespan = Math.max(newMakespan, newEft);
 
+                //The descendants of the task still have to run after it
+                if(newMakespan >= makespanBound || newEft + compiledInstance.tailBound(t) >= makespanBound)
+                    return null;
+
             } else {
-                double originalEft = originalSchedule.get(t.getName()).eft();
-                double originalAst = originalSchedule.get(t.getName()).ast();
+                s.available[h] = eft[t];
+                s.newAst[t] = ast[t];
+                s.newEft[t] = eft[t];
 
-                available.put(h.getName(), originalEft);
-                newSchedule.put(t.getName(), new TaskSchedule(t, originalAst, originalEft, h));
+                newMakespan = Math.max(newMakespan, eft[t]);
 
-                newMakespan = Math.max(newMakespan, originalEft);
+                if(newMakespan >= makespanBound)
+                    return null;
             }
 
         }
 
-        var newOrderedSchedule =
-                newSchedule.values().stream().sorted(Comparator.comparing(TaskSchedule::ast)).toList();
+        //Tasks starting at the same time keep the order of the plan
+        var schedule = RawSchedule.copyOf(compiledInstance, s.planTasks, planSize, s.newAst, s.newEft, s.hostOf);
 
-        return new FitnessInfo(
-                Map.of("makespan", newMakespan, "energy", 0.0), newOrderedSchedule, "incremental evaluator");
+        return new FitnessInfo(Map.of("makespan", newMakespan, "energy", 0.0), schedule, "incremental evaluator");
     }
 
-    private double computeParentsMaxEft(Map<String, TaskSchedule> newSchedule, Task task) {
-        return newSchedule.values().stream()
-                .filter(ts -> task.getParents().contains(ts.task()))
-                .mapToDouble(TaskSchedule::eft)
-                .max()
-                .orElse(0D);
+    private OriginalTimes obtainOriginalTimes(FitnessInfo fitnessInfo) {
+        OriginalTimes original = lastOriginal;
+        if(original == null || original.fitnessInfo != fitnessInfo){
+            original = new OriginalTimes(fitnessInfo, compiledInstance);
+            lastOriginal = original;
+        }
+        return original;
     }
 
-    private double computeDurationOfATask(List<PlanPair> plan, int position, int[] parentsPositions) {
+    private double computeDurationOfATask(Scratch s, int task, int host) {
 
-        Task task = plan.get(position).task();
-        Host host = plan.get(position).host();
+        double diskSpeed = compiledInstance.diskSpeed(host);
 
-        double diskReadStagingTime =
-                networkMatrix.get(task.getName()).get(task.getName()) / host.getDiskSpeed().doubleValue();
-        double taskCommunicationsTime = computeParentsCommunicationsDuration(plan, position, parentsPositions);
-        double computationTime = computationMatrix.get(task.getName()).get(host.getName());
-        double diskWriteTime = task.getOutput().getSizeInBits() / host.getDiskSpeed().doubleValue();
+        double diskReadStagingTime = stagingBits[task] / diskSpeed;
+        double taskCommunicationsTime = computeParentsCommunicationsDuration(s, task, host);
+        double computationTime = computation[task * compiledInstance.hostCount() + host];
+        double diskWriteTime = compiledInstance.outputBits(task) / diskSpeed;
 
         return diskReadStagingTime + taskCommunicationsTime + computationTime + diskWriteTime;
     }
 
+    private double computeParentsCommunicationsDuration(Scratch s, int task, int host) {
+
+        var parentOffsets = compiledInstance.parentOffsets();
+        var parents = compiledInstance.parents();
+
+        double parentsCommunicationsDuration = 0D;
+        for(int edge = parentOffsets[task]; edge < parentOffsets[task + 1]; edge++){
+            parentsCommunicationsDuration +=
+                    parentBits[edge] * compiledInstance.inverseTransferSpeed(host, s.hostOf[parents[edge]]);
+        }
+
+        return parentsCommunicationsDuration;
+    }
+
     public double computeParentsCommunicationsDuration(List<PlanPair> plan, int position, int[] parentsPositions){
 
+        int task = compiledInstance.taskOrdinal(plan.get(position).task());
+        int host = compiledInstance.hostOrdinal(plan.get(position).host());
+
         double parentsCommunicationsDuration = 0D;
 
         for (int parentsPosition : parentsPositions) {
 
-            var slowestSpeed = findHostSpeed(plan.get(position).host(), plan.get(parentsPosition).host());
+            int parent = compiledInstance.taskOrdinal(plan.get(parentsPosition).task());
+            int parentHost = compiledInstance.hostOrdinal(plan.get(parentsPosition).host());
 
             parentsCommunicationsDuration +=
-                    networkMatrix.get(plan.get(position).task().getName()).get(plan.get(parentsPosition).task().getName()) / slowestSpeed.doubleValue();
+                    parentBits[findParentEdge(task, parent)] * compiledInstance.inverseTransferSpeed(host, parentHost);
         }
 
         return parentsCommunicationsDuration;
     }
 
     public Long findHostSpeed(Host host, Host parentHost) {
+        return (long) compiledInstance.transferSpeed(compiledInstance.hostOrdinal(host), compiledInstance.hostOrdinal(parentHost));
+    }
 
-        if (host.getName().equals(parentHost.getName())) {
-            return host.getDiskSpeed();
+    private int findParentEdge(int task, int parent) {
+        var parentOffsets = compiledInstance.parentOffsets();
+        var parents = compiledInstance.parents();
+        for(int edge = parentOffsets[task]; edge < parentOffsets[task + 1]; edge++){
+            if(parents[edge] == parent)
+                return edge;
         }
+        throw new IllegalArgumentException("The task " + compiledInstance.task(parent).getName()
+                + " is not a parent of " + compiledInstance.task(task).getName());
+    }
 
-        var bandwidth = Math.min(host.getNetworkSpeed(), parentHost.getNetworkSpeed());
+    /**
+     * The schedule of an evaluated solution indexed by task ordinal.
+     */
+    private static final class OriginalTimes {
+
+        private final FitnessInfo fitnessInfo;
+        private final double[] ast;
+        private final double[] eft;
+        private final int[] hostOf;
+
+        private OriginalTimes(FitnessInfo fitnessInfo, CompiledInstance instance) {
+            this.fitnessInfo = fitnessInfo;
+            this.ast = new double[instance.taskCount()];
+            this.eft = new double[instance.taskCount()];
+            this.hostOf = new int[instance.taskCount()];
+            for(TaskSchedule ts : fitnessInfo.schedule()){
+                int task = instance.taskOrdinal(ts.task());
+                ast[task] = ts.ast();
+                eft[task] = ts.eft();
+                hostOf[task] = instance.hostOrdinal(ts.host());
+            }
+        }
+    }
 
-        return Math.min(bandwidth, parentHost.getDiskSpeed());
+    /**
+     * Buffers reused by the evaluations.
+     */
+    private final class Scratch {
+
+        private final int[] planTasks;
+        private final int[] planHosts;
+        private final int[] positionOf;
+        private final int[] hostOf;
+        private final double[] ast;
+        private final double[] eft;
+        private final double[] newAst;
+        private final double[] newEft;
+        private final double[] available;
+
+        private Scratch(int taskCount, int hostCount) {
+            this.planTasks = new int[taskCount];
+            this.planHosts = new int[taskCount];
+            this.positionOf = new int[taskCount];
+            this.hostOf = new int[taskCount];
+            this.ast = new double[taskCount];
+            this.eft = new double[taskCount];
+            this.newAst = new double[taskCount];
+            this.newEft = new double[taskCount];
+            this.available = new double[hostCount];
+        }
+
+        /**
+         * Indexes the plan of the neighbor, the task and host of each position and the position and host of each task.
+         * When there is a movement the neighbor is read through it.
+         */
+        private void loadPlan(List<PlanPair> plan, Movement movement) {
+            for(int i = 0; i < plan.size(); i++){
+                PlanPair planPair = movement == null ? plan.get(i) : movement.planPairAt(plan, i);
+                int task = compiledInstance.taskOrdinal(planPair.task());
+                int host = compiledInstance.hostOrdinal(planPair.host());
+                planTasks[i] = task;
+                planHosts[i] = host;
+                positionOf[task] = i;
+                hostOf[task] = host;
+            }
+        }
     }
 }
@@ -1,16 +1,20 @@
 package com.uniovi.sercheduler.localsearch.movement;
 
-import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
-import com.uniovi.sercheduler.localsearch.evaluator.LocalsearchEvaluator;
+import com.uniovi.sercheduler.dto.Host;
+import com.uniovi.sercheduler.service.PlanPair;
+
+import java.util.List;
 
 public class ChangeHostMovement implements Movement {
 
     int position;
+    Host host;
     int[] parentPositions;
     int[] childrenPositions;
 
-    public ChangeHostMovement(int position, int[] parentsPositions, int[] childrenPositions) {
+    public ChangeHostMovement(int position, Host host, int[] parentsPositions, int[] childrenPositions) {
         this.position = position;
+        this.host = host;
         this.parentPositions = parentsPositions;
         this.childrenPositions = childrenPositions;
     }
@@ -19,6 +23,10 @@ public class ChangeHostMovement implements Movement {
         return position;
     }
 
+    public Host getHost() {
+        return host;
+    }
+
 
 
     public int[] getChildrenPositions() {
@@ -39,5 +47,12 @@ public class ChangeHostMovement implements Movement {
         return new int[]{position};
     }
 
+    @Override
+    public PlanPair planPairAt(List<PlanPair> plan, int position) {
+
+        if(position == this.position)
+            return new PlanPair(plan.get(position).task(), host);
 
+        return plan.get(position);
+    }
 }
@@ -1,18 +1,24 @@
 package com.uniovi.sercheduler.localsearch.movement;
 
-import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
-import com.uniovi.sercheduler.localsearch.evaluator.LocalsearchEvaluator;
+import com.uniovi.sercheduler.service.PlanPair;
+import com.uniovi.sercheduler.service.PlanPositions;
+
+import java.util.List;
 
 public class InsertionMovement implements Movement{
 
-    private int[] changedPlanPairs;
+    //The positions between both bounds, both included, are the ones that change
+    private int firstChangedPosition;
+    private int lastChangedPosition;
     private int initialPosition;
     private int finalPosition;
 
     int[] parentsPositions;
 
-    public InsertionMovement(int[] changedPlanPairs, int initialPosition, int finalPosition, int[] parentsPositions) {
-        this.changedPlanPairs = changedPlanPairs;
+    public InsertionMovement(int firstChangedPosition, int lastChangedPosition, int initialPosition, int finalPosition,
+                             int[] parentsPositions) {
+        this.firstChangedPosition = firstChangedPosition;
+        this.lastChangedPosition = lastChangedPosition;
         this.initialPosition = initialPosition;
         this.finalPosition = finalPosition;
         this.parentsPositions = parentsPositions;
@@ -32,7 +38,11 @@ public class InsertionMovement implements Movement{
 
     @Override
     public int getFirstChangePosition() {
-        return changedPlanPairs[0];
+        return firstChangedPosition;
+    }
+
+    public int getLastChangePosition() {
+        return lastChangedPosition;
     }
 
     @Override
@@ -40,5 +50,24 @@ public class InsertionMovement implements Movement{
         return new int[0];
     }
 
+    @Override
+    public PlanPair planPairAt(List<PlanPair> plan, int position) {
+
+        if(position == finalPosition)
+            return plan.get(initialPosition);
+
+        //The tasks between both positions move one position towards the initial one
+        if(finalPosition < initialPosition && position > finalPosition && position <= initialPosition)
+            return plan.get(position - 1);
 
+        if(finalPosition > initialPosition && position >= initialPosition && position < finalPosition)
+            return plan.get(position + 1);
+
+        return plan.get(position);
+    }
+
+    @Override
+    public PlanPositions apply(PlanPositions positions) {
+        return positions.move(initialPosition, finalPosition);
+    }
 }
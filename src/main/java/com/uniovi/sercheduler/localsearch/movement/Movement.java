@@ -1,8 +1,50 @@
 package com.uniovi.sercheduler.localsearch.movement;
 
+import com.uniovi.sercheduler.service.PlanPair;
+import com.uniovi.sercheduler.service.PlanPositions;
+
+import java.util.List;
+
+/**
+ * Describes how a neighbor is obtained from the plan of a solution, so the neighbor can be evaluated without building
+ * its plan.
+ */
 public interface Movement {
 
     int getFirstChangePosition();
 
     int[] changedHostPositions();
+
+    /**
+     * Finds what the neighbor has in one position without building its plan.
+     *
+     * @param plan the plan the movement is applied to
+     * @param position the position of the neighbor
+     * @return the task and host of the neighbor in that position
+     */
+    PlanPair planPairAt(List<PlanPair> plan, int position);
+
+    /**
+     * Builds the plan of the neighbor.
+     *
+     * @param plan the plan the movement is applied to, it isn't modified
+     * @return the plan of the neighbor
+     */
+    default List<PlanPair> apply(List<PlanPair> plan) {
+        PlanPair[] newPlan = new PlanPair[plan.size()];
+        for(int i = 0; i < newPlan.length; i++){
+            newPlan[i] = planPairAt(plan, i);
+        }
+        return List.of(newPlan);
+    }
+
+    /**
+     * Derives the index of the positions of the neighbor, the movements that only change hosts keep the same one.
+     *
+     * @param positions the index of the plan the movement is applied to
+     * @return the index of the plan of the neighbor
+     */
+    default PlanPositions apply(PlanPositions positions) {
+        return positions;
+    }
 }
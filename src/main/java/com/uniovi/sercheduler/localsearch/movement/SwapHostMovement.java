@@ -1,7 +1,8 @@
 package com.uniovi.sercheduler.localsearch.movement;
 
-import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
-import com.uniovi.sercheduler.localsearch.evaluator.LocalsearchEvaluator;
+import com.uniovi.sercheduler.service.PlanPair;
+
+import java.util.List;
 
 public class SwapHostMovement implements Movement {
 
@@ -53,5 +54,15 @@ public class SwapHostMovement implements Movement {
         return new int[]{firstPosition, secondPosition};
     }
 
+    @Override
+    public PlanPair planPairAt(List<PlanPair> plan, int position) {
+
+        if(position == firstPosition)
+            return new PlanPair(plan.get(firstPosition).task(), plan.get(secondPosition).host());
 
+        if(position == secondPosition)
+            return new PlanPair(plan.get(secondPosition).task(), plan.get(firstPosition).host());
+
+        return plan.get(position);
+    }
 }
@@ -1,7 +1,9 @@
 package com.uniovi.sercheduler.localsearch.movement;
 
-import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
-import com.uniovi.sercheduler.localsearch.evaluator.LocalsearchEvaluator;
+import com.uniovi.sercheduler.service.PlanPair;
+import com.uniovi.sercheduler.service.PlanPositions;
+
+import java.util.List;
 
 public class SwapMovement implements Movement{
 
@@ -37,5 +39,20 @@ public class SwapMovement implements Movement{
         return new int[0];
     }
 
+    @Override
+    public PlanPair planPairAt(List<PlanPair> plan, int position) {
+
+        if(position == firstPosition)
+            return plan.get(secondPosition);
+
+        if(position == secondPosition)
+            return plan.get(firstPosition);
 
+        return plan.get(position);
+    }
+
+    @Override
+    public PlanPositions apply(PlanPositions positions) {
+        return positions.swap(firstPosition, secondPosition);
+    }
 }
@@ -16,6 +16,10 @@ public abstract class AbstractLocalSearchObserver implements Observer{
 
     private List<IterationMetrics> iterations;
 
+    //The neighbors of the ended starts and of the iterations of the running start, so they aren't summed every time
+    private long startsGeneratedNeighbors;
+    private long iterationsGeneratedNeighbors;
+
     private double reachedMakespan;
     private int numberOfGeneratedNeighbors;
     private double betterNeighborsRatio;
@@ -63,12 +67,19 @@ public abstract class AbstractLocalSearchObserver implements Observer{
     }
 
     @Override
-    public void endStart() {
-        starts.add(
+    public synchronized void endStart() {
+        addStart(
                 new StartMetrics(iterations)
         );
 
         iterations = new ArrayList<>();
+        iterationsGeneratedNeighbors = 0;
+    }
+
+    @Override
+    public synchronized void addStart(StartMetrics start) {
+        starts.add(start);
+        startsGeneratedNeighbors += start.numberOfGeneratedNeighbors();
     }
 
     @Override
@@ -83,6 +94,7 @@ public abstract class AbstractLocalSearchObserver implements Observer{
                         reachedMakespanImprovingRatioWithRespectLastIteration
                 )
         );
+        iterationsGeneratedNeighbors += numberOfGeneratedNeighbors;
 
         reachedMakespan = -1;
         numberOfGeneratedNeighbors = -1;
@@ -120,9 +132,8 @@ public abstract class AbstractLocalSearchObserver implements Observer{
     @Override
     public void updateMakespanEvolution(double actualMakespan, long actualIterationNumberOfNeighbors) {
 
-        long accNumberOfNeighbors = actualIterationNumberOfNeighbors +
-                starts.stream().mapToInt(StartMetrics::numberOfGeneratedNeighbors).sum() +
-                iterations.stream().mapToInt(IterationMetrics::numberOfGeneratedNeighbors).sum();
+        long accNumberOfNeighbors = actualIterationNumberOfNeighbors + startsGeneratedNeighbors +
+                iterationsGeneratedNeighbors;
 
         evolutionMetrics.update(
                 runStartingTime,
@@ -133,6 +144,16 @@ public abstract class AbstractLocalSearchObserver implements Observer{
         );
     }
 
+    @Override
+    public void sampleMakespanEvolution(double bestMakespan, long accNumberOfNeighbors) {
+        int startNumber;
+        synchronized (this) {
+            startNumber = starts.size() + 1;
+        }
+
+        evolutionMetrics.update(runStartingTime, startNumber, 0, bestMakespan, accNumberOfNeighbors);
+    }
+
     @Override
     public long getPeriodicTimeForMakespanEvolution() {
         return periodicTimeForMakespanEvolution;
@@ -149,12 +170,13 @@ public abstract class AbstractLocalSearchObserver implements Observer{
         return operatorsName;
     }
 
-    public List<StartMetrics> getStarts() {
+    public synchronized List<StartMetrics> getStarts() {
         return new ArrayList<>(starts);
     }
 
-    public void setStarts(List<StartMetrics> starts) {
+    public synchronized void setStarts(List<StartMetrics> starts) {
         this.starts = starts;
+        this.startsGeneratedNeighbors = starts.stream().mapToLong(StartMetrics::numberOfGeneratedNeighbors).sum();
     }
 
     public EvolutionMetrics getEvolutionMetrics() {
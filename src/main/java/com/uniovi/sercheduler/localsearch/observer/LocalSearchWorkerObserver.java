@@ -0,0 +1,53 @@
+package com.uniovi.sercheduler.localsearch.observer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Observer of one of the workers of a concurrent multi-start. The iterations and the makespan evolution of the worker
+ * are kept by it, each start is handed once to the shared observer when it ends and the generated neighbors are added
+ * to a counter shared by the workers, so the search never waits for the other workers.
+ */
+public class LocalSearchWorkerObserver extends AbstractLocalSearchObserver {
+
+    private final Observer sharedObserver;
+    private final AtomicLong sharedGeneratedNeighbors;
+
+    private int iterationGeneratedNeighbors;
+
+    /**
+     * @param sharedObserver the observer of the whole run
+     * @param sharedGeneratedNeighbors the neighbors generated by all the workers
+     */
+    public LocalSearchWorkerObserver(Observer sharedObserver, AtomicLong sharedGeneratedNeighbors) {
+        super(sharedObserver.getStrategyName(), sharedObserver.getOperatorsName(),
+                sharedObserver.getPeriodicTimeForMakespanEvolution());
+        this.sharedObserver = sharedObserver;
+        this.sharedGeneratedNeighbors = sharedGeneratedNeighbors;
+    }
+
+    @Override
+    public synchronized void addStart(StartMetrics start) {
+        super.addStart(start);
+        sharedObserver.addStart(start);
+    }
+
+    @Override
+    public void setNumberOfGeneratedNeighbors(int numberOfGeneratedNeighbors) {
+        super.setNumberOfGeneratedNeighbors(numberOfGeneratedNeighbors);
+        this.iterationGeneratedNeighbors = numberOfGeneratedNeighbors;
+    }
+
+    @Override
+    public void endIteration() {
+        super.endIteration();
+
+        if(iterationGeneratedNeighbors > 0)
+            sharedGeneratedNeighbors.addAndGet(iterationGeneratedNeighbors);
+        iterationGeneratedNeighbors = 0;
+    }
+
+    @Override
+    public void endRun() {
+        //The run belongs to the shared observer
+    }
+}
@@ -12,6 +12,14 @@ public interface Observer {
 
     void endIteration();
 
+    /**
+     * Adds a start that was observed by another observer, as the workers of a concurrent multi-start do. It can be
+     * called from several threads.
+     *
+     * @param start the metrics of the start
+     */
+    void addStart(StartMetrics start);
+
     void setNumberOfGeneratedNeighbors(int numberOfGeneratedNeighbors);
 
     void setBetterNeighborsRatio(double betterNeighborsRatio);
@@ -24,6 +32,15 @@ public interface Observer {
 
     void updateMakespanEvolution(double actualMakespan, long actualIterationNumberOfNeighbors);
 
+    /**
+     * Records the makespan evolution from outside the search, as the concurrent multi-start does with the best
+     * solution of all its workers. The evolution is only sampled by one thread.
+     *
+     * @param bestMakespan the best makespan found so far
+     * @param accNumberOfNeighbors the neighbors generated so far
+     */
+    void sampleMakespanEvolution(double bestMakespan, long accNumberOfNeighbors);
+
     long getPeriodicTimeForMakespanEvolution();
 
     String getStrategyName();
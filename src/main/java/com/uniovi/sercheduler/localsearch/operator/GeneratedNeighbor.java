@@ -2,8 +2,80 @@ package com.uniovi.sercheduler.localsearch.operator;
 
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.localsearch.movement.Movement;
+import com.uniovi.sercheduler.service.PlanPair;
 
 import java.util.List;
 
-public record GeneratedNeighbor(SchedulePermutationSolution generatedSolution, List<Movement> movements) {
+/**
+ * A neighbor of a solution and the movements applied to obtain it.
+ *
+ * <p>The neighbors created from a single movement only keep the plan they come from, their own plan isn't built until
+ * {@link #generatedSolution()} is called. Most neighbors are rejected after being evaluated, and the evaluator can
+ * read them through their movement, so they never pay for a copy of the plan. A neighbor is only used by one thread at
+ * a time.
+ */
+public final class GeneratedNeighbor {
+
+    private final SchedulePermutationSolution originalSolution;
+    private final List<PlanPair> originalPlan;
+    private final List<Movement> movements;
+    private SchedulePermutationSolution generatedSolution;
+
+    public GeneratedNeighbor(SchedulePermutationSolution generatedSolution, List<Movement> movements) {
+        this.originalSolution = null;
+        this.originalPlan = null;
+        this.movements = movements;
+        this.generatedSolution = generatedSolution;
+    }
+
+    private GeneratedNeighbor(SchedulePermutationSolution originalSolution, List<PlanPair> originalPlan, Movement movement) {
+        this.originalSolution = originalSolution;
+        this.originalPlan = originalPlan;
+        this.movements = List.of(movement);
+    }
+
+    /**
+     * Creates a neighbor whose plan is only built when it's requested.
+     *
+     * @param originalSolution the solution the neighbor comes from
+     * @param originalPlan the plan of the solution, it must not change while the neighbor is used
+     * @param movement the movement applied to the plan
+     * @return the neighbor
+     */
+    public static GeneratedNeighbor of(SchedulePermutationSolution originalSolution, List<PlanPair> originalPlan,
+                                       Movement movement) {
+        return new GeneratedNeighbor(originalSolution, originalPlan, movement);
+    }
+
+    /**
+     * The neighbor as a solution, its plan is built the first time it's requested.
+     *
+     * @return the solution
+     */
+    public SchedulePermutationSolution generatedSolution() {
+        if(generatedSolution == null){
+            generatedSolution = new SchedulePermutationSolution(
+                    originalSolution.variables().size(),
+                    originalSolution.objectives().length,
+                    null,
+                    movements.get(0).apply(originalPlan),
+                    originalSolution.getArbiter()
+            );
+            generatedSolution.setPlanPositions(movements.get(0).apply(originalSolution.getPlanPositions()));
+        }
+        return generatedSolution;
+    }
+
+    public List<Movement> movements() {
+        return movements;
+    }
+
+    /**
+     * The plan the only movement of the neighbor is applied to.
+     *
+     * @return the plan or null if the neighbor was created with its plan already built
+     */
+    public List<PlanPair> originalPlan() {
+        return originalPlan;
+    }
 }
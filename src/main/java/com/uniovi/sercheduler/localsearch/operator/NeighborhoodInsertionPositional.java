@@ -2,14 +2,11 @@ package com.uniovi.sercheduler.localsearch.operator;
 
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.localsearch.movement.InsertionMovement;
-import com.uniovi.sercheduler.localsearch.movement.Movement;
 import com.uniovi.sercheduler.service.PlanPair;
+import com.uniovi.sercheduler.service.PlanPositions;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.IntStream;
-
-import static com.uniovi.sercheduler.localsearch.operator.NeighborUtils.getValidPositions;
 
 
 public class NeighborhoodInsertionPositional implements NeighborhoodOperatorPositional {
@@ -18,8 +15,10 @@ public class NeighborhoodInsertionPositional implements NeighborhoodOperatorPosi
     public List<GeneratedNeighbor> execute(SchedulePermutationSolution actualSolution, int position) {
 
         List<PlanPair> plan = List.copyOf(actualSolution.getPlan());
+        PlanPositions positions = actualSolution.getPlanPositions();
 
-        int[] validPositions = getValidPositions(plan, position);
+        int[] validPositions = positions.validPositions(position);
+        int[] parentsPositions = positions.parentsPositions(position);
 
         List<GeneratedNeighbor> neighbors = new ArrayList<>();
 
@@ -28,23 +27,9 @@ public class NeighborhoodInsertionPositional implements NeighborhoodOperatorPosi
             if(newPosition == position)
                 continue;
 
-            int[] changedPlanPairs = position < newPosition ?
-                    IntStream.rangeClosed(position, newPosition).toArray() :
-                    IntStream.rangeClosed(newPosition, position).toArray();
-
-            SchedulePermutationSolution generatedSolution = new SchedulePermutationSolution(
-                    actualSolution.variables().size(),
-                    actualSolution.objectives().length,
-                    null,
-                    insertInOneSpecificPosition(plan, position, newPosition),
-                    actualSolution.getArbiter()
-            );
-
-            List<Movement> movements = new ArrayList<>();
-            movements.add(
-                    new InsertionMovement(changedPlanPairs, position, newPosition, NeighborUtils.getParentsPositions(plan, position))
-            );
-            neighbors.add(new GeneratedNeighbor(generatedSolution, movements));
+            neighbors.add(GeneratedNeighbor.of(actualSolution, plan,
+                    new InsertionMovement(Math.min(position, newPosition), Math.max(position, newPosition),
+                            position, newPosition, parentsPositions)));
 
         }
 
@@ -52,24 +37,4 @@ public class NeighborhoodInsertionPositional implements NeighborhoodOperatorPosi
 
     }
 
-    private List<PlanPair> insertInOneSpecificPosition(List<PlanPair> plan, int position, int newPosition){
-
-        List<PlanPair> newPlan = new ArrayList<>(List.copyOf(plan));
-
-        if (newPosition < position) {
-            for (int i = position - 1; i >= newPosition && i >= 0; i--) {
-                newPlan.set(i + 1, newPlan.get(i));
-            }
-        } else if (newPosition > position) {
-            for (int i = position + 1; i <= newPosition; i++) {
-                newPlan.set(i - 1, newPlan.get(i));
-            }
-        }
-
-        newPlan.set(newPosition, plan.get(position));
-
-        return List.copyOf(newPlan);
-    }
-
-
 }
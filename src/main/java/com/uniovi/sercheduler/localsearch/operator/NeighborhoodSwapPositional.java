@@ -1,25 +1,22 @@
 package com.uniovi.sercheduler.localsearch.operator;
 
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
-import com.uniovi.sercheduler.localsearch.movement.Movement;
 import com.uniovi.sercheduler.localsearch.movement.SwapMovement;
 import com.uniovi.sercheduler.service.PlanPair;
+import com.uniovi.sercheduler.service.PlanPositions;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 
-import static com.uniovi.sercheduler.localsearch.operator.NeighborUtils.getValidPositions;
-
 public class NeighborhoodSwapPositional implements NeighborhoodOperatorPositional {
 
     @Override
     public List<GeneratedNeighbor> execute(SchedulePermutationSolution actualSolution, int position) {
 
         List<PlanPair> plan = List.copyOf(actualSolution.getPlan());
+        PlanPositions positions = actualSolution.getPlanPositions();
 
-        int[] validPositions = getValidPositions(plan, position);
+        int[] validPositions = positions.validPositions(position);
 
         List<GeneratedNeighbor> neighbors = new ArrayList<>();
 
@@ -28,36 +25,15 @@ public class NeighborhoodSwapPositional implements NeighborhoodOperatorPositiona
             if(otherPosition == position)
                 continue;
 
-            int[] otherPositionValidDestinations = getValidPositions(plan, otherPosition);
-            if(Arrays.stream(otherPositionValidDestinations).noneMatch(x -> x == position))
+            if(!positions.isValidPosition(otherPosition, position))
                 continue;
 
-            SchedulePermutationSolution generatedSolution = new SchedulePermutationSolution(
-                    actualSolution.variables().size(),
-                    actualSolution.objectives().length,
-                    null,
-                    swapWithOneSpecificPosition(plan, position, otherPosition),
-                    actualSolution.getArbiter()
-            );
-
-            List<Movement> movements = new ArrayList<>();
-            movements.add(new SwapMovement(position, otherPosition, NeighborUtils.getParentsPositions(plan, position)));
-            neighbors.add(new GeneratedNeighbor(generatedSolution, movements));
+            neighbors.add(GeneratedNeighbor.of(actualSolution, plan,
+                    new SwapMovement(position, otherPosition, positions.parentsPositions(position))));
 
         }
 
         return neighbors;
     }
 
-    private List<PlanPair> swapWithOneSpecificPosition(List<PlanPair> plan, int position, int newPosition)
-    {
-        List<PlanPair> newPlan = new ArrayList<>(List.copyOf(plan));
-
-        Collections.swap(newPlan, position, newPosition);
-
-        return List.copyOf(newPlan);
-
-    }
-
-
 }
@@ -2,11 +2,133 @@ package com.uniovi.sercheduler.service;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Contains information about the fitness of an evaluated plan.
  *
- * @param fitness Map containing all possible fitness.
- * @param schedule The final schedule of the plan.
+ * <p>The schedule can be given already built or as a {@link RawSchedule}, in which case the ordered
+ * list is only built the first time {@link #schedule()} is called.
  */
-public record FitnessInfo(Map<String, Double> fitness, List<TaskSchedule> schedule, String fitnessFunction) {}
+public final class FitnessInfo {
+
+  private final Map<String, Double> fitness;
+  private final String fitnessFunction;
+  private final RawSchedule rawSchedule;
+  private volatile List<TaskSchedule> schedule;
+
+  /**
+   * Full constructor.
+   *
+   * @param fitness Map containing all possible fitness.
+   * @param schedule The final schedule of the plan.
+   * @param fitnessFunction The name of the fitness that produced the schedule.
+   */
+  public FitnessInfo(
+      Map<String, Double> fitness, List<TaskSchedule> schedule, String fitnessFunction) {
+    this.fitness = fitness;
+    this.schedule = schedule;
+    this.rawSchedule = null;
+    this.fitnessFunction = fitnessFunction;
+  }
+
+  /**
+   * Constructor that delays building the schedule.
+   *
+   * @param fitness Map containing all possible fitness.
+   * @param rawSchedule The final schedule of the plan, unordered.
+   * @param fitnessFunction The name of the fitness that produced the schedule.
+   */
+  public FitnessInfo(Map<String, Double> fitness, RawSchedule rawSchedule, String fitnessFunction) {
+    this.fitness = fitness;
+    this.rawSchedule = rawSchedule;
+    this.fitnessFunction = fitnessFunction;
+  }
+
+  public Map<String, Double> fitness() {
+    return fitness;
+  }
+
+  /**
+   * The final schedule of the plan ordered by ast.
+   *
+   * @return The schedule.
+   */
+  public List<TaskSchedule> schedule() {
+    var orderedSchedule = schedule;
+    if (orderedSchedule == null && rawSchedule != null) {
+      orderedSchedule = rawSchedule.orderedSchedule();
+      schedule = orderedSchedule;
+    }
+    return orderedSchedule;
+  }
+
+  public String fitnessFunction() {
+    return fitnessFunction;
+  }
+
+  /**
+   * The schedule as it was produced by the evaluation, indexed by ordinals.
+   *
+   * @return The raw schedule, null when the schedule was given already built.
+   */
+  public RawSchedule rawSchedule() {
+    return rawSchedule;
+  }
+
+  /**
+   * The plan that follows the ordered schedule. When the schedule hasn't been built yet the plan is
+   * sorted the first time it's read.
+   *
+   * @return The ordered plan.
+   */
+  public List<PlanPair> orderedPlan() {
+    if (schedule == null && rawSchedule != null) {
+      return rawSchedule.orderedPlan();
+    }
+    return schedule().stream().map(s -> new PlanPair(s.task(), s.host())).toList();
+  }
+
+  /**
+   * Copies the information, the schedules are shared because they can't be modified.
+   *
+   * @return The copy.
+   */
+  public FitnessInfo copy() {
+    if (rawSchedule != null) {
+      var copy = new FitnessInfo(Map.copyOf(fitness), rawSchedule, fitnessFunction);
+      copy.schedule = schedule;
+      return copy;
+    }
+    return new FitnessInfo(Map.copyOf(fitness), List.copyOf(schedule()), fitnessFunction);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof FitnessInfo that)) {
+      return false;
+    }
+    return Objects.equals(fitness, that.fitness)
+        && Objects.equals(schedule(), that.schedule())
+        && Objects.equals(fitnessFunction, that.fitnessFunction);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(fitness, schedule(), fitnessFunction);
+  }
+
+  @Override
+  public String toString() {
+    return "FitnessInfo[fitness="
+        + fitness
+        + ", schedule="
+        + schedule()
+        + ", fitnessFunction="
+        + fitnessFunction
+        + ']';
+  }
+}
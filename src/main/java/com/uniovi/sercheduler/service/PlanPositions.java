@@ -0,0 +1,217 @@
+package com.uniovi.sercheduler.service;
+
+import com.uniovi.sercheduler.dto.Task;
+import com.uniovi.sercheduler.service.core.CompiledInstance;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index of the position of each task in a plan.
+ *
+ * <p>The tasks are identified by their ordinal in the {@link CompiledInstance} and their
+ * dependencies are read from its arrays, so the index only stores the task at each position and the
+ * position of each task. Finding the positions of the parents or children of a task costs O(degree)
+ * instead of going through the plan.
+ *
+ * <p>The index is immutable. Both tables are split in chunks of about {@code √n} entries that are
+ * shared by the indexes derived from it, a movement of the plan only copies the table of chunks
+ * and the chunks holding the positions between the ends of the movement, or the tasks placed there.
+ */
+public final class PlanPositions {
+
+  private final CompiledInstance instance;
+  private final int size;
+  private final int chunkSize;
+  // The ordinal of the task at each position and the position of each ordinal
+  private final int[][] taskAt;
+  private final int[][] positionOf;
+
+  private PlanPositions(CompiledInstance instance, int[][] taskAt, int[][] positionOf, int size) {
+    this.instance = instance;
+    this.size = size;
+    this.chunkSize = taskAt[0].length;
+    this.taskAt = taskAt;
+    this.positionOf = positionOf;
+  }
+
+  /**
+   * Indexes a plan, which must contain every task of the workflow.
+   *
+   * @param instance The compiled instance the plan belongs to.
+   * @param plan The plan.
+   * @return The index.
+   */
+  public static PlanPositions of(CompiledInstance instance, List<PlanPair> plan) {
+    int size = plan.size();
+    int chunkSize = Math.max(1, (int) Math.ceil(Math.sqrt(size)));
+    int chunks = Math.max(1, (size + chunkSize - 1) / chunkSize);
+    var taskAt = new int[chunks][chunkSize];
+    var positionOf = new int[chunks][chunkSize];
+    for (int i = 0; i < size; i++) {
+      int task = instance.taskOrdinal(plan.get(i).task());
+      taskAt[i / chunkSize][i % chunkSize] = task;
+      positionOf[task / chunkSize][task % chunkSize] = i;
+    }
+    return new PlanPositions(instance, taskAt, positionOf, size);
+  }
+
+  public CompiledInstance instance() {
+    return instance;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Finds the position of a task.
+   *
+   * @param task The task.
+   * @return The position in the plan.
+   */
+  public int position(Task task) {
+    return positionOf(instance.taskOrdinal(task));
+  }
+
+  /**
+   * Finds the positions of the parents of the task at a position.
+   *
+   * @param position The position of the task.
+   * @return The positions of the parents in ascending order.
+   */
+  public int[] parentsPositions(int position) {
+    return positionsOf(instance.parents(), instance.parentOffsets(), taskAt(position));
+  }
+
+  /**
+   * Finds the positions of the children of the task at a position.
+   *
+   * @param position The position of the task.
+   * @return The positions of the children in ascending order.
+   */
+  public int[] childrenPositions(int position) {
+    return positionsOf(instance.children(), instance.childOffsets(), taskAt(position));
+  }
+
+  /**
+   * Finds the positions the task at a position can be placed at without breaking its dependencies,
+   * the ones after its last parent and before its first child.
+   *
+   * @param position The position of the task.
+   * @return The valid positions in ascending order, including its own.
+   */
+  public int[] validPositions(int position) {
+    int task = taskAt(position);
+    int lastParent = lastParentPosition(task);
+    int[] positions = new int[firstChildPosition(task) - lastParent - 1];
+    for (int i = 0; i < positions.length; i++) {
+      positions[i] = lastParent + 1 + i;
+    }
+    return positions;
+  }
+
+  /**
+   * Checks if the task at a position can be placed at another one without breaking its
+   * dependencies.
+   *
+   * @param position The position of the task.
+   * @param newPosition The position to check.
+   * @return If the new position is valid.
+   */
+  public boolean isValidPosition(int position, int newPosition) {
+    int task = taskAt(position);
+    return newPosition > lastParentPosition(task) && newPosition < firstChildPosition(task);
+  }
+
+  /**
+   * Derives the index of the plan where the task at a position is moved to another one, the tasks
+   * in between move one position towards the original one.
+   *
+   * @param from The original position of the task.
+   * @param to The new position of the task.
+   * @return The new index.
+   */
+  public PlanPositions move(int from, int to) {
+    var newTaskAt = taskAt.clone();
+    var newPositionOf = positionOf.clone();
+    int task = taskAt(from);
+    if (from < to) {
+      for (int i = from; i < to; i++) {
+        place(newTaskAt, newPositionOf, i, taskAt(i + 1));
+      }
+    } else {
+      for (int i = from; i > to; i--) {
+        place(newTaskAt, newPositionOf, i, taskAt(i - 1));
+      }
+    }
+    place(newTaskAt, newPositionOf, to, task);
+    return new PlanPositions(instance, newTaskAt, newPositionOf, size);
+  }
+
+  /**
+   * Derives the index of the plan where the tasks at two positions are exchanged.
+   *
+   * @param first The position of one of the tasks.
+   * @param second The position of the other task.
+   * @return The new index.
+   */
+  public PlanPositions swap(int first, int second) {
+    var newTaskAt = taskAt.clone();
+    var newPositionOf = positionOf.clone();
+    int firstTask = taskAt(first);
+    place(newTaskAt, newPositionOf, first, taskAt(second));
+    place(newTaskAt, newPositionOf, second, firstTask);
+    return new PlanPositions(instance, newTaskAt, newPositionOf, size);
+  }
+
+  private int taskAt(int position) {
+    return taskAt[position / chunkSize][position % chunkSize];
+  }
+
+  private int positionOf(int task) {
+    return positionOf[task / chunkSize][task % chunkSize];
+  }
+
+  /** Places a task at a position of the new tables, copying the chunks still shared with these. */
+  private void place(int[][] newTaskAt, int[][] newPositionOf, int position, int task) {
+    write(newTaskAt, taskAt, position, task);
+    write(newPositionOf, positionOf, task, position);
+  }
+
+  private void write(int[][] newChunks, int[][] chunks, int index, int value) {
+    int chunk = index / chunkSize;
+    if (newChunks[chunk] == chunks[chunk]) {
+      newChunks[chunk] = chunks[chunk].clone();
+    }
+    newChunks[chunk][index % chunkSize] = value;
+  }
+
+  private int lastParentPosition(int task) {
+    int[] parentOffsets = instance.parentOffsets();
+    int[] parents = instance.parents();
+    int lastParent = -1;
+    for (int edge = parentOffsets[task]; edge < parentOffsets[task + 1]; edge++) {
+      lastParent = Math.max(lastParent, positionOf(parents[edge]));
+    }
+    return lastParent;
+  }
+
+  private int firstChildPosition(int task) {
+    int[] childOffsets = instance.childOffsets();
+    int[] children = instance.children();
+    int firstChild = size;
+    for (int edge = childOffsets[task]; edge < childOffsets[task + 1]; edge++) {
+      firstChild = Math.min(firstChild, positionOf(children[edge]));
+    }
+    return firstChild;
+  }
+
+  private int[] positionsOf(int[] edges, int[] offsets, int task) {
+    int[] positions = new int[offsets[task + 1] - offsets[task]];
+    for (int edge = offsets[task]; edge < offsets[task + 1]; edge++) {
+      positions[edge - offsets[task]] = positionOf(edges[edge]);
+    }
+    Arrays.sort(positions);
+    return positions;
+  }
+}
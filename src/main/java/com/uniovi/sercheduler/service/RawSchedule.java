@@ -0,0 +1,170 @@
+package com.uniovi.sercheduler.service;
+
+import com.uniovi.sercheduler.service.core.CompiledInstance;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Schedule of an evaluated plan stored as primitive arrays in the order the tasks were scheduled.
+ *
+ * <p>The schedule ordered by ast is only built when someone asks for it, evaluations that only need
+ * the objectives never pay for the sort nor for the {@link TaskSchedule} objects.
+ */
+public final class RawSchedule {
+
+  private final CompiledInstance instance;
+  private final int[] tasks;
+  private final int[] hosts;
+  private final double[] ast;
+  private final double[] eft;
+
+  private volatile int[] byAst;
+
+  private RawSchedule(
+      CompiledInstance instance, int[] tasks, int[] hosts, double[] ast, double[] eft) {
+    this.instance = instance;
+    this.tasks = tasks;
+    this.hosts = hosts;
+    this.ast = ast;
+    this.eft = eft;
+  }
+
+  /**
+   * Copies the state of an evaluation.
+   *
+   * @param instance The compiled instance the ordinals refer to.
+   * @param order The ordinals of the tasks in the order they were scheduled.
+   * @param scheduled How many tasks were scheduled.
+   * @param ast The ast of each task, indexed by task ordinal.
+   * @param eft The eft of each task, indexed by task ordinal.
+   * @param hostOf The host of each task, indexed by task ordinal.
+   * @return The raw schedule.
+   */
+  public static RawSchedule copyOf(
+      CompiledInstance instance,
+      int[] order,
+      int scheduled,
+      double[] ast,
+      double[] eft,
+      int[] hostOf) {
+    var tasks = Arrays.copyOf(order, scheduled);
+    var hosts = new int[scheduled];
+    var scheduledAst = new double[scheduled];
+    var scheduledEft = new double[scheduled];
+    for (int i = 0; i < scheduled; i++) {
+      int task = tasks[i];
+      hosts[i] = hostOf[task];
+      scheduledAst[i] = ast[task];
+      scheduledEft[i] = eft[task];
+    }
+    return new RawSchedule(instance, tasks, hosts, scheduledAst, scheduledEft);
+  }
+
+  public int size() {
+    return tasks.length;
+  }
+
+  /**
+   * The task scheduled at a position, in the order they were scheduled.
+   *
+   * @param position The position.
+   * @return The ordinal of the task.
+   */
+  public int task(int position) {
+    return tasks[position];
+  }
+
+  /**
+   * The host of the task scheduled at a position.
+   *
+   * @param position The position.
+   * @return The ordinal of the host.
+   */
+  public int host(int position) {
+    return hosts[position];
+  }
+
+  /**
+   * The eft of the task scheduled at a position.
+   *
+   * @param position The position.
+   * @return The eft.
+   */
+  public double eft(int position) {
+    return eft[position];
+  }
+
+  /**
+   * Builds the schedule ordered by ast. Tasks starting at the same time keep the order in which
+   * they were scheduled.
+   *
+   * @return The ordered schedule.
+   */
+  public List<TaskSchedule> orderedSchedule() {
+    var positions = positionsByAst();
+    var schedule = new TaskSchedule[positions.length];
+    for (int i = 0; i < positions.length; i++) {
+      int position = positions[i];
+      schedule[i] =
+          new TaskSchedule(
+              instance.task(tasks[position]),
+              ast[position],
+              eft[position],
+              instance.host(hosts[position]));
+    }
+    return List.of(schedule);
+  }
+
+  /**
+   * Provides the plan that follows the ordered schedule. The plan is a view that is only sorted
+   * the first time one of its elements is read.
+   *
+   * @return The ordered plan.
+   */
+  public List<PlanPair> orderedPlan() {
+    return new OrderedPlan();
+  }
+
+  private int[] positionsByAst() {
+    var positions = byAst;
+    if (positions == null) {
+      positions =
+          IntStream.range(0, tasks.length)
+              .boxed()
+              .sorted(Comparator.comparingDouble(position -> ast[position]))
+              .mapToInt(Integer::intValue)
+              .toArray();
+      byAst = positions;
+    }
+    return positions;
+  }
+
+  private final class OrderedPlan extends AbstractList<PlanPair> {
+
+    private volatile PlanPair[] plan;
+
+    @Override
+    public PlanPair get(int index) {
+      var pairs = plan;
+      if (pairs == null) {
+        var positions = positionsByAst();
+        pairs = new PlanPair[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+          pairs[i] =
+              new PlanPair(
+                  instance.task(tasks[positions[i]]), instance.host(hosts[positions[i]]));
+        }
+        plan = pairs;
+      }
+      return pairs[index];
+    }
+
+    @Override
+    public int size() {
+      return tasks.length;
+    }
+  }
+}
@@ -5,238 +5,341 @@ import com.uniovi.sercheduler.dto.InstanceData;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.service.FitnessInfo;
 import com.uniovi.sercheduler.service.PlanPair;
-import com.uniovi.sercheduler.service.TaskCosts;
 import com.uniovi.sercheduler.service.TaskSchedule;
-import com.uniovi.sercheduler.service.core.SchedulingHelper;
-import com.uniovi.sercheduler.service.support.ScheduleGap;
-import org.uma.jmetal.util.comparator.RankingAndCrowdingDistanceComparator;
+import com.uniovi.sercheduler.service.core.CompiledInstance;
+import com.uniovi.sercheduler.service.core.PrecomputedInstance;
+import com.uniovi.sercheduler.service.support.HostGaps;
+import com.uniovi.sercheduler.service.support.PersistentAssignments;
 import org.uma.jmetal.util.densityestimator.impl.CrowdingDistanceDensityEstimator;
-import org.uma.jmetal.util.ranking.impl.FastNonDominatedSortRanking;
 
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
+import java.util.stream.IntStream;
+
+/**
+ * Multi-objective HEFT, at every task of the HEFT ranking each partial solution is extended with
+ * every host and only the K best extensions are kept.
+ *
+ * <p>The partial solutions are immutable and share their structure: the plan is a chain of
+ * assignments pointing to the partial solution they extend, the hosts and efts of the tasks are
+ * {@link PersistentAssignments} and only the gaps of the host that receives the task are copied.
+ * The extensions are first only scored, in parallel for the different partial solutions, and only
+ * the K that survive are built. The JMetal solutions used to rank them only live while they are
+ * ranked.
+ */
 public class MoHeft {
-  private final InstanceData instanceData;
-  private final Map<String, Map<String, Double>> computationMatrix;
-  private final Map<String, Map<String, Long>> networkMatrix;
-
-  private final Double referenceSpeedRead;
-  private final Double referenceSpeedWrite;
+  private final CompiledInstance instance;
+  private final int[] ranking;
+  // The standby energy cost of all the hosts together, every host waits until the makespan
+  private final double energyCostStandBy;
 
   public MoHeft(InstanceData instanceData) {
-    this.instanceData = instanceData;
-    this.computationMatrix =
-        SchedulingHelper.calculateComputationMatrix(instanceData, instanceData.referenceFlops());
-    this.networkMatrix = SchedulingHelper.calculateNetworkMatrix(instanceData);
-    this.referenceSpeedWrite = SchedulingHelper.calculateReferenceSpeedWrite(instanceData);
-    this.referenceSpeedRead = SchedulingHelper.calculateReferenceSpeedRead(instanceData);
+    var precomputedInstance = PrecomputedInstance.of(instanceData);
+    this.instance = precomputedInstance.compiledInstance();
+    this.ranking =
+        precomputedInstance.heftRanking().keySet().stream()
+            .mapToInt(instance::taskOrdinal)
+            .toArray();
+    double standByCost = 0D;
+    for (int h = 0; h < instance.hostCount(); h++) {
+      standByCost += instance.energyCostStandBy(h);
+    }
+    this.energyCostStandBy = standByCost;
   }
 
   public List<SchedulePermutationSolution> calculate(int numberOfSolutions) {
-    List<SchedulePermutationSolution> solutions = new ArrayList<>(numberOfSolutions);
-
-    // We need to create the heft ranking
-
-    var ranking =
-        SchedulingHelper.calculateHeftRanking(
-            instanceData, computationMatrix, referenceSpeedRead, referenceSpeedWrite);
-
-    List<PartialSolution> partialSolutions = new ArrayList<>();
-
-    partialSolutions.add(new PartialSolution());
-
-    for (var task : ranking.keySet()) {
-
-      // We need to calculate the makespan and the energy for each host
-
-      List<PartialSolution> newPartialSolutions = new ArrayList<>(partialSolutions.size());
-
-      for (var partialSolution : partialSolutions) {
-        for (var host : instanceData.hosts().values()) {
-
-          var newPartialSolution = partialSolution.copy();
-          TaskCosts taskCosts =
-              SchedulingHelper.calculateEftActive(
-                  task,
-                  host,
-                  newPartialSolution.schedule,
-                  newPartialSolution.available,
-                  computationMatrix,
-                  networkMatrix);
-
-          var ast =
-              taskCosts.eft()
-                  - computationMatrix.get(task.getName()).get(host.getName())
-                  - taskCosts.diskWrite()
-                  - taskCosts.taskCommunications()
-                  - taskCosts.diskReadStaging();
-
-          // We are working with an insertion algorithm so we need to work with gaps
-
-          // we need to find the closest gap
-
-          var availableHostGaps =
-              newPartialSolution.available.getOrDefault(
-                  host.getName(), List.of(new ScheduleGap(0D, Double.MAX_VALUE)));
-          var gapToReplace =
-              availableHostGaps.stream()
-                  .filter(gap -> taskCosts.eft() <= gap.end() && taskCosts.ast() >= gap.start())
-                  .findFirst()
-                  .orElseThrow();
-
-          // Now we need to split the gap in two, using the eft as the slice, depending of the cut
-          // we can
-          // have one or two gaps. We always generate two gaps so we need to remove the gaps where
-          // the
-          // start and the end are the same.
-
-          var newGaps =
-              Stream.of(
-                      new ScheduleGap(gapToReplace.start(), taskCosts.ast()),
-                      new ScheduleGap(taskCosts.eft(), gapToReplace.end()))
-                  .filter(gap -> !gap.start().equals(gap.end()))
-                  .toList();
-
-          // Now we generate a new list with the old gaps and the new ones, removing the used gap.
-          var newHostGaps =
-              Stream.concat(
-                      availableHostGaps.stream().filter(gap -> !gap.equals(gapToReplace)),
-                      newGaps.stream())
-                  .toList();
-
-          // We need to put the available gaps
-          newPartialSolution.available.put(host.getName(), newHostGaps);
-
-          newPartialSolution.schedule.put(
-              task.getName(), new TaskSchedule(task, taskCosts.ast(), taskCosts.eft(), host));
-
-          double makespan = Math.max(taskCosts.eft(), partialSolution.currentMakespan);
-          double activeEnergy = (taskCosts.eft() - ast) * host.getEnergyCost();
-          double standbyEnergy = 0;
-          for (var h : instanceData.hosts().values()) {
-            standbyEnergy += h.getEnergyCostStandBy() * makespan;
-          }
-
-          // We need to update the partial solution with the new plan, makespan and energy.
-          newPartialSolution.plan.add(new PlanPair(task, host));
-          newPartialSolution.currentMakespan = makespan;
-          newPartialSolution.currentActiveEnergy += activeEnergy;
-          newPartialSolution.currentStandbyEnergy = standbyEnergy;
-
-          newPartialSolutions.add(newPartialSolution);
-        }
-      }
+    List<PartialSolution> partialSolutions =
+        List.of(
+            new PartialSolution(
+                PersistentAssignments.empty(instance.taskCount()),
+                new HostGaps[instance.hostCount()]));
 
-      partialSolutions = crowdingDistance(newPartialSolutions, numberOfSolutions);
+    for (int task : ranking) {
 
-      // We need to update the partialSolutions to use the pruned solutions
+      // We need to calculate the makespan and the energy for each host, the order of the
+      // extensions is kept so the selection doesn't depend on the threads.
+      List<Extension> extensions =
+          partialSolutions.parallelStream()
+              .flatMap(partialSolution -> Arrays.stream(extend(partialSolution, task)))
+              .toList();
 
+      // We need to update the partialSolutions to use the pruned solutions
+      partialSolutions =
+          crowdingDistance(extensions, numberOfSolutions).parallelStream()
+              .map(Extension::build)
+              .toList();
     }
 
-    solutions = partialSolutions.stream().map(PartialSolution::toSolution).toList();
-
-    return solutions;
+    return partialSolutions.stream().map(PartialSolution::toSolution).toList();
   }
 
-  private List<PartialSolution> crowdingDistance(
-      List<PartialSolution> partialSolutions, int numberOfSolutions) {
-    // First, we need to create a solution using JMetal class to be able to use the JMetal
-    // CrowdingDistance
-
-    for (var partialSolution : partialSolutions) {
-      partialSolution.currentSolution = partialSolution.toSolution();
+  /**
+   * Scores the extension of a partial solution with a task in every host, without building them.
+   *
+   * @param partialSolution The partial solution to extend.
+   * @param task Ordinal of the task.
+   * @return The extension in each host, in host order.
+   */
+  private Extension[] extend(PartialSolution partialSolution, int task) {
+    var assignments = partialSolution.assignments;
+    var parentOffsets = instance.parentOffsets();
+    var parents = instance.parents();
+    var parentBits = instance.parentBits();
+
+    double maxEst = 0D;
+    for (int edge = parentOffsets[task]; edge < parentOffsets[task + 1]; edge++) {
+      maxEst = Math.max(maxEst, assignments.eft(parents[edge]));
     }
 
-    var solutions =
-        new ArrayList<>(
-            partialSolutions.stream().map(PartialSolution::getCurrentSolution).toList());
+    var extensions = new Extension[instance.hostCount()];
+    for (int host = 0; host < instance.hostCount(); host++) {
+      double taskCommunications = 0D;
+      for (int edge = parentOffsets[task]; edge < parentOffsets[task + 1]; edge++) {
+        taskCommunications +=
+            parentBits[edge] / instance.transferSpeed(host, assignments.host(parents[edge]));
+      }
+      double diskSpeed = instance.diskSpeed(host);
+      double diskReadStaging = instance.stagingBits(task) / diskSpeed;
+      double diskWrite = instance.outputBits(task) / diskSpeed;
+      double computation = instance.computation(task, host);
+      double taskTime = diskReadStaging + diskWrite + computation + taskCommunications;
+
+      // We are working with an insertion algorithm so we need to work with gaps, a host without
+      // gaps hasn't executed anything yet, so the task can start after its parents.
+      var hostGaps = partialSolution.gaps[host];
+      double gapAst = hostGaps != null ? hostGaps.findEarliestStart(maxEst, taskTime) : -1D;
+      if (gapAst < 0) {
+        gapAst = maxEst;
+      }
+      double eft = gapAst + taskTime;
+      double ast = eft - computation - diskWrite - taskCommunications - diskReadStaging;
+
+      double makespan = Math.max(eft, partialSolution.makespan);
+      double activeEnergy = (eft - ast) * instance.energyCost(host);
+      double standbyEnergy = energyCostStandBy * makespan;
+
+      extensions[host] =
+          new Extension(
+              partialSolution,
+              task,
+              host,
+              gapAst,
+              eft,
+              makespan,
+              partialSolution.activeEnergy + activeEnergy,
+              standbyEnergy);
+    }
+    return extensions;
+  }
 
-    // Get non-dominated solutions
-    var ranking = new FastNonDominatedSortRanking<SchedulePermutationSolution>();
-    ranking.compute(solutions);
-    var nonDominated = new ArrayList<>(ranking.getSubFront(0));
+  private List<Extension> crowdingDistance(List<Extension> extensions, int numberOfSolutions) {
+    // Get non-dominated solutions, in the order of the extensions
+    var nonDominated = nonDominated(extensions);
 
+    // We use the JMetal CrowdingDistance over the objectives of each extension, the solutions
+    // only hold the objectives and are dropped once the distances are read
+    var solutions = new ArrayList<SchedulePermutationSolution>(nonDominated.size());
+    for (Extension extension : nonDominated) {
+      var solution =
+          new SchedulePermutationSolution(1, 2, null, List.of(), Objective.ENERGY.objectiveName);
+      solution.objectives()[0] = extension.energy();
+      solution.objectives()[1] = extension.makespan;
+      solutions.add(solution);
+    }
     var estimator = new CrowdingDistanceDensityEstimator<SchedulePermutationSolution>();
+    estimator.compute(solutions);
+    var distances = new double[solutions.size()];
+    for (int e = 0; e < distances.length; e++) {
+      distances[e] = estimator.value(solutions.get(e));
+    }
+
+    // Returns the K best solutions
+    return IntStream.range(0, distances.length)
+        .boxed()
+        .sorted(Comparator.comparingDouble(e -> -distances[e]))
+        .limit(numberOfSolutions)
+        .map(nonDominated::get)
+        .toList();
+  }
 
-    estimator.compute(nonDominated);
+  /**
+   * Finds the first front of the extensions, the same one the JMetal ranking finds but sorting by
+   * energy instead of comparing every pair of extensions.
+   *
+   * @param extensions The extensions.
+   * @return The non-dominated extensions, in their original order.
+   */
+  private List<Extension> nonDominated(List<Extension> extensions) {
+    int size = extensions.size();
+    var energies = new double[size];
+    var makespans = new double[size];
+    for (int e = 0; e < size; e++) {
+      energies[e] = extensions.get(e).energy();
+      makespans[e] = extensions.get(e).makespan;
+    }
 
-    // now we need to get only the partialSolutions that are non-dominated
+    var front = new ArrayList<Extension>();
+    for (int e : firstFront(energies, makespans)) {
+      front.add(extensions.get(e));
+    }
+    return front;
+  }
 
-    var filtered =
-        partialSolutions.stream()
-            .filter(
-                ps ->
-                    ps.currentSolution
-                        .attributes()
-                        .containsKey(CrowdingDistanceDensityEstimator.class.getName())).toList();
+  /**
+   * Finds the solutions that aren't dominated by any other, minimizing both objectives.
+   *
+   * <p>The solutions are sorted by energy and then by makespan, a solution is dominated by one with
+   * the same energy and less makespan, or by one with less energy and no more makespan. Energies
+   * are grouped with {@link Double#compare}, so instances without energy costs, whose energies are
+   * NaN, form a single group and are only compared by makespan.
+   *
+   * @param energies The energy of each solution.
+   * @param makespans The makespan of each solution.
+   * @return The indexes of the non-dominated solutions, in their original order.
+   */
+  static int[] firstFront(double[] energies, double[] makespans) {
+    int size = energies.length;
+    var order = new Integer[size];
+    for (int e = 0; e < size; e++) {
+      order[e] = e;
+    }
+    Arrays.sort(
+        order,
+        Comparator.<Integer>comparingDouble(e -> energies[e])
+            .thenComparingDouble(e -> makespans[e]));
+
+    var nonDominated = new boolean[size];
+    double bestMakespan = Double.POSITIVE_INFINITY;
+    int i = 0;
+    while (i < size) {
+      double energy = energies[order[i]];
+      double groupMakespan = makespans[order[i]];
+      int j = i;
+      while (j < size && Double.compare(energies[order[j]], energy) == 0) {
+        if (groupMakespan < bestMakespan && makespans[order[j]] == groupMakespan) {
+          nonDominated[order[j]] = true;
+        }
+        j++;
+      }
+      bestMakespan = Math.min(bestMakespan, groupMakespan);
+      i = j;
+    }
 
-    // Returns the K best solutions
-    return filtered.stream()
-            .sorted(Comparator.comparingDouble(ps ->
-                    -((Double) ps.currentSolution
-                            .attributes()
-                            .get(CrowdingDistanceDensityEstimator.class.getName()))))
-            .limit(numberOfSolutions)
-            .toList();
+    return IntStream.range(0, size).filter(e -> nonDominated[e]).toArray();
   }
 
-  private class PartialSolution {
-    private List<PlanPair> plan = new ArrayList<>();
-    private Map<String, TaskSchedule> schedule = new HashMap<>();
-    private Map<String, List<ScheduleGap>> available = new HashMap<>();
-    private double currentMakespan = 0;
-    private double currentActiveEnergy = 0;
-    private double currentStandbyEnergy = 0;
-    private SchedulePermutationSolution currentSolution;
-
-    public PartialSolution() {
-      super();
+  /** A partial solution extended with a task in a host, scored but not built yet. */
+  private final class Extension {
+    private final PartialSolution partialSolution;
+    private final int task;
+    private final int host;
+    private final double ast;
+    private final double eft;
+    private final double makespan;
+    private final double activeEnergy;
+    private final double standbyEnergy;
+
+    private Extension(
+        PartialSolution partialSolution,
+        int task,
+        int host,
+        double ast,
+        double eft,
+        double makespan,
+        double activeEnergy,
+        double standbyEnergy) {
+      this.partialSolution = partialSolution;
+      this.task = task;
+      this.host = host;
+      this.ast = ast;
+      this.eft = eft;
+      this.makespan = makespan;
+      this.activeEnergy = activeEnergy;
+      this.standbyEnergy = standbyEnergy;
     }
 
-    public PartialSolution(
-        List<PlanPair> plan,
-        Map<String, TaskSchedule> schedule,
-        Map<String, List<ScheduleGap>> available,
-        double currentMakespan,
-        double currentActiveEnergy,
-        double currentStandbyEnergy) {
-      this.plan = plan;
-      this.schedule = schedule;
-      this.available = available;
-      this.currentMakespan = currentMakespan;
-      this.currentActiveEnergy = currentActiveEnergy;
-      this.currentStandbyEnergy = currentStandbyEnergy;
+    private double energy() {
+      return activeEnergy + standbyEnergy;
     }
 
-    public PartialSolution copy() {
+    /**
+     * Builds the partial solution, only the gaps of the host are copied because the partial
+     * solution we come from still uses them.
+     */
+    private PartialSolution build() {
+      var gaps = partialSolution.gaps.clone();
+      var hostGaps = gaps[host] != null ? gaps[host].copy() : new HostGaps();
+      hostGaps.occupy(ast, eft);
+      gaps[host] = hostGaps;
+
+      return new PartialSolution(this, partialSolution.assignments.with(task, host, eft), gaps);
+    }
+  }
 
-      return new PartialSolution(
-          new ArrayList<>(plan),
-          new HashMap<>(schedule),
-          new HashMap<>(available),
-          currentMakespan,
-          currentActiveEnergy,
-          currentStandbyEnergy);
+  /** An assignment of the plan, pointing to the one before it, null for the first one. */
+  private record Assignment(Assignment previous, int task, int host, double ast, double eft) {}
+
+  private final class PartialSolution {
+    // The last assignment, null for the empty solution
+    private final Assignment last;
+    private final PersistentAssignments assignments;
+    private final HostGaps[] gaps;
+    private final int size;
+    private final double makespan;
+    private final double activeEnergy;
+    private final double standbyEnergy;
+
+    private PartialSolution(PersistentAssignments assignments, HostGaps[] gaps) {
+      this.last = null;
+      this.assignments = assignments;
+      this.gaps = gaps;
+      this.size = 0;
+      this.makespan = 0;
+      this.activeEnergy = 0;
+      this.standbyEnergy = 0;
+    }
+
+    // The extension isn't kept, so the extensions and partial solutions discarded by the ranking
+    // can be collected
+    private PartialSolution(
+        Extension extension, PersistentAssignments assignments, HostGaps[] gaps) {
+      var previous = extension.partialSolution;
+      this.last =
+          new Assignment(previous.last, extension.task, extension.host, extension.ast, extension.eft);
+      this.assignments = assignments;
+      this.gaps = gaps;
+      this.size = previous.size + 1;
+      this.makespan = extension.makespan;
+      this.activeEnergy = extension.activeEnergy;
+      this.standbyEnergy = extension.standbyEnergy;
     }
 
     public SchedulePermutationSolution toSolution() {
+      // The plan is rebuilt following the chain of assignments
+      var plan = new PlanPair[size];
+      var schedule = new TaskSchedule[size];
+      var assignment = last;
+      for (int i = size - 1; i >= 0; i--) {
+        var task = instance.task(assignment.task());
+        var host = instance.host(assignment.host());
+        plan[i] = new PlanPair(task, host);
+        schedule[i] = new TaskSchedule(task, assignment.ast(), assignment.eft(), host);
+        assignment = assignment.previous();
+      }
 
       var fitness =
           Map.of(
               Objective.ENERGY.objectiveName,
-              currentActiveEnergy + currentStandbyEnergy,
+              activeEnergy + standbyEnergy,
               Objective.MAKESPAN.objectiveName,
-              currentMakespan);
+              makespan);
       var orderedSchedule =
-          schedule.values().stream().sorted(Comparator.comparing(TaskSchedule::ast)).toList();
+          Arrays.stream(schedule).sorted(Comparator.comparing(TaskSchedule::ast)).toList();
       var solution =
           new SchedulePermutationSolution(
               1,
               2,
               new FitnessInfo(fitness, orderedSchedule, "MOHEFT"),
-              plan,
+              new ArrayList<>(Arrays.asList(plan)),
               Objective.ENERGY.objectiveName);
 
       var objectives = List.of(Objective.ENERGY, Objective.MAKESPAN);
@@ -246,17 +349,5 @@ public class MoHeft {
 
       return solution;
     }
-
-    public Map<String, TaskSchedule> getSchedule() {
-      return schedule;
-    }
-
-    public Map<String, List<ScheduleGap>> getAvailable() {
-      return available;
-    }
-
-    public SchedulePermutationSolution getCurrentSolution() {
-      return currentSolution;
-    }
   }
 }
@@ -0,0 +1,47 @@
+package com.uniovi.sercheduler.service.calculator;
+
+import com.uniovi.sercheduler.service.core.CompiledInstance;
+import java.util.Arrays;
+
+/**
+ * Primitive buffers reused between evaluations done by the same thread.
+ *
+ * <p>Every array is indexed by task or host ordinal of the {@link CompiledInstance} it was created
+ * for, except {@code order} which holds the task ordinals in the order they were scheduled. The
+ * {@code candidate} arrays are indexed by host and hold the placement of the task being scheduled
+ * in each host, see {@link FitnessCalculator#placeOnEveryHost}. The buffers are owned by a single
+ * thread, so nothing that outlives the evaluation may point to them.
+ */
+final class EvaluationScratch {
+
+  final double[] ast;
+  final double[] eft;
+  final int[] hostOf;
+  final int[] order;
+  final double[] available;
+  final double[] candidateAst;
+  final double[] candidateEft;
+  final double[] candidateEnergy;
+
+  EvaluationScratch(CompiledInstance instance) {
+    this.ast = new double[instance.taskCount()];
+    this.eft = new double[instance.taskCount()];
+    this.hostOf = new int[instance.taskCount()];
+    this.order = new int[instance.taskCount()];
+    this.available = new double[instance.hostCount()];
+    this.candidateAst = new double[instance.hostCount()];
+    this.candidateEft = new double[instance.hostCount()];
+    this.candidateEnergy = new double[instance.hostCount()];
+  }
+
+  /**
+   * Leaves the buffers ready for a new evaluation, tasks are marked as not scheduled with host -1.
+   * The evaluations don't check that mark: the host of a parent that hasn't been scheduled points
+   * to the last entry of the previous row of transfer speeds, or out of the array for the first
+   * host. The plans must place every task after its parents.
+   */
+  void reset() {
+    Arrays.fill(hostOf, -1);
+    Arrays.fill(available, 0D);
+  }
+}
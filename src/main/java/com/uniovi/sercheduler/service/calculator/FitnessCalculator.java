@@ -7,9 +7,13 @@ import com.uniovi.sercheduler.dto.analysis.MultiResult;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.service.FitnessInfo;
 import com.uniovi.sercheduler.service.ParentsInfo;
+import com.uniovi.sercheduler.service.RawSchedule;
 import com.uniovi.sercheduler.service.TaskCosts;
 import com.uniovi.sercheduler.service.TaskSchedule;
+import com.uniovi.sercheduler.service.core.CompiledInstance;
+import com.uniovi.sercheduler.service.core.PrecomputedInstance;
 import com.uniovi.sercheduler.service.core.SchedulingHelper;
+import com.uniovi.sercheduler.service.support.HostGaps;
 import com.uniovi.sercheduler.service.support.ScheduleGap;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -17,15 +21,33 @@ import java.util.stream.Stream;
 
 import static com.uniovi.sercheduler.service.core.SchedulingHelper.calculateComputationMatrix;
 
-/** Abstract class for defining the process of calculating a makespan from a solution. */
+/**
+ * Abstract class for defining the process of calculating a makespan from a solution.
+ *
+ * <p>Calculators are stateless between evaluations, so a single instance can evaluate solutions
+ * from several threads at the same time without locking. Implementations must follow these rules:
+ *
+ * <ul>
+ *   <li>Fields are final and only hold data derived from the instance, which is never modified
+ *       after the constructor.
+ *   <li>Everything an evaluation needs to write lives in local variables or in the per thread
+ *       {@link EvaluationScratch}.
+ *   <li>The only object an evaluation may modify is the solution being evaluated, like the rank
+ *       calculator replacing its plan or the multi calculator setting its {@link MultiResult}. A
+ *       solution is only evaluated by one thread at a time.
+ * </ul>
+ */
 public abstract class FitnessCalculator {
 
-  InstanceData instanceData;
-  Map<String, Map<String, Double>> computationMatrix;
-  Map<String, Map<String, Long>> networkMatrix;
+  final InstanceData instanceData;
+  final Map<String, Map<String, Double>> computationMatrix;
+  final Map<String, Map<String, Long>> networkMatrix;
+  final CompiledInstance compiledInstance;
+  final PrecomputedInstance precomputedInstance;
+  private final ThreadLocal<EvaluationScratch> scratch;
 
-  Double referenceSpeedRead;
-  Double referenceSpeedWrite;
+  final Double referenceSpeedRead;
+  final Double referenceSpeedWrite;
 
   /**
    * Full constructor.
@@ -34,11 +56,13 @@ public abstract class FitnessCalculator {
    */
   protected FitnessCalculator(InstanceData instanceData) {
     this.instanceData = instanceData;
-    this.computationMatrix =
-        SchedulingHelper.calculateComputationMatrix(instanceData, instanceData.referenceFlops());
-    this.networkMatrix = SchedulingHelper.calculateNetworkMatrix(instanceData);
-    this.referenceSpeedWrite = SchedulingHelper.calculateReferenceSpeedWrite(instanceData);
-    this.referenceSpeedRead = SchedulingHelper.calculateReferenceSpeedRead(instanceData);
+    this.precomputedInstance = PrecomputedInstance.of(instanceData);
+    this.computationMatrix = precomputedInstance.computationMatrix();
+    this.networkMatrix = precomputedInstance.networkMatrix();
+    this.compiledInstance = precomputedInstance.compiledInstance();
+    this.scratch = ThreadLocal.withInitial(() -> new EvaluationScratch(compiledInstance));
+    this.referenceSpeedWrite = precomputedInstance.referenceSpeedWrite();
+    this.referenceSpeedRead = precomputedInstance.referenceSpeedRead();
   }
 
   /**
@@ -104,22 +128,24 @@ public abstract class FitnessCalculator {
           "multi-pop-100-prob-1.0",
           "multi-pop-150-prob-0.7",
           "multi-pop-150-prob-0.9",
-          "multi-pop-150-prob-1.0" ->
-          new FitnessCalculatorMulti(
-              instanceData,
-              List.of(
-                  new FitnessCalculatorSimple(
-                      instanceData, new ArrayList<>(evaluationsHistory.size())),
-                  new FitnessCalculatorHeft(instanceData),
-                  new FitnessCalculatorRank(
-                      instanceData, new ArrayList<>(evaluationsHistory.size()))),
-              List.of(
-                  new FitnessCalculatorSimple(
-                      instanceData, new ArrayList<>(evaluationsHistory.size())),
-                  new FitnessCalculatorMinEnergyUM(instanceData, "active"),
-                  new FitnessCalculatorFastVirtualMachineForLargeTasks(instanceData, "active")),
-              "none",
-              evaluationsHistory);
+          "multi-pop-150-prob-1.0" -> {
+        // Shared by both arbiters, so it only runs once when both are evaluated together
+        var simple =
+            new FitnessCalculatorSimple(instanceData, new ArrayList<>(evaluationsHistory.size()));
+        yield new FitnessCalculatorMulti(
+            instanceData,
+            List.of(
+                simple,
+                new FitnessCalculatorHeft(instanceData),
+                new FitnessCalculatorRank(
+                    instanceData, new ArrayList<>(evaluationsHistory.size()))),
+            List.of(
+                simple,
+                new FitnessCalculatorMinEnergyUM(instanceData, "active"),
+                new FitnessCalculatorFastVirtualMachineForLargeTasks(instanceData, "active")),
+            "none",
+            evaluationsHistory);
+      }
 
       case "multi-makespan",
           "multi-makespan-mono",
@@ -168,6 +194,26 @@ public abstract class FitnessCalculator {
 
   public abstract FitnessInfo calculateFitness(SchedulePermutationSolution solution);
 
+  /**
+   * Calculates the fitness of a solution only if its makespan can be lower than a bound, which is
+   * all that is needed when a solution is only compared against a threshold.
+   *
+   * <p>By default the solution is fully evaluated, calculators that can prove earlier that the
+   * bound can't be beaten stop scheduling as soon as they can.
+   *
+   * @param solution The solution to evaluate.
+   * @param makespanBound The makespan the solution must improve.
+   * @return The fitness or empty if the makespan can't be lower than the bound.
+   */
+  public Optional<FitnessInfo> calculateFitness(
+      SchedulePermutationSolution solution, double makespanBound) {
+    var fitnessInfo = calculateFitness(solution);
+    if (fitnessInfo.fitness().get("makespan") < makespanBound) {
+      return Optional.of(fitnessInfo);
+    }
+    return Optional.empty();
+  }
+
   /**
    * Calculates the eft of a given task. Without insertion
    *
@@ -195,6 +241,270 @@ public abstract class FitnessCalculator {
     return new TaskCosts(diskReadStaging, diskWrite, eft, taskCommunications, ast);
   }
 
+  /**
+   * Calculates the eft of a given task over the compiled instance. Without insertion
+   *
+   * @param task Ordinal of the task to execute.
+   * @param host Ordinal of the host where the task runs.
+   * @param eft The eft of each already scheduled task.
+   * @param hostOf The host of each already scheduled task.
+   * @param available When each machine is available.
+   * @return Information about the executed task.
+   */
+  public TaskCosts calculateEftSemiActive(
+      int task, int host, double[] eft, int[] hostOf, double[] available) {
+    var parentsInfo =
+        SchedulingHelper.findTaskCommunications(compiledInstance, task, host, eft, hostOf);
+    var taskCommunications = parentsInfo.taskCommunications();
+    double diskSpeed = compiledInstance.diskSpeed(host);
+    double diskReadStaging = compiledInstance.stagingBits(task) / diskSpeed;
+    double diskWrite = compiledInstance.outputBits(task) / diskSpeed;
+    double ast = Math.max(available[host], parentsInfo.maxEst());
+    double taskEft =
+        diskReadStaging
+            + diskWrite
+            + compiledInstance.computation(task, host)
+            + taskCommunications
+            + ast;
+
+    return new TaskCosts(diskReadStaging, diskWrite, taskEft, taskCommunications, ast);
+  }
+
+  /**
+   * Schedules a task without insertion writing the result in the scratch buffers, it doesn't
+   * allocate anything.
+   *
+   * @param task Ordinal of the task to execute.
+   * @param host Ordinal of the host where the task runs.
+   * @param scratch The state of the evaluation.
+   * @return The eft of the task.
+   */
+  double scheduleSemiActive(int task, int host, EvaluationScratch scratch) {
+    var parentOffsets = compiledInstance.parentOffsets();
+    var parents = compiledInstance.parents();
+    var parentBits = compiledInstance.parentBits();
+    var inverseSpeeds = compiledInstance.inverseTransferSpeeds();
+    int row = compiledInstance.transferRow(host);
+
+    double taskCommunications = 0D;
+    double maxEst = 0D;
+    for (int edge = parentOffsets[task]; edge < parentOffsets[task + 1]; edge++) {
+      int parent = parents[edge];
+      taskCommunications += parentBits[edge] * inverseSpeeds[row + scratch.hostOf[parent]];
+      maxEst = Math.max(maxEst, scratch.eft[parent]);
+    }
+
+    double diskSpeed = compiledInstance.diskSpeed(host);
+    double diskReadStaging = compiledInstance.stagingBits(task) / diskSpeed;
+    double diskWrite = compiledInstance.outputBits(task) / diskSpeed;
+    double ast = Math.max(scratch.available[host], maxEst);
+    double eft =
+        diskReadStaging
+            + diskWrite
+            + compiledInstance.computation(task, host)
+            + taskCommunications
+            + ast;
+
+    scratch.ast[task] = ast;
+    scratch.eft[task] = eft;
+    scratch.hostOf[task] = host;
+    scratch.available[host] = eft;
+    return eft;
+  }
+
+  /**
+   * Computes where a task would start and end in every host, and the energy it would consume,
+   * writing them in the candidate buffers of the scratch so the host can be selected with a single
+   * pass over primitive arrays. Nothing is allocated and the schedule isn't modified, use {@link
+   * #placeTask} once the host is selected.
+   *
+   * <p>The latest eft of the parents doesn't depend on the host, so it's only calculated once. The
+   * rest follows the same arithmetic as {@link SchedulingHelper#calculateEftActive} and {@link
+   * #calculateEftSemiActive(int, int, double[], int[], double[])}, so the selected hosts are the
+   * same. The energy is the active energy of the task plus the standby energy since the host is
+   * ready, which can't be negative when the task uses a gap.
+   *
+   * @param task Ordinal of the task to execute.
+   * @param scratch The state of the evaluation.
+   * @param gaps The gaps of each host for an active scheduling, null for a semi-active one.
+   * @param withEnergy If the energy is needed, when it isn't only the ast and eft are computed.
+   */
+  void placeOnEveryHost(int task, EvaluationScratch scratch, HostGaps[] gaps, boolean withEnergy) {
+    placeOnHosts(task, null, scratch, gaps, withEnergy);
+  }
+
+  /**
+   * Same as {@link #placeOnEveryHost} but only for some hosts, the candidate buffers of the rest
+   * are left untouched.
+   *
+   * @param task Ordinal of the task to execute.
+   * @param hosts Ordinals of the hosts to consider, null for every host.
+   * @param scratch The state of the evaluation.
+   * @param gaps The gaps of each host for an active scheduling, null for a semi-active one.
+   * @param withEnergy If the energy is needed, when it isn't only the ast and eft are computed.
+   */
+  void placeOnHosts(
+      int task, int[] hosts, EvaluationScratch scratch, HostGaps[] gaps, boolean withEnergy) {
+    var parentOffsets = compiledInstance.parentOffsets();
+    var parents = compiledInstance.parents();
+    var parentBits = compiledInstance.parentBits();
+    var inverseSpeeds = compiledInstance.inverseTransferSpeeds();
+    int firstEdge = parentOffsets[task];
+    int lastEdge = parentOffsets[task + 1];
+
+    double maxEst = latestParentEft(task, scratch);
+
+    int hostCount = hosts == null ? compiledInstance.hostCount() : hosts.length;
+    for (int i = 0; i < hostCount; i++) {
+      int host = hosts == null ? i : hosts[i];
+      int row = compiledInstance.transferRow(host);
+      double taskCommunications = 0D;
+      for (int edge = firstEdge; edge < lastEdge; edge++) {
+        taskCommunications += parentBits[edge] * inverseSpeeds[row + scratch.hostOf[parents[edge]]];
+      }
+
+      double diskSpeed = compiledInstance.diskSpeed(host);
+      double diskReadStaging = compiledInstance.stagingBits(task) / diskSpeed;
+      double diskWrite = compiledInstance.outputBits(task) / diskSpeed;
+      double computation = compiledInstance.computation(task, host);
+      double taskTime = diskReadStaging + diskWrite + computation + taskCommunications;
+
+      double ast;
+      if (gaps == null) {
+        ast = Math.max(scratch.available[host], maxEst);
+      } else {
+        ast = gaps[host].findEarliestStart(maxEst, taskTime);
+        // Use default value if no matching gap is found
+        if (ast < 0) {
+          ast = maxEst;
+        }
+      }
+      double eft = ast + taskTime;
+      double hostAst = eft - computation - diskWrite - taskCommunications - diskReadStaging;
+
+      // Without insertion the ast is rebuilt from the eft, like the schedule always did
+      scratch.candidateAst[host] = gaps == null ? hostAst : ast;
+      scratch.candidateEft[host] = eft;
+
+      if (withEnergy) {
+        double energyActive = (eft - hostAst) * compiledInstance.energyCost(host);
+        double hostReady = gaps == null ? scratch.available[host] : gaps[host].hostReady();
+        double energyStandBy = (eft - hostReady) * compiledInstance.energyCostStandBy(host);
+        // If we are using a gap the energy can be negative
+        scratch.candidateEnergy[host] =
+            gaps == null ? energyActive + energyStandBy : energyActive + Math.max(0, energyStandBy);
+      }
+    }
+  }
+
+  /**
+   * Finds when the last parent of a task ends, the task can't start before it in any host.
+   *
+   * @param task Ordinal of the task.
+   * @param scratch The state of the evaluation.
+   * @return The latest eft of the parents, 0 without parents.
+   */
+  double latestParentEft(int task, EvaluationScratch scratch) {
+    var parentOffsets = compiledInstance.parentOffsets();
+    var parents = compiledInstance.parents();
+    double maxEst = 0D;
+    for (int edge = parentOffsets[task]; edge < parentOffsets[task + 1]; edge++) {
+      maxEst = Math.max(maxEst, scratch.eft[parents[edge]]);
+    }
+    return maxEst;
+  }
+
+  /**
+   * Schedules a task in one of the placements computed by {@link #placeOnEveryHost} or {@link
+   * #placeOnHosts}.
+   *
+   * @param task Ordinal of the task to execute.
+   * @param host Ordinal of the selected host.
+   * @param scratch The state of the evaluation.
+   * @param gaps The gaps of each host for an active scheduling, null for a semi-active one.
+   */
+  void placeTask(int task, int host, EvaluationScratch scratch, HostGaps[] gaps) {
+    double ast = scratch.candidateAst[host];
+    double eft = scratch.candidateEft[host];
+    if (gaps == null) {
+      scratch.available[host] = eft;
+    } else {
+      // Now we need to split the gap in two, using the eft as the slice, depending of the cut we
+      // can have one or two gaps.
+      gaps[host].occupy(ast, eft);
+    }
+    scratch.ast[task] = ast;
+    scratch.eft[task] = eft;
+    scratch.hostOf[task] = host;
+  }
+
+  /**
+   * Provides the scratch buffers of the current thread, ready for a new evaluation.
+   *
+   * @return The scratch buffers.
+   */
+  EvaluationScratch scratch() {
+    var threadScratch = scratch.get();
+    threadScratch.reset();
+    return threadScratch;
+  }
+
+  /**
+   * Copies the schedule of an evaluation out of the scratch buffers.
+   *
+   * @param scratch The state of the evaluation.
+   * @param scheduled How many tasks were scheduled.
+   * @return The raw schedule.
+   */
+  RawSchedule rawSchedule(EvaluationScratch scratch, int scheduled) {
+    return RawSchedule.copyOf(
+        compiledInstance, scratch.order, scheduled, scratch.ast, scratch.eft, scratch.hostOf);
+  }
+
+  /**
+   * Calculates the standby energy of all the hosts during the whole makespan.
+   *
+   * @param makespan The makespan of the schedule.
+   * @return The standby energy.
+   */
+  double calculateEnergyStandBy(double makespan) {
+    double energyStandBy = 0;
+    for (int h = 0; h < compiledInstance.hostCount(); h++) {
+      energyStandBy += compiledInstance.energyCostStandBy(h) * makespan;
+    }
+    return energyStandBy;
+  }
+
+  /**
+   * Orders two placements of the task being scheduled by energy and then by eft.
+   *
+   * @param scratch The state of the evaluation, with the placements already computed.
+   * @param a The host of the first placement.
+   * @param b The host of the second placement.
+   * @return The comparison result.
+   */
+  static int compareByEnergyAndEft(EvaluationScratch scratch, int a, int b) {
+    int byEnergy = Double.compare(scratch.candidateEnergy[a], scratch.candidateEnergy[b]);
+    return byEnergy != 0
+        ? byEnergy
+        : Double.compare(scratch.candidateEft[a], scratch.candidateEft[b]);
+  }
+
+  /**
+   * Orders two placements of the task being scheduled by eft and then by energy.
+   *
+   * @param scratch The state of the evaluation, with the placements already computed.
+   * @param a The host of the first placement.
+   * @param b The host of the second placement.
+   * @return The comparison result.
+   */
+  static int compareByEftAndEnergy(EvaluationScratch scratch, int a, int b) {
+    int byEft = Double.compare(scratch.candidateEft[a], scratch.candidateEft[b]);
+    return byEft != 0
+        ? byEft
+        : Double.compare(scratch.candidateEnergy[a], scratch.candidateEnergy[b]);
+  }
+
   /**
    * Provides the name of the fitness used.
    *
@@ -202,6 +512,16 @@ public abstract class FitnessCalculator {
    */
   public abstract String fitnessName();
 
+  /**
+   * Tells if the fitness only depends on the host of each position of the plan, because the tasks
+   * are always executed in the same order.
+   *
+   * @return True if the order of the tasks in the plan is ignored.
+   */
+  public boolean ignoresTaskOrder() {
+    return false;
+  }
+
   public Map<String, Map<String, Double>> getComputationMatrix() {
     return computationMatrix;
   }
@@ -209,4 +529,8 @@ public abstract class FitnessCalculator {
   public Map<String, Map<String, Long>> getNetworkMatrix() {
     return networkMatrix;
   }
+
+  public CompiledInstance getCompiledInstance() {
+    return compiledInstance;
+  }
 }
@@ -1,49 +1,27 @@
 package com.uniovi.sercheduler.service.calculator;
 
 import com.uniovi.sercheduler.dto.InstanceData;
-import com.uniovi.sercheduler.dto.Task;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.service.FitnessInfo;
-import com.uniovi.sercheduler.service.TaskCosts;
-import com.uniovi.sercheduler.service.TaskSchedule;
 import com.uniovi.sercheduler.service.core.SchedulingHelper;
-import com.uniovi.sercheduler.service.support.EftAndAst;
-import com.uniovi.sercheduler.service.support.EftAndEnergy;
-import com.uniovi.sercheduler.service.support.ScheduleGap;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * Implementation for calculating the makespan using DNC model and heft second phase, focused on
  * Energy.
  */
 public class FitnessCalculatorFastVirtualMachineForLargeTasks extends FitnessCalculator {
-  private String planificationType;
-  private double threshold;
-  private Map<String, Boolean> priorityTasks;
+  private final String planificationType;
+  private final boolean[] priorityTasks;
 
   public FitnessCalculatorFastVirtualMachineForLargeTasks(
       InstanceData instanceData, String planificationType) {
     super(instanceData);
     this.planificationType = planificationType;
-    var ranking = SchedulingHelper.calculateHeftRanking(instanceData, computationMatrix, referenceSpeedRead, referenceSpeedWrite);
-    this.threshold = ranking.values().stream().mapToDouble(x -> x).average().orElseThrow();
     // We need a list of task that are considered as high priority and should be executed always on
     // fast machines.
-    priorityTasks =
-        ranking.entrySet().stream()
-            .map(
-                e -> {
-                  if (e.getValue() > threshold) {
-                    return Map.entry(e.getKey().getName(), true);
-                  } else {
-                    return Map.entry(e.getKey().getName(), false);
-                  }
-                })
-            .collect(
-                Collectors.toMap(
-                    Map.Entry::getKey, Map.Entry::getValue, (o, n) -> o, HashMap::new));
+    this.priorityTasks = precomputedInstance.priorityTasks();
   }
 
   /**
@@ -58,39 +36,38 @@ public class FitnessCalculatorFastVirtualMachineForLargeTasks extends FitnessCal
     double makespan = 0D;
     double energyActive = 0D;
 
-    var availableSemiActive = new HashMap<String, Double>(instanceData.hosts().size());
-    var availableActive = new HashMap<String, List<ScheduleGap>>(instanceData.hosts().size());
+    // Without insertion the hosts only need to know when they are ready
+    var gaps =
+        planificationType.equals("active") ? SchedulingHelper.initialGaps(compiledInstance) : null;
+    var scratch = scratch();
+    var ast = scratch.ast;
+    var eft = scratch.eft;
+    var order = scratch.order;
 
-    var schedule = new HashMap<String, TaskSchedule>(instanceData.workflow().size());
+    for (int i = 0; i < plan.size(); i++) {
+      var schedulePair = plan.get(i);
+      int task = compiledInstance.taskOrdinal(schedulePair.task());
 
-    for (var schedulePair : plan) {
-      EftAndAst eftAndAst;
+      placeOnEveryHost(task, scratch, gaps, true);
+      placeTask(task, selectHost(task, scratch), scratch, gaps);
+      order[i] = task;
 
-      if (planificationType.equals("active")) {
-        eftAndAst = calculateHeftTaskCostActive(schedulePair.task(), schedule, availableActive);
+      makespan = Math.max(eft[task], makespan);
 
-      } else {
-        eftAndAst =
-            calculateHeftTaskCostSemiActive(schedulePair.task(), schedule, availableSemiActive);
-      }
-
-      makespan = Math.max(eftAndAst.eft(), makespan);
-
-      energyActive += (eftAndAst.eft() - eftAndAst.ast()) * schedulePair.host().getEnergyCost();
+      energyActive +=
+          (eft[task] - ast[task])
+              * compiledInstance.energyCost(compiledInstance.hostOrdinal(schedulePair.host()));
     }
 
-    var orderedSchedule =
-        schedule.values().stream().sorted(Comparator.comparing(TaskSchedule::ast)).toList();
+    // The schedule is kept raw, it will be ordered only if someone needs it.
+    var schedule = rawSchedule(scratch, plan.size());
 
     // We need to calculate the standby energy of each host
-    double energyStandBy = 0;
-    for (var host : instanceData.hosts().values()) {
-      energyStandBy += host.getEnergyCostStandBy() * makespan;
-    }
+    double energyStandBy = calculateEnergyStandBy(makespan);
 
     double energy = energyActive + energyStandBy;
     return new FitnessInfo(
-        Map.of("makespan", makespan, "energy", energy), orderedSchedule, fitnessName());
+        Map.of("makespan", makespan, "energy", energy), schedule, fitnessName());
   }
 
   @Override
@@ -98,172 +75,26 @@ public class FitnessCalculatorFastVirtualMachineForLargeTasks extends FitnessCal
     return "fvlt-me";
   }
 
-  private EftAndAst calculateHeftTaskCostSemiActive(
-      Task task, HashMap<String, TaskSchedule> schedule, HashMap<String, Double> available) {
-    HashMap<String, EftAndEnergy> tempEftAndEnergy = new HashMap<>();
-    HashMap<String, TaskCosts> possibleTaskCosts = new HashMap<>();
-    for (var host : instanceData.hosts().values()) {
-
-      TaskCosts taskCosts = calculateEftSemiActive(task, host, schedule, available);
-
-      var ast =
-          taskCosts.eft()
-              - computationMatrix.get(task.getName()).get(host.getName())
-              - taskCosts.diskWrite()
-              - taskCosts.taskCommunications()
-              - taskCosts.diskReadStaging();
-      double energyActive = (taskCosts.eft() - ast) * host.getEnergyCost();
-
-      // The standby energy is calculated starting from the first instant the host is available
-      // until the task is completed
-      var hostReady = available.getOrDefault(host.getName(), 0D);
-
-      double energyStandBy = (taskCosts.eft() - hostReady) * host.getEnergyCostStandBy();
-
-      double energy = energyActive + energyStandBy;
-
-      tempEftAndEnergy.put(host.getName(), new EftAndEnergy(taskCosts.eft(), energy));
-      possibleTaskCosts.put(host.getName(), taskCosts);
-    }
-
-    // There are two possible orders, if the task is not high priority we use an
-    // energy-efficient VM, if is high priority we will choose the fastest machine.
-    var byEnergyAndEft =
-        Comparator.comparing((Map.Entry<String, EftAndEnergy> e) -> e.getValue().energy())
-            .thenComparing(e -> e.getValue().eft());
-    var byEftAndEnergy =
-        Comparator.comparing((Map.Entry<String, EftAndEnergy> e) -> e.getValue().eft())
-            .thenComparing(e -> e.getValue().energy());
-
-    var comparator = priorityTasks.get(task.getName()) ? byEftAndEnergy : byEnergyAndEft;
-
-    String selectedHostName =
-        tempEftAndEnergy.entrySet().stream().min(comparator).orElseThrow().getKey();
-
-    var taskCosts = possibleTaskCosts.get(selectedHostName);
-    var host = instanceData.hosts().get(selectedHostName);
-    available.put(host.getName(), taskCosts.eft());
-    var ast =
-        available.get(host.getName())
-            - computationMatrix.get(task.getName()).get(host.getName())
-            - taskCosts.diskWrite()
-            - taskCosts.taskCommunications()
-            - taskCosts.diskReadStaging();
-
-    schedule.put(task.getName(), new TaskSchedule(task, ast, taskCosts.eft(), host));
-    return new EftAndAst(taskCosts.eft(), ast);
-  }
-
-  private EftAndAst calculateHeftTaskCostActive(
-      Task task, HashMap<String, TaskSchedule> schedule, Map<String, List<ScheduleGap>> available) {
-    HashMap<String, EftAndEnergy> tempEftAndEnergy = new HashMap<>();
-    HashMap<String, TaskCosts> possibleTaskCosts = new HashMap<>();
-    for (var host : instanceData.hosts().values()) {
-
-      TaskCosts taskCosts = SchedulingHelper.calculateEftActive(task, host, schedule, available, computationMatrix, networkMatrix);
-
-      var ast =
-          taskCosts.eft()
-              - computationMatrix.get(task.getName()).get(host.getName())
-              - taskCosts.diskWrite()
-              - taskCosts.taskCommunications()
-              - taskCosts.diskReadStaging();
-      double energyActive = (taskCosts.eft() - ast) * host.getEnergyCost();
-
-      // The standby energy is calculated starting from the first instant the host is available
-      // until the task is completed
-      List<ScheduleGap> scheduleGaps =
-          available.getOrDefault(host.getName(), List.of(new ScheduleGap(0D, Double.MAX_VALUE)));
-
-      ScheduleGap maxGap = null;
-      for (ScheduleGap gap : scheduleGaps) {
-        if (maxGap == null || gap.start() > maxGap.start()) {
-          maxGap = gap;
-        }
-      }
-      if (maxGap == null) {
-        throw new RuntimeException("No ScheduleGap found");
-      }
-
-      var hostReady = maxGap.start();
-      // If we are using a gap the energy can be negative
-      double energyStandBy = (taskCosts.eft() - hostReady) * host.getEnergyCostStandBy();
-
-      double energy = energyActive + Math.max(0, energyStandBy);
-
-      tempEftAndEnergy.put(host.getName(), new EftAndEnergy(taskCosts.eft(), energy));
-      possibleTaskCosts.put(host.getName(), taskCosts);
-    }
-
-    // There are two possible orders, if the task is not high priority we use an
-    // energy-efficient VM, if is high priority we will choose the fastest machine.
-    var byEnergyAndEft =
-        Comparator.comparing((Map.Entry<String, EftAndEnergy> e) -> e.getValue().energy())
-            .thenComparing(e -> e.getValue().eft());
-    var byEftAndEnergy =
-        Comparator.comparing((Map.Entry<String, EftAndEnergy> e) -> e.getValue().eft())
-            .thenComparing(e -> e.getValue().energy());
-
-    var comparator = priorityTasks.get(task.getName()) ? byEftAndEnergy : byEnergyAndEft;
-
-    // we need to find the minimum value using the comparator.
-    String selectedHostName = null;
-    Map.Entry<String, EftAndEnergy> minEntry = null;
-
-    for (Map.Entry<String, EftAndEnergy> entry : tempEftAndEnergy.entrySet()) {
-      if (minEntry == null || comparator.compare(entry, minEntry) < 0) {
-        minEntry = entry;
-      }
-    }
-
-    if (minEntry == null) {
-      throw new RuntimeException("No minimum entry found");
-    }
-
-    selectedHostName = minEntry.getKey();
-
-    var taskCosts = possibleTaskCosts.get(selectedHostName);
-    var host = instanceData.hosts().get(selectedHostName);
-
-    // Retrieve the list of gaps or use a default value
-    var availableHostGaps =
-        available.getOrDefault(host.getName(), List.of(new ScheduleGap(0D, Double.MAX_VALUE)));
-
-    // Find the closest gap to replace
-    ScheduleGap gapToReplace = null;
-    for (ScheduleGap gap : availableHostGaps) {
-      if (taskCosts.eft() <= gap.end() && taskCosts.ast() >= gap.start()) {
-        gapToReplace = gap;
-        break;
-      }
-    }
-
-    if (gapToReplace == null) {
-      throw new RuntimeException("No suitable gap found");
-    }
-
-    // Split the gap into two, avoiding gaps with equal start and end
-    List<ScheduleGap> newGaps = new ArrayList<>();
-    if (!taskCosts.ast().equals(gapToReplace.start())) {
-      newGaps.add(new ScheduleGap(gapToReplace.start(), taskCosts.ast()));
-    }
-    if (!taskCosts.eft().equals(gapToReplace.end())) {
-      newGaps.add(new ScheduleGap(taskCosts.eft(), gapToReplace.end()));
-    }
-
-    // Create a new list of gaps by replacing the old gap with the new ones
-    List<ScheduleGap> newHostGaps = new ArrayList<>();
-    for (ScheduleGap gap : availableHostGaps) {
-      if (!gap.equals(gapToReplace)) {
-        newHostGaps.add(gap);
+  /**
+   * There are two possible orders, if the task is not high priority we use an energy-efficient VM,
+   * if is high priority we will choose the fastest machine. Ties are resolved by host order.
+   *
+   * @param task Ordinal of the task being scheduled.
+   * @param scratch The state of the evaluation, with the placements of the task in each host.
+   * @return The ordinal of the selected host.
+   */
+  private int selectHost(int task, EvaluationScratch scratch) {
+    boolean priority = priorityTasks[task];
+    int selectedHost = 0;
+    for (int host = 1; host < compiledInstance.hostCount(); host++) {
+      int comparison =
+          priority
+              ? compareByEftAndEnergy(scratch, host, selectedHost)
+              : compareByEnergyAndEft(scratch, host, selectedHost);
+      if (comparison < 0) {
+        selectedHost = host;
       }
     }
-    newHostGaps.addAll(newGaps);
-
-    // We need to put the available gaps
-    available.put(host.getName(), newHostGaps);
-
-    schedule.put(task.getName(), new TaskSchedule(task, taskCosts.ast(), taskCosts.eft(), host));
-    return new EftAndAst(taskCosts.eft(), taskCosts.ast());
+    return selectedHost;
   }
 }
@@ -1,23 +1,42 @@
 package com.uniovi.sercheduler.service.calculator;
 
-import com.uniovi.sercheduler.dto.Host;
 import com.uniovi.sercheduler.dto.InstanceData;
-import com.uniovi.sercheduler.dto.Task;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.service.FitnessInfo;
-import com.uniovi.sercheduler.service.TaskCosts;
-import com.uniovi.sercheduler.service.TaskSchedule;
+import com.uniovi.sercheduler.service.core.CandidateHosts;
 import com.uniovi.sercheduler.service.core.SchedulingHelper;
-import com.uniovi.sercheduler.service.support.EftAndAst;
-import com.uniovi.sercheduler.service.support.ScheduleGap;
 
-import java.util.*;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
-/** Implementation for calculating the makespan using DNC model and heft second phase. */
+/**
+ * Implementation for calculating the makespan using DNC model and heft second phase.
+ *
+ * <p>With a candidate list each task only considers its candidate hosts. If the fallback is enabled
+ * and the selected candidate has to wait for the host to be free, every host is considered for that
+ * task, since one of the others might be able to start it earlier.
+ */
 public class FitnessCalculatorHeft extends FitnessCalculator {
+  private final CandidateHosts candidateHosts;
+
   public FitnessCalculatorHeft(InstanceData instanceData) {
     super(instanceData);
+    this.candidateHosts = CandidateHosts.all(compiledInstance);
+  }
+
+  /**
+   * Constructor using only the most promising hosts of each task.
+   *
+   * @param instanceData Infrastructure to use.
+   * @param candidateHostsPerTask How many hosts are taken from each ranking, see {@link
+   *     CandidateHosts#topK}.
+   * @param fallbackToAllHosts If every host is considered when the candidates are busy.
+   */
+  public FitnessCalculatorHeft(
+      InstanceData instanceData, int candidateHostsPerTask, boolean fallbackToAllHosts) {
+    super(instanceData);
+    this.candidateHosts =
+        CandidateHosts.topK(compiledInstance, candidateHostsPerTask, fallbackToAllHosts);
   }
 
   /**
@@ -32,30 +51,44 @@ public class FitnessCalculatorHeft extends FitnessCalculator {
     double makespan = 0D;
     double energyActive = 0D;
 
-    var available = new HashMap<String, List<ScheduleGap>>(instanceData.hosts().size());
-    var schedule = new HashMap<String, TaskSchedule>(instanceData.workflow().size());
-
-    for (var schedulePair : plan) {
-
-      var eftAndAst = calculateHeftTaskCost(schedulePair.task(), schedule, available);
+    var gaps = SchedulingHelper.initialGaps(compiledInstance);
+    var scratch = scratch();
+    var ast = scratch.ast;
+    var eft = scratch.eft;
+    var order = scratch.order;
+
+    for (int i = 0; i < plan.size(); i++) {
+      var schedulePair = plan.get(i);
+      int task = compiledInstance.taskOrdinal(schedulePair.task());
+
+      var hosts = candidateHosts.hosts(task);
+      placeOnHosts(task, hosts, scratch, gaps, false);
+      int host = selectMinimumEft(scratch, hosts);
+      if (candidateHosts.canFallBack(task)
+          && scratch.candidateAst[host] > latestParentEft(task, scratch)) {
+        hosts = candidateHosts.allHosts();
+        placeOnHosts(task, hosts, scratch, gaps, false);
+        host = selectMinimumEft(scratch, hosts);
+      }
+      placeTask(task, host, scratch, gaps);
+      order[i] = task;
 
-      makespan = Math.max(eftAndAst.eft(), makespan);
+      makespan = Math.max(eft[task], makespan);
 
-      energyActive += (eftAndAst.eft() - eftAndAst.ast()) * schedulePair.host().getEnergyCost();
+      energyActive +=
+          (eft[task] - ast[task])
+              * compiledInstance.energyCost(compiledInstance.hostOrdinal(schedulePair.host()));
     }
 
-    var orderedSchedule =
-        schedule.values().stream().sorted(Comparator.comparing(TaskSchedule::ast)).toList();
+    // The schedule is kept raw, it will be ordered only if someone needs it.
+    var schedule = rawSchedule(scratch, plan.size());
 
     // We need to calculate the standby energy of each host
-    double energyStandBy = 0;
-    for (var host : instanceData.hosts().values()) {
-      energyStandBy += host.getEnergyCostStandBy() * makespan;
-    }
+    double energyStandBy = calculateEnergyStandBy(makespan);
 
     double energy = energyActive + energyStandBy;
     return new FitnessInfo(
-        Map.of("makespan", makespan, "energy", energy), orderedSchedule, fitnessName());
+        Map.of("makespan", makespan, "energy", energy), schedule, fitnessName());
   }
 
   @Override
@@ -63,58 +96,25 @@ public class FitnessCalculatorHeft extends FitnessCalculator {
     return "heft";
   }
 
-  private EftAndAst calculateHeftTaskCost(
-      Task task, HashMap<String, TaskSchedule> schedule, Map<String, List<ScheduleGap>> available) {
+  /**
+   * Selects the host where the task finishes first, ties are resolved by host order.
+   *
+   * @param scratch The state of the evaluation, with the placements of the task in each host.
+   * @param hosts The hosts to consider, in host order.
+   * @return The ordinal of the selected host.
+   */
+  private int selectMinimumEft(EvaluationScratch scratch, int[] hosts) {
     double minEft = Double.MAX_VALUE;
-    Optional<Host> selectedHost = Optional.empty();
-    Optional<TaskCosts> selectedTaskCosts = Optional.empty();
-    for (var host : instanceData.hosts().values()) {
-
-      var taskCosts =
-          SchedulingHelper.calculateEftActive(
-              task, host, schedule, available, computationMatrix, networkMatrix);
-      double tmpEft = minEft;
-
-      minEft = Math.min(minEft, taskCosts.eft());
-      if (minEft != tmpEft) {
-        selectedHost = Optional.of(host);
-        selectedTaskCosts = Optional.of(taskCosts);
+    int selectedHost = -1;
+    for (int host : hosts) {
+      if (scratch.candidateEft[host] < minEft) {
+        minEft = scratch.candidateEft[host];
+        selectedHost = host;
       }
     }
-    var taskCosts = selectedTaskCosts.orElseThrow();
-    var host = selectedHost.orElseThrow();
-
-    // we need to find the closest gap
-
-    var availableHostGaps =
-        available.getOrDefault(host.getName(), List.of(new ScheduleGap(0D, Double.MAX_VALUE)));
-    var gapToReplace =
-        availableHostGaps.stream()
-            .filter(gap -> taskCosts.eft() <= gap.end() && taskCosts.ast() >= gap.start())
-            .findFirst()
-            .orElseThrow();
-    // Now we need to split the gap in two, using the eft as the slice, depending of the cut we can
-    // have one or two gaps. We always generate two gaps so we need to remove the gaps where the
-    // start and the end are the same.
-
-    var newGaps =
-        Stream.of(
-                new ScheduleGap(gapToReplace.start(), taskCosts.ast()),
-                new ScheduleGap(taskCosts.eft(), gapToReplace.end()))
-            .filter(gap -> !gap.start().equals(gap.end()))
-            .toList();
-
-    // Now we generate a new list with the old gaps and the new ones, removing the used gap.
-    var newHostGaps =
-        Stream.concat(
-                availableHostGaps.stream().filter(gap -> !gap.equals(gapToReplace)),
-                newGaps.stream())
-            .toList();
-
-    // We need to put the available gaps
-    available.put(host.getName(), newHostGaps);
-
-    schedule.put(task.getName(), new TaskSchedule(task, taskCosts.ast(), taskCosts.eft(), host));
-    return new EftAndAst(minEft, taskCosts.ast());
+    if (selectedHost == -1) {
+      throw new NoSuchElementException("No host found");
+    }
+    return selectedHost;
   }
 }
@@ -1,25 +1,18 @@
 package com.uniovi.sercheduler.service.calculator;
 
 import com.uniovi.sercheduler.dto.InstanceData;
-import com.uniovi.sercheduler.dto.Task;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.service.FitnessInfo;
-import com.uniovi.sercheduler.service.TaskCosts;
-import com.uniovi.sercheduler.service.TaskSchedule;
 import com.uniovi.sercheduler.service.core.SchedulingHelper;
-import com.uniovi.sercheduler.service.support.EftAndAst;
-import com.uniovi.sercheduler.service.support.EftAndEnergy;
-import com.uniovi.sercheduler.service.support.ScheduleGap;
 
-import java.util.*;
-import java.util.stream.Stream;
+import java.util.Map;
 
 /**
  * Implementation for calculating the makespan using DNC model and heft second phase, focused on
  * Energy.
  */
 public class FitnessCalculatorHeftEnergy extends FitnessCalculator {
-  private String planificationType;
+  private final String planificationType;
 
   public FitnessCalculatorHeftEnergy(InstanceData instanceData, String planificationType) {
     super(instanceData);
@@ -38,39 +31,38 @@ public class FitnessCalculatorHeftEnergy extends FitnessCalculator {
     double makespan = 0D;
     double energyActive = 0D;
 
-    var availableSemiActive = new HashMap<String, Double>(instanceData.hosts().size());
-    var availableActive = new HashMap<String,  List<ScheduleGap>>(instanceData.hosts().size());
+    // Without insertion the hosts only need to know when they are ready
+    var gaps =
+        planificationType.equals("active") ? SchedulingHelper.initialGaps(compiledInstance) : null;
+    var scratch = scratch();
+    var ast = scratch.ast;
+    var eft = scratch.eft;
+    var order = scratch.order;
 
+    for (int i = 0; i < plan.size(); i++) {
+      var schedulePair = plan.get(i);
+      int task = compiledInstance.taskOrdinal(schedulePair.task());
 
-    var schedule = new HashMap<String, TaskSchedule>(instanceData.workflow().size());
+      placeOnEveryHost(task, scratch, gaps, true);
+      placeTask(task, selectMinimum(scratch), scratch, gaps);
+      order[i] = task;
 
-    for (var schedulePair : plan) {
-      EftAndAst eftAndAst;
+      makespan = Math.max(eft[task], makespan);
 
-      if (planificationType.equals("active")) {
-        eftAndAst = calculateHeftTaskCostActive(schedulePair.task(), schedule, availableActive);
-
-      } else {
-        eftAndAst = calculateHeftTaskCostSemiActive(schedulePair.task(), schedule, availableSemiActive);
-      }
-
-      makespan = Math.max(eftAndAst.eft(), makespan);
-
-      energyActive += (eftAndAst.eft() - eftAndAst.ast()) * schedulePair.host().getEnergyCost();
+      energyActive +=
+          (eft[task] - ast[task])
+              * compiledInstance.energyCost(compiledInstance.hostOrdinal(schedulePair.host()));
     }
 
-    var orderedSchedule =
-        schedule.values().stream().sorted(Comparator.comparing(TaskSchedule::ast)).toList();
+    // The schedule is kept raw, it will be ordered only if someone needs it.
+    var schedule = rawSchedule(scratch, plan.size());
 
     // We need to calculate the standby energy of each host
-    double energyStandBy = 0;
-    for (var host : instanceData.hosts().values()) {
-      energyStandBy += host.getEnergyCostStandBy() * makespan;
-    }
+    double energyStandBy = calculateEnergyStandBy(makespan);
 
     double energy = energyActive + energyStandBy;
     return new FitnessInfo(
-        Map.of("makespan", makespan, "energy", energy), orderedSchedule, fitnessName());
+        Map.of("makespan", makespan, "energy", energy), schedule, fitnessName());
   }
 
   @Override
@@ -78,132 +70,20 @@ public class FitnessCalculatorHeftEnergy extends FitnessCalculator {
     return "heft-energy";
   }
 
-  private EftAndAst calculateHeftTaskCostSemiActive(
-      Task task, HashMap<String, TaskSchedule> schedule, HashMap<String, Double> available) {
-    HashMap<String, EftAndEnergy> tempEftAndEnergy = new HashMap<>();
-    HashMap<String, TaskCosts> possibleTaskCosts = new HashMap<>();
-    for (var host : instanceData.hosts().values()) {
-
-      TaskCosts taskCosts = calculateEftSemiActive(task, host, schedule, available);
-
-      var ast =
-          taskCosts.eft()
-              - computationMatrix.get(task.getName()).get(host.getName())
-              - taskCosts.diskWrite()
-              - taskCosts.taskCommunications()
-              - taskCosts.diskReadStaging();
-      double energyActive = (taskCosts.eft() - ast) * host.getEnergyCost();
-
-      // The standby energy is calculated starting from the first instant the host is available
-      // until the task is completed
-      var hostReady = available.getOrDefault(host.getName(), 0D);
-
-      double energyStandBy = (taskCosts.eft() - hostReady) * host.getEnergyCostStandBy();
-
-      double energy = energyActive + energyStandBy;
-
-      tempEftAndEnergy.put(host.getName(), new EftAndEnergy(taskCosts.eft(), energy));
-      possibleTaskCosts.put(host.getName(), taskCosts);
-    }
-
-    // We sort the possible solutions by energy and eft. We choose the minimum.
-    String selectedHostName =
-        tempEftAndEnergy.entrySet().stream()
-            .min(
-                Comparator.comparing((Map.Entry<String, EftAndEnergy> e) -> e.getValue().energy())
-                    .thenComparing(e -> e.getValue().eft()))
-            .orElseThrow()
-            .getKey();
-
-    var taskCosts = possibleTaskCosts.get(selectedHostName);
-    var host = instanceData.hosts().get(selectedHostName);
-    available.put(host.getName(), taskCosts.eft());
-    var ast =
-        available.get(host.getName())
-            - computationMatrix.get(task.getName()).get(host.getName())
-            - taskCosts.diskWrite()
-            - taskCosts.taskCommunications()
-            - taskCosts.diskReadStaging();
-
-    schedule.put(task.getName(), new TaskSchedule(task, ast, taskCosts.eft(), host));
-    return new EftAndAst(taskCosts.eft(), ast);
-  }
-
-  private EftAndAst calculateHeftTaskCostActive(
-          Task task, HashMap<String, TaskSchedule> schedule,Map<String, List<ScheduleGap>> available) {
-    HashMap<String, EftAndEnergy> tempEftAndEnergy = new HashMap<>();
-    HashMap<String, TaskCosts> possibleTaskCosts = new HashMap<>();
-    for (var host : instanceData.hosts().values()) {
-
-      TaskCosts taskCosts = SchedulingHelper.calculateEftActive(task, host, schedule, available, computationMatrix, networkMatrix);
-
-      var ast =
-              taskCosts.eft()
-                      - computationMatrix.get(task.getName()).get(host.getName())
-                      - taskCosts.diskWrite()
-                      - taskCosts.taskCommunications()
-                      - taskCosts.diskReadStaging();
-      double energyActive = (taskCosts.eft() - ast) * host.getEnergyCost();
-
-      // The standby energy is calculated starting from the first instant the host is available
-      // until the task is completed
-      var hostReady =
-              available
-                      .getOrDefault(host.getName(), List.of(new ScheduleGap(0D, Double.MAX_VALUE)))
-                      .stream()
-                      .max(Comparator.comparing(ScheduleGap::start))
-                      .orElseThrow()
-                      .start();
-
-      double energyStandBy = (taskCosts.eft() - hostReady) * host.getEnergyCostStandBy();
-
-      double energy = energyActive + Math.max(0,energyStandBy);
-
-      tempEftAndEnergy.put(host.getName(), new EftAndEnergy(taskCosts.eft(), energy));
-      possibleTaskCosts.put(host.getName(), taskCosts);
+  /**
+   * Selects the host with the lowest energy and then the lowest eft, ties are resolved by host
+   * order.
+   *
+   * @param scratch The state of the evaluation, with the placements of the task in each host.
+   * @return The ordinal of the selected host.
+   */
+  private int selectMinimum(EvaluationScratch scratch) {
+    int selectedHost = 0;
+    for (int host = 1; host < compiledInstance.hostCount(); host++) {
+      if (compareByEnergyAndEft(scratch, host, selectedHost) < 0) {
+        selectedHost = host;
+      }
     }
-
-    // We sort the possible solutions by energy and eft. We choose the minimum.
-    String selectedHostName =
-            tempEftAndEnergy.entrySet().stream()
-                    .min(
-                            Comparator.comparing((Map.Entry<String, EftAndEnergy> e) -> e.getValue().energy())
-                                    .thenComparing(e -> e.getValue().eft()))
-                    .orElseThrow()
-                    .getKey();
-
-    var taskCosts = possibleTaskCosts.get(selectedHostName);
-    var host = instanceData.hosts().get(selectedHostName);
-
-    // we need to find the closest gap
-
-    var availableHostGaps =
-            available.getOrDefault(host.getName(), List.of(new ScheduleGap(0D, Double.MAX_VALUE)));
-    var gapToReplace =
-            availableHostGaps.stream()
-                    .filter(gap -> taskCosts.eft() <= gap.end() && taskCosts.ast() >= gap.start())
-                    .findFirst()
-                    .orElseThrow();
-    // Now we need to split the gap in two, using the eft as the slice, depending of the cut we can
-    // have one or two gaps. We always generate two gaps so we need to remove the gaps where the
-    // start and the end are the same.
-
-    var newGaps =
-            Stream.of(
-                            new ScheduleGap(gapToReplace.start(), taskCosts.ast()),
-                            new ScheduleGap(taskCosts.eft(), gapToReplace.end()))
-                    .filter(gap -> !gap.start().equals(gap.end()))
-                    .toList();
-
-    // Now we generate a new list with the old gaps and the new ones, removing the used gap.
-    var newHostGaps = Stream.concat(availableHostGaps.stream()
-            .filter(gap -> ! gap.equals(gapToReplace)),newGaps.stream()
-    ).toList();
-
-    // We need to put the available gaps
-    available.put(host.getName(), newHostGaps);
-
-    schedule.put(task.getName(), new TaskSchedule(task, taskCosts.ast(), taskCosts.eft(), host));
-    return new EftAndAst(taskCosts.eft(), taskCosts.ast());
+    return selectedHost;
   }
 }
@@ -5,7 +5,6 @@ import com.uniovi.sercheduler.dto.Task;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.service.FitnessInfo;
 import com.uniovi.sercheduler.service.PlanPair;
-import com.uniovi.sercheduler.service.core.SchedulingHelper;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -13,11 +12,11 @@ import java.util.List;
 /** Finds the fitness using a heft heuristic. */
 public class FitnessCalculatorHeuristic extends FitnessCalculatorHeft {
 
-  List<Task> heftRanking;
+  final List<Task> heftRanking;
 
   public FitnessCalculatorHeuristic(InstanceData instanceData) {
     super(instanceData);
-    heftRanking = SchedulingHelper.calculateHeftRanking(instanceData, computationMatrix, referenceSpeedRead, referenceSpeedWrite).keySet().stream().toList();
+    heftRanking = precomputedInstance.heftOrder();
   }
 
   /**
@@ -44,4 +43,9 @@ public class FitnessCalculatorHeuristic extends FitnessCalculatorHeft {
   public String fitnessName(){
     return "heuristic";
   }
+
+  @Override
+  public boolean ignoresTaskOrder() {
+    return true;
+  }
 }
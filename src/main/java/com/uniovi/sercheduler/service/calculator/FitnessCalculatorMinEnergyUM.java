@@ -1,29 +1,49 @@
 package com.uniovi.sercheduler.service.calculator;
 
 import com.uniovi.sercheduler.dto.InstanceData;
-import com.uniovi.sercheduler.dto.Task;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.service.FitnessInfo;
-import com.uniovi.sercheduler.service.TaskCosts;
-import com.uniovi.sercheduler.service.TaskSchedule;
+import com.uniovi.sercheduler.service.core.CandidateHosts;
 import com.uniovi.sercheduler.service.core.SchedulingHelper;
-import com.uniovi.sercheduler.service.support.EftAndAst;
-import com.uniovi.sercheduler.service.support.EftAndEnergy;
-import com.uniovi.sercheduler.service.support.ScheduleGap;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * Implementation for calculating the makespan using DNC model and heft second phase, focused on
  * Energy.
+ *
+ * <p>With a candidate list each task only considers its candidate hosts. If the fallback is enabled
+ * and every candidate would modify the makespan, every host is considered for that task.
  */
 public class FitnessCalculatorMinEnergyUM extends FitnessCalculator {
-  private String planificationType;
+  private final String planificationType;
+  private final CandidateHosts candidateHosts;
 
   public FitnessCalculatorMinEnergyUM(InstanceData instanceData, String planificationType) {
     super(instanceData);
     this.planificationType = planificationType;
+    this.candidateHosts = CandidateHosts.all(compiledInstance);
+  }
+
+  /**
+   * Constructor using only the most promising hosts of each task.
+   *
+   * @param instanceData Infrastructure to use.
+   * @param planificationType If the scheduling is active or semi-active.
+   * @param candidateHostsPerTask How many hosts are taken from each ranking, see {@link
+   *     CandidateHosts#topK}.
+   * @param fallbackToAllHosts If every host is considered when all the candidates modify the
+   *     makespan.
+   */
+  public FitnessCalculatorMinEnergyUM(
+      InstanceData instanceData,
+      String planificationType,
+      int candidateHostsPerTask,
+      boolean fallbackToAllHosts) {
+    super(instanceData);
+    this.planificationType = planificationType;
+    this.candidateHosts =
+        CandidateHosts.topK(compiledInstance, candidateHostsPerTask, fallbackToAllHosts);
   }
 
   /**
@@ -37,42 +57,47 @@ public class FitnessCalculatorMinEnergyUM extends FitnessCalculator {
 
     double makespan = 0D;
     double energyActive = 0D;
-    var availableSemiActive = new HashMap<String, Double>(instanceData.hosts().size());
-    var availableActive = new HashMap<String, List<ScheduleGap>>(instanceData.hosts().size());
-
-    var schedule = new HashMap<String, TaskSchedule>(instanceData.workflow().size());
 
-    for (var schedulePair : plan) {
-
-      EftAndAst eftAndAst;
-
-      if (planificationType.equals("active")) {
-        eftAndAst =
-            calculateHeftTaskCostActive(schedulePair.task(), schedule, availableActive, makespan);
-
-      } else {
-        eftAndAst =
-            calculateHeftTaskCostSemiActive(
-                schedulePair.task(), schedule, availableSemiActive, makespan);
+    // Without insertion the hosts only need to know when they are ready
+    var gaps =
+        planificationType.equals("active") ? SchedulingHelper.initialGaps(compiledInstance) : null;
+    var scratch = scratch();
+    var ast = scratch.ast;
+    var eft = scratch.eft;
+    var order = scratch.order;
+
+    for (int i = 0; i < plan.size(); i++) {
+      var schedulePair = plan.get(i);
+      int task = compiledInstance.taskOrdinal(schedulePair.task());
+
+      var hosts = candidateHosts.hosts(task);
+      placeOnHosts(task, hosts, scratch, gaps, true);
+      int host = selectHost(scratch, hosts, makespan);
+      if (candidateHosts.canFallBack(task) && scratch.candidateEft[host] >= makespan) {
+        hosts = candidateHosts.allHosts();
+        placeOnHosts(task, hosts, scratch, gaps, true);
+        host = selectHost(scratch, hosts, makespan);
       }
-      makespan = Math.max(eftAndAst.eft(), makespan);
+      placeTask(task, host, scratch, gaps);
+      order[i] = task;
+
+      makespan = Math.max(eft[task], makespan);
 
-      energyActive += (eftAndAst.eft() - eftAndAst.ast()) * schedulePair.host().getEnergyCost();
+      energyActive +=
+          (eft[task] - ast[task])
+              * compiledInstance.energyCost(compiledInstance.hostOrdinal(schedulePair.host()));
     }
 
-    var orderedSchedule =
-        schedule.values().stream().sorted(Comparator.comparing(TaskSchedule::ast)).toList();
+    // The schedule is kept raw, it will be ordered only if someone needs it.
+    var schedule = rawSchedule(scratch, plan.size());
 
     // We need to calculate the standby energy of each host
-    double energyStandBy = 0;
-    for (var host : instanceData.hosts().values()) {
-      energyStandBy += host.getEnergyCostStandBy() * makespan;
-    }
+    double energyStandBy = calculateEnergyStandBy(makespan);
 
     double energy = energyActive + energyStandBy;
 
     return new FitnessInfo(
-        Map.of("makespan", makespan, "energy", energy), orderedSchedule, fitnessName());
+        Map.of("makespan", makespan, "energy", energy), schedule, fitnessName());
   }
 
   @Override
@@ -80,187 +105,32 @@ public class FitnessCalculatorMinEnergyUM extends FitnessCalculator {
     return "min-energy-UM";
   }
 
-  private EftAndAst calculateHeftTaskCostSemiActive(
-      Task task,
-      HashMap<String, TaskSchedule> schedule,
-      HashMap<String, Double> available,
-      Double currentMakespan) {
-    HashMap<String, EftAndEnergy> tempEftAndEnergy = new HashMap<>();
-    HashMap<String, TaskCosts> possibleTaskCosts = new HashMap<>();
-
-    for (var host : instanceData.hosts().values()) {
-
-      var taskCosts = calculateEftSemiActive(task, host, schedule, available);
-
-      var ast =
-          taskCosts.eft()
-              - computationMatrix.get(task.getName()).get(host.getName())
-              - taskCosts.diskWrite()
-              - taskCosts.taskCommunications()
-              - taskCosts.diskReadStaging();
-      double energyActive = (taskCosts.eft() - ast) * host.getEnergyCost();
-
-      // The standby energy is calculated starting from the first instant the host is available
-      // until the task is completed
-      var hostReady = available.getOrDefault(host.getName(), 0D);
-
-      double energyStandBy = (taskCosts.eft() - hostReady) * host.getEnergyCostStandBy();
-
-      double energy = energyActive + energyStandBy;
-
-      tempEftAndEnergy.put(host.getName(), new EftAndEnergy(taskCosts.eft(), energy));
-      possibleTaskCosts.put(host.getName(), taskCosts);
-    }
-
-    // We need to sort the possible solutions and find the one that doesn't modify the makespan and
-    // has the less energy consumption. If we have to modify the makespan we will choose the first
-    // item in the list which is the one that consumes less and take less.
-
-    var sortedEftAndEnergy =
-        tempEftAndEnergy.entrySet().stream()
-            .sorted(
-                Comparator.comparing((Map.Entry<String, EftAndEnergy> e) -> e.getValue().energy())
-                    .thenComparing(e -> e.getValue().eft()))
-            .collect(
-                Collectors.toMap(
-                    Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
-
-    String selectedHostName =
-        sortedEftAndEnergy.entrySet().stream()
-            .filter(e -> e.getValue().eft() < currentMakespan)
-            .findFirst()
-            .orElse(sortedEftAndEnergy.entrySet().iterator().next())
-            .getKey();
-
-    var taskCosts = possibleTaskCosts.get(selectedHostName);
-    var host = instanceData.hosts().get(selectedHostName);
-    available.put(host.getName(), taskCosts.eft());
-    var ast =
-        available.get(host.getName())
-            - computationMatrix.get(task.getName()).get(host.getName())
-            - taskCosts.diskWrite()
-            - taskCosts.taskCommunications()
-            - taskCosts.diskReadStaging();
-
-    schedule.put(task.getName(), new TaskSchedule(task, ast, taskCosts.eft(), host));
-    return new EftAndAst(taskCosts.eft(), ast);
-  }
-
-  private EftAndAst calculateHeftTaskCostActive(
-      Task task,
-      HashMap<String, TaskSchedule> schedule,
-      Map<String, List<ScheduleGap>> available,
-      Double currentMakespan) {
-    HashMap<String, EftAndEnergy> tempEftAndEnergy = new HashMap<>();
-    HashMap<String, TaskCosts> possibleTaskCosts = new HashMap<>();
-
-    for (var host : instanceData.hosts().values()) {
-
-      var taskCosts =
-          SchedulingHelper.calculateEftActive(
-              task, host, schedule, available, computationMatrix, networkMatrix);
-
-      var ast =
-          taskCosts.eft()
-              - computationMatrix.get(task.getName()).get(host.getName())
-              - taskCosts.diskWrite()
-              - taskCosts.taskCommunications()
-              - taskCosts.diskReadStaging();
-      double energyActive = (taskCosts.eft() - ast) * host.getEnergyCost();
-
-      // The standby energy is calculated starting from the first instant the host is available
-      // until the task is completed
-      List<ScheduleGap> scheduleGaps =
-          available.getOrDefault(host.getName(), List.of(new ScheduleGap(0D, Double.MAX_VALUE)));
-
-      ScheduleGap maxGap = null;
-      for (ScheduleGap gap : scheduleGaps) {
-        if (maxGap == null || gap.start() > maxGap.start()) {
-          maxGap = gap;
-        }
+  /**
+   * Selects the host with the lowest energy, then the lowest eft, among the ones that don't modify
+   * the makespan. If every host modifies it, the lowest overall is selected. Ties are resolved by
+   * host order.
+   *
+   * @param scratch The state of the evaluation, with the placements of the task in each host.
+   * @param hosts The hosts to consider, in host order.
+   * @param currentMakespan The makespan before scheduling the task.
+   * @return The ordinal of the selected host.
+   */
+  private int selectHost(EvaluationScratch scratch, int[] hosts, double currentMakespan) {
+    int best = -1;
+    int bestInMakespan = -1;
+    for (int host : hosts) {
+      if (best == -1 || compareByEnergyAndEft(scratch, host, best) < 0) {
+        best = host;
       }
-      if (maxGap == null) {
-        throw new RuntimeException("No ScheduleGap found");
+      if (scratch.candidateEft[host] < currentMakespan
+          && (bestInMakespan == -1 || compareByEnergyAndEft(scratch, host, bestInMakespan) < 0)) {
+        bestInMakespan = host;
       }
-
-      var hostReady = maxGap.start();
-
-      // If we are using a gap the energy can be negative
-      double energyStandBy = (taskCosts.eft() - hostReady) * host.getEnergyCostStandBy();
-
-      double energy = energyActive + Math.max(0, energyStandBy);
-      tempEftAndEnergy.put(host.getName(), new EftAndEnergy(taskCosts.eft(), energy));
-      possibleTaskCosts.put(host.getName(), taskCosts);
-    }
-
-    // Sort the possible solutions by energy consumption, then by EFT (earliest finish time)
-    List<Map.Entry<String, EftAndEnergy>> sortedEftAndEnergy =
-        new ArrayList<>(tempEftAndEnergy.entrySet());
-    sortedEftAndEnergy.sort(
-        Comparator.comparing((Map.Entry<String, EftAndEnergy> e) -> e.getValue().energy())
-            .thenComparing(e -> e.getValue().eft()));
-
-    // Find the best host name that doesn't modify the makespan
-    String selectedHostName = null;
-    for (Map.Entry<String, EftAndEnergy> entry : sortedEftAndEnergy) {
-      if (entry.getValue().eft() < currentMakespan) {
-        selectedHostName = entry.getKey();
-        break;
-      }
-    }
-
-    // If no such entry is found, use the first item in the sorted list
-    if (selectedHostName == null && !sortedEftAndEnergy.isEmpty()) {
-      selectedHostName = sortedEftAndEnergy.get(0).getKey();
     }
 
-    if (selectedHostName == null) {
+    if (best == -1) {
       throw new RuntimeException("No suitable host found");
     }
-
-    var taskCosts = possibleTaskCosts.get(selectedHostName);
-    var host = instanceData.hosts().get(selectedHostName);
-    // we need to find the closest gap
-
-    // Retrieve the list of gaps or use a default value
-    var availableHostGaps =
-        available.getOrDefault(host.getName(), List.of(new ScheduleGap(0D, Double.MAX_VALUE)));
-
-    // Find the closest gap to replace
-    ScheduleGap gapToReplace = null;
-    for (ScheduleGap gap : availableHostGaps) {
-      if (taskCosts.eft() <= gap.end() && taskCosts.ast() >= gap.start()) {
-        gapToReplace = gap;
-        break;
-      }
-    }
-
-    if (gapToReplace == null) {
-      throw new RuntimeException("No suitable gap found");
-    }
-
-    // Split the gap into two, avoiding gaps with equal start and end
-    List<ScheduleGap> newGaps = new ArrayList<>();
-    if (!taskCosts.ast().equals(gapToReplace.start())) {
-      newGaps.add(new ScheduleGap(gapToReplace.start(), taskCosts.ast()));
-    }
-    if (!taskCosts.eft().equals(gapToReplace.end())) {
-      newGaps.add(new ScheduleGap(taskCosts.eft(), gapToReplace.end()));
-    }
-
-    // Create a new list of gaps by replacing the old gap with the new ones
-    List<ScheduleGap> newHostGaps = new ArrayList<>();
-    for (ScheduleGap gap : availableHostGaps) {
-      if (!gap.equals(gapToReplace)) {
-        newHostGaps.add(gap);
-      }
-    }
-    newHostGaps.addAll(newGaps);
-
-    // We need to put the available gaps
-    available.put(host.getName(), newHostGaps);
-
-    schedule.put(task.getName(), new TaskSchedule(task, taskCosts.ast(), taskCosts.eft(), host));
-    return new EftAndAst(taskCosts.eft(), taskCosts.ast());
+    return bestInMakespan != -1 ? bestInMakespan : best;
   }
 }
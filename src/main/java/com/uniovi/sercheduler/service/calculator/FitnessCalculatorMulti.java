@@ -5,8 +5,11 @@ import com.uniovi.sercheduler.dto.analysis.MultiResult;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
 
 import com.uniovi.sercheduler.service.FitnessInfo;
 import org.slf4j.Logger;
@@ -17,13 +20,18 @@ public class FitnessCalculatorMulti extends FitnessCalculator {
 
   static final Logger LOG = LoggerFactory.getLogger(FitnessCalculatorMulti.class);
 
+  /** Workflows with fewer tasks are evaluated in a single thread, forking would cost more. */
+  static final int PARALLEL_TASKS = 500;
+
   private final List<FitnessCalculator> fitnessCalculatorsMakespan;
   private final List<FitnessCalculator> fitnessCalculatorsEnergy;
 
-  String overrideObjective;
+  final String overrideObjective;
 
   private final ArrayList<MultiResult> evaluationsHistory;
 
+  private final int parallelTasks;
+
   /**
    * Basic constructor
    *
@@ -34,11 +42,13 @@ public class FitnessCalculatorMulti extends FitnessCalculator {
       List<FitnessCalculator> fitnessCalculatorsMakespan,
       List<FitnessCalculator> fitnessCalculatorsEnergy,
       ArrayList<MultiResult> evaluationsHistory) {
-    super(instanceData);
-    this.fitnessCalculatorsMakespan = fitnessCalculatorsMakespan;
-    this.fitnessCalculatorsEnergy = fitnessCalculatorsEnergy;
-    this.overrideObjective = "none";
-    this.evaluationsHistory = evaluationsHistory;
+    this(
+        instanceData,
+        fitnessCalculatorsMakespan,
+        fitnessCalculatorsEnergy,
+        "none",
+        evaluationsHistory,
+        PARALLEL_TASKS);
   }
 
   public FitnessCalculatorMulti(
@@ -47,11 +57,42 @@ public class FitnessCalculatorMulti extends FitnessCalculator {
       List<FitnessCalculator> fitnessCalculatorsEnergy,
       String overrideObjective,
       ArrayList<MultiResult> evaluationsHistory) {
+    this(
+        instanceData,
+        fitnessCalculatorsMakespan,
+        fitnessCalculatorsEnergy,
+        overrideObjective,
+        evaluationsHistory,
+        PARALLEL_TASKS);
+  }
+
+  /**
+   * Full constructor.
+   *
+   * @param instanceData Infrastructure to use.
+   * @param fitnessCalculatorsMakespan The calculators used when the arbiter is the makespan.
+   * @param fitnessCalculatorsEnergy The calculators used when the arbiter is the energy.
+   * @param overrideObjective The objective used instead of the arbiter, "none" keeps the arbiter.
+   * @param evaluationsHistory The history of the evaluations.
+   * @param parallelTasks Workflows with at least this number of tasks run the calculators
+   *     concurrently, 0 always does and {@link Integer#MAX_VALUE} never does.
+   */
+  public FitnessCalculatorMulti(
+      InstanceData instanceData,
+      List<FitnessCalculator> fitnessCalculatorsMakespan,
+      List<FitnessCalculator> fitnessCalculatorsEnergy,
+      String overrideObjective,
+      ArrayList<MultiResult> evaluationsHistory,
+      int parallelTasks) {
     super(instanceData);
+    if (parallelTasks < 0) {
+      throw new IllegalArgumentException("The number of tasks is negative: " + parallelTasks);
+    }
     this.fitnessCalculatorsMakespan = fitnessCalculatorsMakespan;
     this.fitnessCalculatorsEnergy = fitnessCalculatorsEnergy;
     this.overrideObjective = overrideObjective;
     this.evaluationsHistory = evaluationsHistory;
+    this.parallelTasks = parallelTasks;
   }
 
   /**
@@ -61,38 +102,233 @@ public class FitnessCalculatorMulti extends FitnessCalculator {
    */
   @Override
   public FitnessInfo calculateFitness(SchedulePermutationSolution solution) {
-    List<FitnessCalculator> fitnessCalculators;
+    var fitness = calculateBestFitness(solution, Double.POSITIVE_INFINITY);
+
+    solution.setMultiResult(multiResult(fitness, solution));
+//    evaluationsHistory.add(
+//        new MultiResult(
+//            fitness.fitness().get("makespan"),
+//            fitness.fitness().get("energy"),
+//            fitness.fitnessFunction(),
+//            solution.getArbiter()));
+
+    return fitness;
+  }
+
+  /**
+   * Calculates the fitness using 3 calculators, only if the best schedule has a makespan lower than
+   * the bound.
+   *
+   * @param solution The solution to evaluate.
+   * @param makespanBound The makespan the solution must improve.
+   * @return The best fitness or empty if its makespan can't be lower than the bound.
+   */
+  @Override
+  public Optional<FitnessInfo> calculateFitness(
+      SchedulePermutationSolution solution, double makespanBound) {
+    var fitness = calculateBestFitness(solution, makespanBound);
+    if (fitness == null || fitness.fitness().get("makespan") >= makespanBound) {
+      return Optional.empty();
+    }
+    solution.setMultiResult(multiResult(fitness, solution));
+    return Optional.of(fitness);
+  }
 
+  /**
+   * Runs every calculator of the arbiter of the solution and keeps the best fitness, the first one
+   * wins the ties.
+   *
+   * <p>When the objective is the makespan the calculators share their results as a bound, a
+   * calculator stops as soon as it can't beat the ones already finished. The bound given by a
+   * calculator later in the list is slightly relaxed, as it loses the ties. On large workflows the
+   * calculators run concurrently, each one on its own view of the solution so the rank calculator
+   * replacing the plan doesn't affect the others. The last replaced plan is kept, as in the
+   * sequential version.
+   *
+   * @param solution The solution to evaluate.
+   * @param makespanBound The makespan the best schedule must improve.
+   * @return The best fitness or null if no calculator can improve the bound.
+   */
+  private FitnessInfo calculateBestFitness(
+      SchedulePermutationSolution solution, double makespanBound) {
+    List<FitnessCalculator> fitnessCalculators = calculatorsFor(solution);
+    var objective = objectiveFor(solution);
+    boolean shareBound = objective.equals("makespan");
+    boolean parallel = compiledInstance.taskCount() >= parallelTasks;
+    int size = fitnessCalculators.size();
+    if (size == 0) {
+      throw new NoSuchElementException("No fitness calculator found");
+    }
+
+    var results = new FitnessInfo[size];
+    var views = new SchedulePermutationSolution[size];
+    var makespans = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      makespans.set(i, Double.doubleToRawLongBits(Double.POSITIVE_INFINITY));
+    }
+
+    var indexes = IntStream.range(0, size);
+    if (parallel) {
+      indexes = indexes.parallel();
+    }
+    indexes.forEach(
+        i -> {
+          var view =
+              parallel
+                  ? new SchedulePermutationSolution(
+                      0,
+                      solution.objectives().length,
+                      null,
+                      solution.getPlan(),
+                      solution.getArbiter())
+                  : solution;
+          views[i] = view;
+          var calculator = fitnessCalculators.get(i);
+          if (!shareBound) {
+            results[i] = calculator.calculateFitness(view);
+            return;
+          }
+          results[i] =
+              calculator.calculateFitness(view, sharedBound(makespans, i, makespanBound))
+                  .orElse(null);
+          if (results[i] != null) {
+            makespans.set(i, Double.doubleToRawLongBits(results[i].fitness().get("makespan")));
+          }
+        });
+
+    if (parallel) {
+      for (var view : views) {
+        if (view.getPlan() != solution.getPlan()) {
+          solution.setPlan(view.getPlan());
+        }
+      }
+    }
+
+    FitnessInfo fitness = null;
+    for (var candidate : results) {
+      if (candidate != null
+          && (fitness == null
+              || Double.compare(
+                      candidate.fitness().get(objective), fitness.fitness().get(objective))
+                  < 0)) {
+        fitness = candidate;
+      }
+    }
+    return fitness;
+  }
+
+  private static double sharedBound(AtomicLongArray makespans, int calculator, double bound) {
+    for (int j = 0; j < makespans.length(); j++) {
+      double makespan = Double.longBitsToDouble(makespans.get(j));
+      bound = Math.min(bound, j < calculator ? makespan : Math.nextUp(makespan));
+    }
+    return bound;
+  }
+
+  /**
+   * Calculates the fitness of a solution for two arbiters in a single pass.
+   *
+   * <p>Gives the same result as calculating the fitness of each solution, but when both solutions
+   * have the same plan the calculators used by both arbiters only schedule it once. The remaining
+   * calculators of both arbiters run concurrently on large workflows.
+   *
+   * @param solution The solution to evaluate.
+   * @param alternative A copy of the solution with a different arbiter.
+   * @return The fitness of the solution and the fitness of the alternative.
+   */
+  public FitnessInfo[] calculateFitness(
+      SchedulePermutationSolution solution, SchedulePermutationSolution alternative) {
+    var solutions = List.of(solution, alternative);
+    var calculators = List.of(calculatorsFor(solution), calculatorsFor(alternative));
+    boolean samePlan = solution.getPlan().equals(alternative.getPlan());
+
+    // Each calculator is only run once per distinct plan, the results are shared by index.
+    List<FitnessCalculator> pending = new ArrayList<>();
+    List<SchedulePermutationSolution> pendingSolutions = new ArrayList<>();
+    int[][] resultIndex = new int[2][];
+    for (int s = 0; s < 2; s++) {
+      resultIndex[s] = new int[calculators.get(s).size()];
+      for (int c = 0; c < resultIndex[s].length; c++) {
+        var calculator = calculators.get(s).get(c);
+        int shared = s == 1 && samePlan ? indexOfInstance(pending, calculator) : -1;
+        if (shared >= 0) {
+          resultIndex[s][c] = shared;
+        } else {
+          resultIndex[s][c] = pending.size();
+          pending.add(calculator);
+          pendingSolutions.add(solutions.get(s));
+        }
+      }
+    }
+
+    // Every calculator gets its own view of the solution, the rank calculator replaces the plan.
+    var results = new FitnessInfo[pending.size()];
+    var indexes = IntStream.range(0, pending.size());
+    if (compiledInstance.taskCount() >= parallelTasks) {
+      indexes = indexes.parallel();
+    }
+    indexes.forEach(
+        i -> {
+          var owner = pendingSolutions.get(i);
+          var view =
+              new SchedulePermutationSolution(
+                  0, owner.objectives().length, null, owner.getPlan(), owner.getArbiter());
+          results[i] = pending.get(i).calculateFitness(view);
+        });
+
+    var fitness = new FitnessInfo[2];
+    for (int s = 0; s < 2; s++) {
+      var objective = objectiveFor(solutions.get(s));
+      for (int c = 0; c < resultIndex[s].length; c++) {
+        var candidate = results[resultIndex[s][c]];
+        // The first minimum wins, as in the sequential version
+        if (fitness[s] == null
+            || Double.compare(
+                    candidate.fitness().get(objective), fitness[s].fitness().get(objective))
+                < 0) {
+          fitness[s] = candidate;
+        }
+      }
+      if (fitness[s] == null) {
+        throw new NoSuchElementException("No fitness calculator found");
+      }
+      solutions.get(s).setMultiResult(multiResult(fitness[s], solutions.get(s)));
+    }
+    return fitness;
+  }
+
+  private List<FitnessCalculator> calculatorsFor(SchedulePermutationSolution solution) {
     if ((solution.getArbiter().equals("energy") || overrideObjective.equals("energy"))
         && !overrideObjective.equals("makespan")) {
-      fitnessCalculators = fitnessCalculatorsEnergy;
+      return fitnessCalculatorsEnergy;
     } else if (solution.getArbiter().equals("makespan") || overrideObjective.equals("makespan")) {
-      fitnessCalculators = fitnessCalculatorsMakespan;
+      return fitnessCalculatorsMakespan;
     } else {
       throw new RuntimeException("No fitness calculator found");
     }
+  }
 
-    var objective = overrideObjective.equals("none") ? solution.getArbiter() : overrideObjective;
-
-    var fitness =
-        fitnessCalculators.stream()
-            .map(c -> c.calculateFitness(solution))
-            .min(Comparator.comparing(f -> f.fitness().get(objective)))
-            .orElseThrow();
+  private String objectiveFor(SchedulePermutationSolution solution) {
+    return overrideObjective.equals("none") ? solution.getArbiter() : overrideObjective;
+  }
 
-    solution.setMultiResult(new MultiResult(
-            fitness.fitness().get("makespan"),
-            fitness.fitness().get("energy"),
-            fitness.fitnessFunction(),
-            solution.getArbiter()));
-//    evaluationsHistory.add(
-//        new MultiResult(
-//            fitness.fitness().get("makespan"),
-//            fitness.fitness().get("energy"),
-//            fitness.fitnessFunction(),
-//            solution.getArbiter()));
+  private static MultiResult multiResult(
+      FitnessInfo fitness, SchedulePermutationSolution solution) {
+    return new MultiResult(
+        fitness.fitness().get("makespan"),
+        fitness.fitness().get("energy"),
+        fitness.fitnessFunction(),
+        solution.getArbiter());
+  }
 
-    return fitness;
+  private static int indexOfInstance(
+      List<FitnessCalculator> calculators, FitnessCalculator calculator) {
+    for (int i = 0; i < calculators.size(); i++) {
+      if (calculators.get(i) == calculator) {
+        return i;
+      }
+    }
+    return -1;
   }
 
   @Override
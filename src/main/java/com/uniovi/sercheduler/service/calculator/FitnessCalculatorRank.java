@@ -6,15 +6,15 @@ import com.uniovi.sercheduler.dto.analysis.MultiResult;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.service.FitnessInfo;
 import com.uniovi.sercheduler.service.PlanPair;
-import com.uniovi.sercheduler.service.core.SchedulingHelper;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 /** Implementation for calculating the makespan using DNC model. */
 public class FitnessCalculatorRank extends FitnessCalculatorSimple {
 
-  List<Task> heftRanking;
+  final List<Task> heftRanking;
 
   private final ArrayList<MultiResult> evaluationsHistory;
 
@@ -27,23 +27,13 @@ public class FitnessCalculatorRank extends FitnessCalculatorSimple {
       InstanceData instanceData, ArrayList<MultiResult> evaluationsHistory) {
     super(instanceData, evaluationsHistory);
 
-    heftRanking =
-        SchedulingHelper.calculateHeftRanking(
-                instanceData, computationMatrix, referenceSpeedRead, referenceSpeedWrite)
-            .keySet()
-            .stream()
-            .toList();
+    heftRanking = precomputedInstance.heftOrder();
     this.evaluationsHistory = evaluationsHistory;
   }
 
   public FitnessCalculatorRank(InstanceData instanceData) {
     super(instanceData);
-    heftRanking =
-        SchedulingHelper.calculateHeftRanking(
-                instanceData, computationMatrix, referenceSpeedRead, referenceSpeedWrite)
-            .keySet()
-            .stream()
-            .toList();
+    heftRanking = precomputedInstance.heftOrder();
     this.evaluationsHistory = new ArrayList<>();
   }
 
@@ -54,6 +44,19 @@ public class FitnessCalculatorRank extends FitnessCalculatorSimple {
    */
   @Override
   public FitnessInfo calculateFitness(SchedulePermutationSolution solution) {
+    rankPlan(solution);
+    return super.calculateFitness(solution);
+  }
+
+  @Override
+  public Optional<FitnessInfo> calculateFitness(
+      SchedulePermutationSolution solution, double makespanBound) {
+    rankPlan(solution);
+    return super.calculateFitness(solution, makespanBound);
+  }
+
+  /** The tasks are executed in the order of the heft ranking, only the hosts are kept. */
+  private void rankPlan(SchedulePermutationSolution solution) {
     var plan = solution.getPlan();
     var newPlan = new ArrayList<PlanPair>();
 
@@ -61,7 +64,6 @@ public class FitnessCalculatorRank extends FitnessCalculatorSimple {
       newPlan.add(new PlanPair(heftRanking.get(i), plan.get(i).host()));
     }
     solution.setPlan(newPlan);
-    return super.calculateFitness(solution);
   }
 
   @Override
@@ -72,4 +74,9 @@ public class FitnessCalculatorRank extends FitnessCalculatorSimple {
   public ArrayList<MultiResult> getEvaluationsHistory() {
     return evaluationsHistory;
   }
+
+  @Override
+  public boolean ignoresTaskOrder() {
+    return true;
+  }
 }
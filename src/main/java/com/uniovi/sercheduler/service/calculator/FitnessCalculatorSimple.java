@@ -4,12 +4,12 @@ import com.uniovi.sercheduler.dto.InstanceData;
 import com.uniovi.sercheduler.dto.analysis.MultiResult;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.service.FitnessInfo;
-import com.uniovi.sercheduler.service.TaskSchedule;
+import com.uniovi.sercheduler.service.PlanPair;
 
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /** Implementation for calculating the makespan using DNC model. */
 public class FitnessCalculatorSimple extends FitnessCalculator {
@@ -37,41 +37,54 @@ public class FitnessCalculatorSimple extends FitnessCalculator {
    */
   @Override
   public FitnessInfo calculateFitness(SchedulePermutationSolution solution) {
-    var plan = solution.getPlan();
+    return calculateFitness(solution.getPlan(), Double.POSITIVE_INFINITY);
+  }
 
+  /**
+   * Calculates the makespan of a given schedule, stopping as soon as the tasks already scheduled
+   * prove that the makespan can't be lower than the bound.
+   *
+   * @param solution The solution to evaluate.
+   * @param makespanBound The makespan the solution must improve.
+   * @return The fitness or empty if the makespan can't be lower than the bound.
+   */
+  @Override
+  public Optional<FitnessInfo> calculateFitness(
+      SchedulePermutationSolution solution, double makespanBound) {
+    return Optional.ofNullable(calculateFitness(solution.getPlan(), makespanBound));
+  }
+
+  private FitnessInfo calculateFitness(List<PlanPair> plan, double makespanBound) {
     double makespan = 0D;
     double energyActive = 0D;
 
-    var available = new HashMap<String, Double>(instanceData.hosts().size());
-    var schedule = new HashMap<String, TaskSchedule>(instanceData.workflow().size());
+    // The state of the evaluation lives in primitive buffers reused by this thread, so no object
+    // is created while scheduling the tasks.
+    var scratch = scratch();
 
-    for (var schedulePair : plan) {
-      var taskName = schedulePair.task().getName();
-      var hostName = schedulePair.host().getName();
+    for (int i = 0; i < plan.size(); i++) {
+      var schedulePair = plan.get(i);
+      int task = compiledInstance.taskOrdinal(schedulePair.task());
+      int host = compiledInstance.hostOrdinal(schedulePair.host());
 
-      var taskCosts =
-          calculateEftSemiActive(schedulePair.task(), schedulePair.host(), schedule, available);
+      double eft = scheduleSemiActive(task, host, scratch);
+      scratch.order[i] = task;
 
-      available.put(hostName, taskCosts.eft());
+      makespan = Math.max(eft, makespan);
 
-      schedule.put(
-          taskName,
-          new TaskSchedule(
-              schedulePair.task(), taskCosts.ast(), taskCosts.eft(), schedulePair.host()));
+      // The descendants of the task still have to run after it.
+      if (makespan >= makespanBound || eft + compiledInstance.tailBound(task) >= makespanBound) {
+        return null;
+      }
 
-      makespan = Math.max(taskCosts.eft(), makespan);
-
-      energyActive += (taskCosts.eft() - taskCosts.ast()) * schedulePair.host().getEnergyCost();
+      energyActive += (eft - scratch.ast[task]) * compiledInstance.energyCost(host);
     }
 
-    var orderedSchedule =
-        schedule.values().stream().sorted(Comparator.comparing(TaskSchedule::ast)).toList();
+    // The schedule is kept raw, it will be ordered only if someone needs it.
+    var schedule = rawSchedule(scratch, plan.size());
 
     // We need to calculate the standby energy of each host
-    double energyStandBy = 0;
-    for (var host : instanceData.hosts().values()) {
-      energyStandBy += host.getEnergyCostStandBy() * makespan;
-    }
+    double energyStandBy = calculateEnergyStandBy(makespan);
 
     double energy = energyActive + energyStandBy;
 //    evaluationsHistory.add(
@@ -82,7 +95,7 @@ public class FitnessCalculatorSimple extends FitnessCalculator {
 //                    "any"));
 
     return new FitnessInfo(
-        Map.of("makespan", makespan, "energy", energy), orderedSchedule, fitnessName());
+        Map.of("makespan", makespan, "energy", energy), schedule, fitnessName());
   }
 
   @Override
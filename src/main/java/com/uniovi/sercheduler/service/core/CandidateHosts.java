@@ -0,0 +1,131 @@
+package com.uniovi.sercheduler.service.core;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Hosts worth considering for each task of a {@link CompiledInstance}.
+ *
+ * <p>With a candidate list of size {@code k} a task only considers the {@code k} hosts where it
+ * runs faster and the {@code k} hosts where it consumes less energy, judged only by the task itself
+ * without communications or waits. Both rankings come from the computation matrix, so the list is
+ * calculated once per instance and the cost of placing a task grows with {@code k} instead of with
+ * the number of hosts. The candidates of a task are in host order, so ties between them are still
+ * resolved by host order.
+ *
+ * <p>The candidates may miss the best host once the schedule is taken into account, for example
+ * when all of them are busy. The users of the list decide when that happens and, if {@link
+ * #fallbackToAllHosts()} is set, consider every host for that task instead.
+ *
+ * <p>The list is immutable, the arrays returned by the accessors are shared and must not be
+ * modified.
+ */
+public final class CandidateHosts {
+
+  private final int[][] candidates;
+  private final int[] allHosts;
+  private final boolean fallbackToAllHosts;
+
+  private CandidateHosts(int[][] candidates, int[] allHosts, boolean fallbackToAllHosts) {
+    this.candidates = candidates;
+    this.allHosts = allHosts;
+    this.fallbackToAllHosts = fallbackToAllHosts;
+  }
+
+  /**
+   * Creates a list where every task considers every host.
+   *
+   * @param instance The compiled instance.
+   * @return The candidate list.
+   */
+  public static CandidateHosts all(CompiledInstance instance) {
+    int[] allHosts = IntStream.range(0, instance.hostCount()).toArray();
+    int[][] candidates = new int[instance.taskCount()][];
+    Arrays.fill(candidates, allHosts);
+    return new CandidateHosts(candidates, allHosts, false);
+  }
+
+  /**
+   * Creates a list with the most promising hosts of each task.
+   *
+   * @param instance The compiled instance.
+   * @param k How many hosts are taken from each ranking, 0 or at least the number of hosts
+   *     considers every host.
+   * @param fallbackToAllHosts If every host is considered when the candidates aren't good enough.
+   * @return The candidate list.
+   */
+  public static CandidateHosts topK(CompiledInstance instance, int k, boolean fallbackToAllHosts) {
+    if (k < 0) {
+      throw new IllegalArgumentException("The number of candidate hosts is negative: " + k);
+    }
+    int hostCount = instance.hostCount();
+    if (k == 0 || k >= hostCount) {
+      return all(instance);
+    }
+
+    int[] allHosts = IntStream.range(0, hostCount).toArray();
+    int[][] candidates = new int[instance.taskCount()][];
+    double[] time = new double[hostCount];
+    double[] energy = new double[hostCount];
+    for (int t = 0; t < instance.taskCount(); t++) {
+      for (int h = 0; h < hostCount; h++) {
+        double diskSpeed = instance.diskSpeed(h);
+        time[h] =
+            instance.stagingBits(t) / diskSpeed
+                + instance.outputBits(t) / diskSpeed
+                + instance.computation(t, h);
+        energy[h] = time[h] * instance.energyCost(h);
+      }
+
+      boolean[] selected = new boolean[hostCount];
+      select(selected, time, k);
+      select(selected, energy, k);
+      candidates[t] = IntStream.range(0, hostCount).filter(h -> selected[h]).toArray();
+    }
+    return new CandidateHosts(candidates, allHosts, fallbackToAllHosts);
+  }
+
+  /** Marks the k hosts with the lowest values, ties are resolved by host order. */
+  private static void select(boolean[] selected, double[] values, int k) {
+    IntStream.range(0, values.length)
+        .boxed()
+        .sorted(Comparator.comparingDouble((Integer h) -> values[h]))
+        .limit(k)
+        .forEach(h -> selected[h] = true);
+  }
+
+  /**
+   * Provides the hosts a task should consider.
+   *
+   * @param task Ordinal of the task.
+   * @return The ordinals of the hosts, in host order.
+   */
+  public int[] hosts(int task) {
+    return candidates[task];
+  }
+
+  /**
+   * Provides every host of the instance.
+   *
+   * @return The ordinals of all the hosts, in host order.
+   */
+  public int[] allHosts() {
+    return allHosts;
+  }
+
+  /**
+   * Tells if a task whose candidates aren't good enough can consider every host instead, which
+   * only happens when the fallback is enabled and the candidates leave out some host.
+   *
+   * @param task Ordinal of the task.
+   * @return True if the task can fall back to every host.
+   */
+  public boolean canFallBack(int task) {
+    return fallbackToAllHosts && candidates[task].length < allHosts.length;
+  }
+
+  public boolean fallbackToAllHosts() {
+    return fallbackToAllHosts;
+  }
+}
@@ -0,0 +1,368 @@
+package com.uniovi.sercheduler.service.core;
+
+import com.uniovi.sercheduler.dto.Host;
+import com.uniovi.sercheduler.dto.InstanceData;
+import com.uniovi.sercheduler.dto.Task;
+import com.uniovi.sercheduler.dto.TaskGraph;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dense, integer indexed view of an {@link InstanceData}.
+ *
+ * <p>Tasks and hosts are given an ordinal once and every matrix used while evaluating a plan is
+ * flattened into primitive arrays, so the calculators can work with array accesses instead of
+ * String keyed lookups. Hosts keep the iteration order of {@code instanceData.hosts()}, which means
+ * that walking the host ordinals visits the hosts in the same order the map based code did.
+ *
+ * <p>The parents and children of each task come from the {@link TaskGraph} of the instance, in
+ * compressed sparse row form: the parents of task {@code t} are {@code
+ * parents()[parentOffsets()[t] .. parentOffsets()[t + 1]]} and the bits they send to {@code t} are
+ * at the same positions of {@code parentBits()}. Task ordinals are the ones of the graph.
+ *
+ * <p>The transfer speed between every pair of hosts is also precomputed, together with its
+ * reciprocal so the communications can be found with a multiplication.
+ *
+ * <p>The instance is immutable, the arrays returned by the accessors are shared and must not be
+ * modified.
+ */
+public final class CompiledInstance {
+
+  private final Task[] tasks;
+  private final Host[] hosts;
+  private final Map<String, Integer> taskOrdinals;
+  private final Map<String, Integer> hostOrdinals;
+
+  private final double[] computation;
+  private final long[] stagingBits;
+  private final long[] outputBits;
+
+  private final int[] parentOffsets;
+  private final int[] parents;
+  private final long[] parentBits;
+  private final int[] childOffsets;
+  private final int[] children;
+
+  private final long[] diskSpeed;
+  private final long[] networkSpeed;
+  private final double[] energyCost;
+  private final double[] energyCostStandBy;
+  private final double[] transferSpeed;
+  private final double[] inverseTransferSpeed;
+  private final double[] tailBounds;
+
+  private CompiledInstance(
+      InstanceData instanceData, Map<String, Map<String, Double>> computationMatrix) {
+    var graph = instanceData.taskGraph();
+    int taskCount = graph.taskCount();
+    int hostCount = instanceData.hosts().size();
+
+    // The graph gives the ordinals in the iteration order of the workflow, as the tasks here.
+    this.tasks = instanceData.workflow().values().toArray(new Task[0]);
+    this.hosts = instanceData.hosts().values().toArray(new Host[0]);
+    this.taskOrdinals = graph.taskOrdinals();
+    this.hostOrdinals = new HashMap<>(hostCount * 2);
+
+    this.diskSpeed = new long[hostCount];
+    this.networkSpeed = new long[hostCount];
+    this.energyCost = new double[hostCount];
+    this.energyCostStandBy = new double[hostCount];
+    for (int h = 0; h < hostCount; h++) {
+      var host = hosts[h];
+      hostOrdinals.put(host.getName(), h);
+      diskSpeed[h] = host.getDiskSpeed();
+      networkSpeed[h] = host.getNetworkSpeed();
+      // Some infrastructures don't define the energy, their energy will be NaN.
+      energyCost[h] = host.getEnergyCost() != null ? host.getEnergyCost() : Double.NaN;
+      energyCostStandBy[h] =
+          host.getEnergyCostStandBy() != null ? host.getEnergyCostStandBy() : Double.NaN;
+    }
+
+    this.transferSpeed = new double[hostCount * hostCount];
+    this.inverseTransferSpeed = new double[hostCount * hostCount];
+    for (int h = 0; h < hostCount; h++) {
+      for (int p = 0; p < hostCount; p++) {
+        double speed = SchedulingHelper.findHostSpeed(hosts[h], hosts[p]);
+        transferSpeed[h * hostCount + p] = speed;
+        inverseTransferSpeed[h * hostCount + p] = 1D / speed;
+      }
+    }
+
+    this.computation = new double[taskCount * hostCount];
+    this.stagingBits = new long[taskCount];
+    this.outputBits = new long[taskCount];
+
+    for (int t = 0; t < taskCount; t++) {
+      var task = tasks[t];
+      var taskComputation = computationMatrix.get(task.getName());
+      for (int h = 0; h < hostCount; h++) {
+        computation[t * hostCount + h] = taskComputation.get(hosts[h].getName());
+      }
+      stagingBits[t] = graph.stagingBits(t);
+      outputBits[t] = task.getOutput().getSizeInBits();
+    }
+
+    // The order of the parents is kept, the communications are added in this order.
+    this.parentOffsets = graph.parentOffsets();
+    this.parents = graph.parents();
+    this.parentBits = graph.parentBits();
+    this.childOffsets = graph.childOffsets();
+    this.children = graph.children();
+
+    this.tailBounds = calculateTailBounds();
+  }
+
+  /**
+   * Calculates, for each task, a lower bound of the time between its end and the end of the
+   * workflow: the longest chain of descendants, each one running in its fastest host and without
+   * communications.
+   */
+  private double[] calculateTailBounds() {
+    int taskCount = tasks.length;
+    int hostCount = hosts.length;
+    var minDuration = new double[taskCount];
+    for (int t = 0; t < taskCount; t++) {
+      double min = Double.MAX_VALUE;
+      for (int h = 0; h < hostCount; h++) {
+        double diskSpeed = this.diskSpeed[h];
+        double duration =
+            stagingBits[t] / diskSpeed + outputBits[t] / diskSpeed + computation[t * hostCount + h];
+        min = Math.min(min, duration);
+      }
+      minDuration[t] = min;
+    }
+
+    // The tasks are visited from the leaves, a task is ready when all its children are.
+    var pendingChildren = new int[taskCount];
+    var ready = new int[taskCount];
+    int readyCount = 0;
+    for (int t = 0; t < taskCount; t++) {
+      pendingChildren[t] = childOffsets[t + 1] - childOffsets[t];
+      if (pendingChildren[t] == 0) {
+        ready[readyCount++] = t;
+      }
+    }
+
+    var bounds = new double[taskCount];
+    for (int i = 0; i < readyCount; i++) {
+      int task = ready[i];
+      double bound = 0D;
+      for (int edge = childOffsets[task]; edge < childOffsets[task + 1]; edge++) {
+        int child = children[edge];
+        bound = Math.max(bound, minDuration[child] + bounds[child]);
+      }
+      bounds[task] = bound;
+      for (int edge = parentOffsets[task]; edge < parentOffsets[task + 1]; edge++) {
+        int parent = parents[edge];
+        if (--pendingChildren[parent] == 0) {
+          ready[readyCount++] = parent;
+        }
+      }
+    }
+    return bounds;
+  }
+
+  /**
+   * Compiles an instance reusing the matrices already calculated for it.
+   *
+   * @param instanceData The instance to compile.
+   * @param computationMatrix The time it takes to execute each task in each host.
+   * @return The compiled instance.
+   */
+  public static CompiledInstance compile(
+      InstanceData instanceData, Map<String, Map<String, Double>> computationMatrix) {
+    return new CompiledInstance(instanceData, computationMatrix);
+  }
+
+  /**
+   * Compiles an instance calculating its matrices.
+   *
+   * @param instanceData The instance to compile.
+   * @return The compiled instance.
+   */
+  public static CompiledInstance compile(InstanceData instanceData) {
+    return compile(
+        instanceData,
+        SchedulingHelper.calculateComputationMatrix(instanceData, instanceData.referenceFlops()));
+  }
+
+  public int taskCount() {
+    return tasks.length;
+  }
+
+  public int hostCount() {
+    return hosts.length;
+  }
+
+  public Task task(int task) {
+    return tasks[task];
+  }
+
+  public Host host(int host) {
+    return hosts[host];
+  }
+
+  /**
+   * Finds the ordinal of a task.
+   *
+   * @param task The task to find.
+   * @return Its ordinal.
+   */
+  public int taskOrdinal(Task task) {
+    return taskOrdinal(task.getName());
+  }
+
+  /**
+   * Finds the ordinal of a task by its name.
+   *
+   * @param taskName The name of the task.
+   * @return Its ordinal.
+   */
+  public int taskOrdinal(String taskName) {
+    var ordinal = taskOrdinals.get(taskName);
+    if (ordinal == null) {
+      throw new IllegalArgumentException("Unknown task: " + taskName);
+    }
+    return ordinal;
+  }
+
+  /**
+   * Finds the ordinal of a host.
+   *
+   * @param host The host to find.
+   * @return Its ordinal.
+   */
+  public int hostOrdinal(Host host) {
+    return hostOrdinal(host.getName());
+  }
+
+  /**
+   * Finds the ordinal of a host by its name.
+   *
+   * @param hostName The name of the host.
+   * @return Its ordinal.
+   */
+  public int hostOrdinal(String hostName) {
+    var ordinal = hostOrdinals.get(hostName);
+    if (ordinal == null) {
+      throw new IllegalArgumentException("Unknown host: " + hostName);
+    }
+    return ordinal;
+  }
+
+  /**
+   * Time it takes to execute a task in a host, without communications.
+   *
+   * @param task Ordinal of the task.
+   * @param host Ordinal of the host.
+   * @return The computation time.
+   */
+  public double computation(int task, int host) {
+    return computation[task * hosts.length + host];
+  }
+
+  /**
+   * Bits that a task reads from the staging area.
+   *
+   * @param task Ordinal of the task.
+   * @return The bits.
+   */
+  public long stagingBits(int task) {
+    return stagingBits[task];
+  }
+
+  /**
+   * Bits that a task writes as output.
+   *
+   * @param task Ordinal of the task.
+   * @return The bits.
+   */
+  public long outputBits(int task) {
+    return outputBits[task];
+  }
+
+  public int[] parentOffsets() {
+    return parentOffsets;
+  }
+
+  public int[] parents() {
+    return parents;
+  }
+
+  public long[] parentBits() {
+    return parentBits;
+  }
+
+  public int[] childOffsets() {
+    return childOffsets;
+  }
+
+  public int[] children() {
+    return children;
+  }
+
+  public long diskSpeed(int host) {
+    return diskSpeed[host];
+  }
+
+  public long networkSpeed(int host) {
+    return networkSpeed[host];
+  }
+
+  public double energyCost(int host) {
+    return energyCost[host];
+  }
+
+  public double energyCostStandBy(int host) {
+    return energyCostStandBy[host];
+  }
+
+  /**
+   * Speed at which a host receives the data of a parent running in another host, the slowest of
+   * the mediums involved.
+   *
+   * @param host Ordinal of the target host.
+   * @param parentHost Ordinal of the source host.
+   * @return The speed in bits per second.
+   */
+  public double transferSpeed(int host, int parentHost) {
+    return transferSpeed[host * hosts.length + parentHost];
+  }
+
+  /**
+   * The reciprocal of {@link #transferSpeed(int, int)}.
+   *
+   * @param host Ordinal of the target host.
+   * @param parentHost Ordinal of the source host.
+   * @return The seconds it takes to transfer one bit.
+   */
+  public double inverseTransferSpeed(int host, int parentHost) {
+    return inverseTransferSpeed[host * hosts.length + parentHost];
+  }
+
+  /**
+   * The reciprocals of the transfer speeds of a target host, indexed by the ordinal of the source
+   * host.
+   *
+   * @param host Ordinal of the target host.
+   * @return The start of the row of the host in {@link #inverseTransferSpeeds()}.
+   */
+  public int transferRow(int host) {
+    return host * hosts.length;
+  }
+
+  public double[] inverseTransferSpeeds() {
+    return inverseTransferSpeed;
+  }
+
+  /**
+   * A lower bound of the time between the end of a task and the end of the workflow, no schedule
+   * where the task ends at {@code eft} can have a makespan lower than {@code eft + tailBound}.
+   *
+   * @param task Ordinal of the task.
+   * @return The bound.
+   */
+  public double tailBound(int task) {
+    return tailBounds[task];
+  }
+}
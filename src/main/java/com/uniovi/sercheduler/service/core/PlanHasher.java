@@ -0,0 +1,84 @@
+package com.uniovi.sercheduler.service.core;
+
+import com.uniovi.sercheduler.service.PlanPair;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist style hash of a plan.
+ *
+ * <p>Every position, task and host gets a random key, the hash of the plan is the xor of the keys
+ * of each (position, task, host) it contains. Two independent hashes are calculated in the same
+ * pass over the plan, so the ordinals of each task and host are only looked up once and plans
+ * whose first hash collides can still be told apart.
+ *
+ * <p>When the task order doesn't matter, like in the calculators that always execute the tasks in
+ * the order of the heft ranking, only the host of each position is hashed.
+ */
+public final class PlanHasher {
+
+  private final CompiledInstance instance;
+  private final boolean ignoreTaskOrder;
+  // The keys of both hashes are interleaved, the ones of the check hash at the odd indexes
+  private final long[] positionKeys;
+  private final long[] taskKeys;
+  private final long[] hostKeys;
+
+  /**
+   * Full constructor.
+   *
+   * @param instance The compiled instance the plans belong to.
+   * @param ignoreTaskOrder If only the hosts of each position are hashed.
+   * @param seed The seed of the random keys, different seeds give independent hashes.
+   */
+  public PlanHasher(CompiledInstance instance, boolean ignoreTaskOrder, long seed) {
+    this.instance = instance;
+    this.ignoreTaskOrder = ignoreTaskOrder;
+    var random = new SplittableRandom(seed);
+    this.positionKeys = random.longs(2L * instance.taskCount()).toArray();
+    this.taskKeys = random.longs(2L * instance.taskCount()).toArray();
+    this.hostKeys = random.longs(2L * instance.hostCount()).toArray();
+  }
+
+  /**
+   * Hashes a full plan.
+   *
+   * @param plan The plan.
+   * @return Both hashes of the plan.
+   */
+  public Hash hash(List<PlanPair> plan) {
+    long hash = 0L;
+    long check = 0L;
+    for (int i = 0; i < plan.size(); i++) {
+      var planPair = plan.get(i);
+      int host = instance.hostOrdinal(planPair.host());
+      int task = ignoreTaskOrder ? -1 : instance.taskOrdinal(planPair.task());
+      hash ^= contribution(2 * i, task < 0 ? -1 : 2 * task, 2 * host);
+      check ^= contribution(2 * i + 1, task < 0 ? -1 : 2 * task + 1, 2 * host + 1);
+    }
+    return new Hash(hash, check);
+  }
+
+  private long contribution(int position, int task, int host) {
+    long hostKey = mix(positionKeys[position] ^ hostKeys[host]);
+    if (task < 0) {
+      return hostKey;
+    }
+    return hostKey ^ mix(~positionKeys[position] ^ taskKeys[task]);
+  }
+
+  /** The finalizer of SplitMix64, so the keys of a position don't cancel between them. */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * The hashes of a plan.
+   *
+   * @param hash The hash of the plan.
+   * @param check A second, independent hash of the plan.
+   */
+  public record Hash(long hash, long check) {}
+}
@@ -0,0 +1,111 @@
+package com.uniovi.sercheduler.service.core;
+
+import com.uniovi.sercheduler.dto.InstanceData;
+import com.uniovi.sercheduler.dto.Task;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Everything that can be calculated from an instance before evaluating any plan.
+ *
+ * <p>The values are shared by every calculator and algorithm working on the same instance, which is
+ * identified by its workflow, its hosts and its reference speed. The entries are dropped once the
+ * {@link InstanceData} is no longer used. Nothing returned by this class may be modified.
+ */
+public final class PrecomputedInstance {
+
+  private static final Map<InstanceData, PrecomputedInstance> CACHE =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  private final Map<String, Map<String, Double>> computationMatrix;
+  private final Map<String, Map<String, Long>> networkMatrix;
+  private final Double referenceSpeedRead;
+  private final Double referenceSpeedWrite;
+  private final CompiledInstance compiledInstance;
+  private final Map<Task, Double> heftRanking;
+
+  private volatile boolean[] priorityTasks;
+
+  private PrecomputedInstance(InstanceData instanceData) {
+    this.computationMatrix =
+        SchedulingHelper.calculateComputationMatrix(instanceData, instanceData.referenceFlops());
+    this.networkMatrix = SchedulingHelper.calculateNetworkMatrix(instanceData);
+    this.referenceSpeedWrite = SchedulingHelper.calculateReferenceSpeedWrite(instanceData);
+    this.referenceSpeedRead = SchedulingHelper.calculateReferenceSpeedRead(instanceData);
+    this.compiledInstance = CompiledInstance.compile(instanceData, computationMatrix);
+    this.heftRanking =
+        Collections.unmodifiableMap(
+            SchedulingHelper.calculateHeftRanking(
+                instanceData, computationMatrix, referenceSpeedRead, referenceSpeedWrite));
+  }
+
+  /**
+   * Provides the precomputed values of an instance, calculating them the first time.
+   *
+   * @param instanceData The instance.
+   * @return The precomputed values.
+   */
+  public static PrecomputedInstance of(InstanceData instanceData) {
+    return CACHE.computeIfAbsent(instanceData, PrecomputedInstance::new);
+  }
+
+  public Map<String, Map<String, Double>> computationMatrix() {
+    return computationMatrix;
+  }
+
+  public Map<String, Map<String, Long>> networkMatrix() {
+    return networkMatrix;
+  }
+
+  public Double referenceSpeedRead() {
+    return referenceSpeedRead;
+  }
+
+  public Double referenceSpeedWrite() {
+    return referenceSpeedWrite;
+  }
+
+  public CompiledInstance compiledInstance() {
+    return compiledInstance;
+  }
+
+  /**
+   * The ranking for the HEFT algorithm in DECREASING ORDER.
+   *
+   * @return The ranking.
+   */
+  public Map<Task, Double> heftRanking() {
+    return heftRanking;
+  }
+
+  /**
+   * The tasks in the order of the HEFT ranking.
+   *
+   * @return The tasks.
+   */
+  public List<Task> heftOrder() {
+    return List.copyOf(heftRanking.keySet());
+  }
+
+  /**
+   * Marks the tasks whose ranking is above the average, they are considered as high priority and
+   * should be executed always on fast machines.
+   *
+   * @return The priority of each task, indexed by task ordinal.
+   */
+  public boolean[] priorityTasks() {
+    var priorities = priorityTasks;
+    if (priorities == null) {
+      var threshold =
+          heftRanking.values().stream().mapToDouble(x -> x).average().orElseThrow();
+      priorities = new boolean[compiledInstance.taskCount()];
+      for (var entry : heftRanking.entrySet()) {
+        priorities[compiledInstance.taskOrdinal(entry.getKey())] = entry.getValue() > threshold;
+      }
+      priorityTasks = priorities;
+    }
+    return priorities;
+  }
+}
@@ -1,96 +1,185 @@
 package com.uniovi.sercheduler.service.core;
 
 import com.uniovi.sercheduler.dto.InstanceData;
-import com.uniovi.sercheduler.dto.Task;
 import com.uniovi.sercheduler.service.PlanPair;
 
 import java.util.*;
-import java.util.stream.Collectors;
-
+import java.util.stream.IntStream;
+
+/**
+ * Translates plans to random keys particles and back.
+ *
+ * <p>A particle has two keys per task: the first {@code k} are the priorities of the tasks and the
+ * next {@code k} their hosts, both indexed by task ordinal. Decoding schedules the ready task with
+ * the lowest priority first, the tasks become ready when all their parents are scheduled.
+ *
+ * <p>The coder works with the ordinals of the {@link CompiledInstance}, so it doesn't look for the
+ * tasks or the hosts by name, and the particles can be plain {@code double[]}. The coder is
+ * stateless and can be shared between threads.
+ */
 public class RandomKeysCoder {
 
-  private final InstanceData instanceData;
-  private final List<String> taskIds;
-  private final List<String> hostIds;
+  private final CompiledInstance instance;
+  private final int[] roots;
 
   public RandomKeysCoder(InstanceData instanceData) {
-    this.instanceData = instanceData;
-    this.taskIds = instanceData.workflow().keySet().stream().toList();
-    this.hostIds = instanceData.hosts().keySet().stream().toList();
+    this.instance = PrecomputedInstance.of(instanceData).compiledInstance();
+    var parentOffsets = instance.parentOffsets();
+    this.roots =
+        IntStream.range(0, instance.taskCount())
+            .filter(t -> parentOffsets[t] == parentOffsets[t + 1])
+            .toArray();
   }
 
+  /**
+   * Encodes a plan in a new particle.
+   *
+   * @param plan The plan to encode.
+   * @return The particle.
+   */
   public List<Double> encode(List<PlanPair> plan) {
+    var particle = new double[2 * instance.taskCount()];
+    encode(plan, particle);
+
+    List<Double> keys = new ArrayList<>(particle.length);
+    for (double key : particle) {
+      keys.add(key);
+    }
+    return keys;
+  }
 
-    var k = taskIds.size();
-    List<Double> particle = new ArrayList<>(Collections.nCopies(2 * k, 0.0));
+  /**
+   * Encodes a plan in an existing particle, the keys of the tasks not in the plan are set to 0.
+   *
+   * @param plan The plan to encode.
+   * @param particle Where to write the keys, its length is twice the number of tasks.
+   */
+  public void encode(List<PlanPair> plan, double[] particle) {
+    var k = instance.taskCount();
+    var hostCount = instance.hostCount();
+    Arrays.fill(particle, 0, 2 * k, 0D);
     for (int i = 0; i < plan.size(); i++) {
-      var task = plan.get(i).task();
-      var host = plan.get(i).host();
+      var task = instance.taskOrdinal(plan.get(i).task());
+      var host = instance.hostOrdinal(plan.get(i).host());
 
-      particle.set(getTaskIndex(task.getName()), (double) i / k);
-      particle.set(
-          k + getTaskIndex(task.getName()), (double) getHostIndex(host.getName()) / hostIds.size());
+      particle[task] = (double) i / k;
+      particle[k + task] = (double) host / hostCount;
     }
-
-    return particle;
   }
 
+  /**
+   * Decodes a particle.
+   *
+   * @param particle The particle.
+   * @return The plan.
+   */
   public List<PlanPair> decode(List<Double> particle) {
+    var keys = new double[particle.size()];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = particle.get(i);
+    }
+    return decode(keys);
+  }
 
-    var k = taskIds.size();
-    List<PlanPair> plan = new ArrayList<>(k);
-
-    PriorityQueue<PrioritizedTask> tasksToExplore =
-        new PriorityQueue<>(Comparator.comparingDouble(PrioritizedTask::priority));
-
-    var parentStatus =
-        instanceData.workflow().values().stream()
-            .map(
-                t ->
-                    Map.entry(
-                        t.getName(),
-                        t.getParents().stream().map(Task::getName).collect(Collectors.toList())))
-            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+  /**
+   * Decodes a particle.
+   *
+   * @param particle The particle.
+   * @return The plan.
+   */
+  public List<PlanPair> decode(double[] particle) {
+    var k = instance.taskCount();
+    var hostCount = instance.hostCount();
+    var parentOffsets = instance.parentOffsets();
+    var childOffsets = instance.childOffsets();
+    var children = instance.children();
+
+    var pendingParents = new int[k];
+    for (int t = 0; t < k; t++) {
+      pendingParents[t] = parentOffsets[t + 1] - parentOffsets[t];
+    }
 
-    instanceData.workflow().values().stream()
-        .filter(t -> t.getParents().isEmpty())
-        .forEach(
-            t ->
-                tasksToExplore.add(
-                    new PrioritizedTask(particle.get(getTaskIndex(t.getName())), t)));
+    var tasksToExplore = new TaskHeap(particle, k);
+    for (int root : roots) {
+      tasksToExplore.add(root);
+    }
 
+    var plan = new PlanPair[k];
+    int size = 0;
     while (!tasksToExplore.isEmpty()) {
 
-      var task = tasksToExplore.poll().task();
+      var task = tasksToExplore.poll();
 
-      int hostId =
-          (int)
-              Math.floor(
-                  Math.min(
-                      particle.get(k + getTaskIndex(task.getName())) * hostIds.size(),
-                      hostIds.size() - 1));
+      int hostId = (int) Math.floor(Math.min(particle[k + task] * hostCount, hostCount - 1));
 
-      plan.add(new PlanPair(task, instanceData.hosts().get(hostIds.get(hostId))));
+      plan[size++] = new PlanPair(instance.task(task), instance.host(hostId));
 
-      // We need to remove the task from the parent list of non schedule parents.
-      for (var child : task.getChildren()) {
-        parentStatus.get(child.getName()).remove(task.getName());
-        if (parentStatus.get(child.getName()).isEmpty()) {
-          tasksToExplore.add(
-              new PrioritizedTask(particle.get(getTaskIndex(child.getName())), child));
+      // The children whose parents are all scheduled can be explored.
+      for (int edge = childOffsets[task]; edge < childOffsets[task + 1]; edge++) {
+        int child = children[edge];
+        if (--pendingParents[child] == 0) {
+          tasksToExplore.add(child);
         }
       }
     }
-    return plan;
+    return new ArrayList<>(Arrays.asList(plan).subList(0, size));
   }
 
-  private int getTaskIndex(String taskId) {
-    return taskIds.indexOf(taskId);
-  }
+  /**
+   * Binary heap of task ordinals ordered by their priority in the particle. The tasks are sifted as
+   * in {@link PriorityQueue}, so tasks with the same priority are polled in the same order.
+   */
+  private static final class TaskHeap {
+    private final double[] priorities;
+    private final int[] heap;
+    private int size;
+
+    private TaskHeap(double[] priorities, int capacity) {
+      this.priorities = priorities;
+      this.heap = new int[capacity];
+    }
 
-  private int getHostIndex(String hostId) {
-    return hostIds.indexOf(hostId);
-  }
+    private boolean isEmpty() {
+      return size == 0;
+    }
 
-  public record PrioritizedTask(double priority, Task task) {}
+    private void add(int task) {
+      int k = size++;
+      double priority = priorities[task];
+      while (k > 0) {
+        int parent = (k - 1) >>> 1;
+        if (Double.compare(priority, priorities[heap[parent]]) >= 0) {
+          break;
+        }
+        heap[k] = heap[parent];
+        k = parent;
+      }
+      heap[k] = task;
+    }
+
+    private int poll() {
+      int result = heap[0];
+      int last = heap[--size];
+      if (size > 0) {
+        double priority = priorities[last];
+        int k = 0;
+        int half = size >>> 1;
+        while (k < half) {
+          int child = (k << 1) + 1;
+          int right = child + 1;
+          if (right < size
+              && Double.compare(priorities[heap[child]], priorities[heap[right]]) > 0) {
+            child = right;
+          }
+          if (Double.compare(priority, priorities[heap[child]]) <= 0) {
+            break;
+          }
+          heap[k] = heap[child];
+          k = child;
+        }
+        heap[k] = last;
+      }
+      return result;
+    }
+  }
 }
@@ -3,15 +3,15 @@ package com.uniovi.sercheduler.service.core;
 import com.uniovi.sercheduler.dto.Host;
 import com.uniovi.sercheduler.dto.InstanceData;
 import com.uniovi.sercheduler.dto.Task;
-import com.uniovi.sercheduler.dto.TaskFile;
+import com.uniovi.sercheduler.dto.TaskGraph;
 import com.uniovi.sercheduler.service.ParentsInfo;
 import com.uniovi.sercheduler.service.TaskCosts;
 import com.uniovi.sercheduler.service.TaskSchedule;
-import com.uniovi.sercheduler.service.support.ScheduleGap;
+import com.uniovi.sercheduler.service.support.HostGaps;
 
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
 
 public class SchedulingHelper {
 
@@ -47,50 +47,36 @@ public class SchedulingHelper {
   /**
    * Calculates the communications between tasks.
    *
+   * <p>The bits come from the {@link TaskGraph} of the instance, the matrix only gives them a map
+   * form.
+   *
    * @return A map stating the input form each task.
    */
   public static Map<String, Map<String, Long>> calculateNetworkMatrix(InstanceData instanceData) {
-
-    return instanceData.workflow().values().stream()
-        .map(SchedulingHelper::calculateTasksCommns)
-        .map(SchedulingHelper::calculateStaging)
-        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    var graph = instanceData.taskGraph();
+    return IntStream.range(0, graph.taskCount())
+        .boxed()
+        .collect(Collectors.toMap(graph::taskName, t -> calculateTaskComms(graph, t)));
   }
 
-  private static Map.Entry<Task, Map<String, Long>> calculateTasksCommns(Task task) {
-    return Map.entry(
-        task,
-        task.getParents().stream()
-            .map(
-                parent -> {
-                  Long bitsTransferred =
-                      parent.getOutput().getFiles().stream()
-                          .filter(
-                              f ->
-                                  task.getInput().getFiles().stream()
-                                      .map(TaskFile::getName)
-                                      .toList()
-                                      .contains(f.getName()))
-                          .map(TaskFile::getSize)
-                          .reduce(0L, Long::sum);
-
-                  return Map.entry(parent.getName(), bitsTransferred);
-                })
-            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
-  }
+  /**
+   * Finds the bits a task receives from each parent and from staging.
+   *
+   * @param graph The graph of the workflow.
+   * @param task The ordinal of the task to check.
+   * @return The bits by the name of the parent, the staging uses the name of the task.
+   */
+  private static Map<String, Long> calculateTaskComms(TaskGraph graph, int task) {
+    int start = graph.parentOffsets()[task];
+    int end = graph.parentOffsets()[task + 1];
+    Map<String, Long> comms = new HashMap<>((end - start + 1) * 2);
+    for (int edge = start; edge < end; edge++) {
+      comms.put(graph.taskName(graph.parents()[edge]), graph.parentBits()[edge]);
+    }
 
-  private static Map.Entry<String, Map<String, Long>> calculateStaging(
-      Map.Entry<Task, Map<String, Long>> entry) {
     // Do the staging
-    Task task = entry.getKey();
-    Map<String, Long> comms = entry.getValue();
-    Long tasksBits = comms.values().stream().reduce(0L, Long::sum);
-    var newComms =
-        Stream.concat(
-                comms.entrySet().stream(),
-                Stream.of(Map.entry(task.getName(), task.getInput().getSizeInBits() - tasksBits)))
-            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-    return Map.entry(task.getName(), newComms);
+    comms.put(graph.taskName(task), graph.stagingBits(task));
+    return comms;
   }
 
   /**
@@ -229,7 +215,7 @@ public class SchedulingHelper {
       Task task,
       Host host,
       Map<String, TaskSchedule> schedule,
-      Map<String, List<ScheduleGap>> available,
+      Map<String, HostGaps> available,
       Map<String, Map<String, Double>> computationMatrix,
       Map<String, Map<String, Long>> networkMatrix) {
     var parentsInfo = findTaskCommunications(task, host, schedule, networkMatrix);
@@ -247,23 +233,16 @@ public class SchedulingHelper {
             + computationMatrix.get(task.getName()).get(host.getName())
             + taskCommunications;
 
-    var availableHostGaps =
-        available.getOrDefault(host.getName(), List.of(new ScheduleGap(0D, Double.MAX_VALUE)));
+    var availableHostGaps = available.get(host.getName());
 
-    Double ast = null;
     double maxEst = parentsInfo.maxEst();
-
-    for (ScheduleGap gap : availableHostGaps) {
-      if (gap.start() >= maxEst && taskTime <= (gap.end() - gap.start())) {
-        if (ast == null || gap.start() < ast) {
-          ast = gap.start();
-        }
-      }
-    }
+    // A host without gaps hasn't executed anything yet, so the task can start after its parents.
+    double ast =
+        availableHostGaps != null ? availableHostGaps.findEarliestStart(maxEst, taskTime) : -1D;
 
     // Use default value if no matching gap is found
-    if (ast == null) {
-      ast = parentsInfo.maxEst();
+    if (ast < 0) {
+      ast = maxEst;
     }
 
     Double eft = ast + taskTime;
@@ -271,6 +250,60 @@ public class SchedulingHelper {
     return new TaskCosts(diskReadStaging, diskWrite, eft, taskCommunications, ast);
   }
 
+  /**
+   * Calculates the eft of a given task over a compiled instance. With insertion, which means that
+   * it take into account the gaps.
+   *
+   * @param instance The compiled instance.
+   * @param task Ordinal of the task to execute.
+   * @param host Ordinal of the host where the task runs.
+   * @param eft The eft of each already scheduled task.
+   * @param hostOf The host of each already scheduled task.
+   * @param hostGaps The available gaps of the host.
+   * @return Information about the executed task.
+   */
+  public static TaskCosts calculateEftActive(
+      CompiledInstance instance,
+      int task,
+      int host,
+      double[] eft,
+      int[] hostOf,
+      HostGaps hostGaps) {
+    var parentsInfo = findTaskCommunications(instance, task, host, eft, hostOf);
+    var taskCommunications = parentsInfo.taskCommunications();
+    double diskSpeed = instance.diskSpeed(host);
+    double diskReadStaging = instance.stagingBits(task) / diskSpeed;
+    double diskWrite = instance.outputBits(task) / diskSpeed;
+
+    double taskTime =
+        diskReadStaging + diskWrite + instance.computation(task, host) + taskCommunications;
+
+    double maxEst = parentsInfo.maxEst();
+    double ast = hostGaps.findEarliestStart(maxEst, taskTime);
+
+    // Use default value if no matching gap is found
+    if (ast < 0) {
+      ast = maxEst;
+    }
+
+    return new TaskCosts(diskReadStaging, diskWrite, ast + taskTime, taskCommunications, ast);
+  }
+
+  /**
+   * Creates the initial gaps of every host of a compiled instance, a single gap covering the whole
+   * timeline.
+   *
+   * @param instance The compiled instance.
+   * @return The gaps of each host, indexed by host ordinal.
+   */
+  public static HostGaps[] initialGaps(CompiledInstance instance) {
+    var gaps = new HostGaps[instance.hostCount()];
+    for (int h = 0; h < gaps.length; h++) {
+      gaps[h] = new HostGaps();
+    }
+    return gaps;
+  }
+
   /**
    * Find the time it takes to transfer all information between the task and it's parents.
    *
@@ -300,6 +333,36 @@ public class SchedulingHelper {
     return new ParentsInfo(maxEst, taskCommunications);
   }
 
+  /**
+   * Find the time it takes to transfer all information between the task and it's parents over a
+   * compiled instance.
+   *
+   * @param instance The compiled instance.
+   * @param task Ordinal of the task to check.
+   * @param host Ordinal of the host where it's going to run.
+   * @param eft The eft of each already scheduled task.
+   * @param hostOf The host of each already scheduled task.
+   * @return Information about parents.
+   */
+  public static ParentsInfo findTaskCommunications(
+      CompiledInstance instance, int task, int host, double[] eft, int[] hostOf) {
+    var parentOffsets = instance.parentOffsets();
+    var parents = instance.parents();
+    var parentBits = instance.parentBits();
+    var inverseSpeeds = instance.inverseTransferSpeeds();
+    int row = instance.transferRow(host);
+
+    double taskCommunications = 0D;
+    double maxEst = 0D;
+    for (int edge = parentOffsets[task]; edge < parentOffsets[task + 1]; edge++) {
+      int parent = parents[edge];
+      taskCommunications += parentBits[edge] * inverseSpeeds[row + hostOf[parent]];
+      maxEst = Math.max(maxEst, eft[parent]);
+    }
+
+    return new ParentsInfo(maxEst, taskCommunications);
+  }
+
   /**
    * Finds the transfer speed between two hosts. Normally is going to be the slowest one from all
    * mediums.
@@ -322,4 +385,16 @@ public class SchedulingHelper {
     // We need to do the minimum between bandwidth and parent disk
     return Math.min(bandwidth, parentHost.getDiskSpeed());
   }
+
+  /**
+   * Finds the transfer speed between two hosts of a compiled instance.
+   *
+   * @param instance The compiled instance.
+   * @param host Ordinal of the target host.
+   * @param parentHost Ordinal of the source host.
+   * @return The speed in bits per second.
+   */
+  public static long findHostSpeed(CompiledInstance instance, int host, int parentHost) {
+    return (long) instance.transferSpeed(host, parentHost);
+  }
 }
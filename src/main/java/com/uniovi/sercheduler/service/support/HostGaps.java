@@ -0,0 +1,267 @@
+package com.uniovi.sercheduler.service.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The free gaps of a host, used by the active (insertion) scheduling.
+ *
+ * <p>The gaps are kept in a treap ordered by their start, where every node also knows the longest
+ * gap below it. That way the earliest gap where a task fits can be found without visiting the gaps
+ * that are too short, and occupying a gap only touches a logarithmic number of nodes. A new host
+ * has a single gap covering the whole timeline.
+ *
+ * <p>The gaps are modified in place, use {@link #copy()} when the previous state is still needed.
+ */
+public final class HostGaps {
+
+  private Node root;
+  private int size;
+  private int seed;
+
+  /** Creates the gaps of an empty host. */
+  public HostGaps() {
+    this.seed = 0x2545F491;
+    insert(0D, Double.MAX_VALUE);
+  }
+
+  private HostGaps(Node root, int size, int seed) {
+    this.root = root;
+    this.size = size;
+    this.seed = seed;
+  }
+
+  /**
+   * Finds the earliest gap starting at or after a given instant where a task fits.
+   *
+   * @param minStart The instant where the task can start, normally the eft of its parents.
+   * @param duration How long does the task take.
+   * @return The start of the gap or a negative value if there is no suitable gap.
+   */
+  public double findEarliestStart(double minStart, double duration) {
+    var gap = findEarliest(root, minStart, duration);
+    return gap == null ? -1D : gap.start;
+  }
+
+  /**
+   * Occupies the gap that contains the given interval, splitting it in the remaining gaps before
+   * and after the interval.
+   *
+   * @param ast When does the task start.
+   * @param eft When does the task end.
+   */
+  public void occupy(double ast, double eft) {
+    var gap = floor(root, ast);
+    if (gap == null || eft > gap.end) {
+      throw new RuntimeException("No suitable gap found");
+    }
+
+    double start = gap.start;
+    double end = gap.end;
+    root = remove(root, start);
+    size--;
+    // Avoid gaps with equal start and end
+    if (ast != start) {
+      insert(start, ast);
+    }
+    if (eft != end) {
+      insert(eft, end);
+    }
+  }
+
+  /**
+   * Finds when the host is ready for good, which is the start of its latest gap.
+   *
+   * @return The start of the latest gap.
+   */
+  public double hostReady() {
+    var node = root;
+    if (node == null) {
+      throw new RuntimeException("No ScheduleGap found");
+    }
+    while (node.right != null) {
+      node = node.right;
+    }
+    return node.start;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * The gaps ordered by their start.
+   *
+   * @return The gaps.
+   */
+  public List<ScheduleGap> gaps() {
+    var gaps = new ArrayList<ScheduleGap>(size);
+    collect(root, gaps);
+    return gaps;
+  }
+
+  /**
+   * Copies the gaps, the copy can be modified without affecting this one.
+   *
+   * @return The copy.
+   */
+  public HostGaps copy() {
+    return new HostGaps(copy(root), size, seed);
+  }
+
+  private void insert(double start, double end) {
+    // xorshift, the priorities only need to be spread, not unpredictable.
+    seed ^= seed << 13;
+    seed ^= seed >>> 17;
+    seed ^= seed << 5;
+    root = insert(root, new Node(start, end, seed));
+    size++;
+  }
+
+  private static Node findEarliest(Node node, double minStart, double duration) {
+    if (node == null || node.maxLength < duration) {
+      return null;
+    }
+    if (node.start < minStart) {
+      return findEarliest(node.right, minStart, duration);
+    }
+    var left = findEarliest(node.left, minStart, duration);
+    if (left != null) {
+      return left;
+    }
+    if (duration <= node.end - node.start) {
+      return node;
+    }
+    return findEarliest(node.right, minStart, duration);
+  }
+
+  private static Node floor(Node node, double start) {
+    Node floor = null;
+    while (node != null) {
+      if (node.start <= start) {
+        floor = node;
+        node = node.right;
+      } else {
+        node = node.left;
+      }
+    }
+    return floor;
+  }
+
+  private static Node insert(Node node, Node gap) {
+    if (node == null) {
+      return gap;
+    }
+    if (gap.priority > node.priority) {
+      var parts = split(node, gap.start);
+      gap.left = parts[0];
+      gap.right = parts[1];
+      update(gap);
+      return gap;
+    }
+    if (gap.start < node.start) {
+      node.left = insert(node.left, gap);
+    } else {
+      node.right = insert(node.right, gap);
+    }
+    update(node);
+    return node;
+  }
+
+  private static Node remove(Node node, double start) {
+    if (node.start == start) {
+      return merge(node.left, node.right);
+    }
+    if (start < node.start) {
+      node.left = remove(node.left, start);
+    } else {
+      node.right = remove(node.right, start);
+    }
+    update(node);
+    return node;
+  }
+
+  /** Splits in the nodes starting before the key and the rest. */
+  private static Node[] split(Node node, double start) {
+    if (node == null) {
+      return new Node[2];
+    }
+    Node[] parts;
+    if (node.start < start) {
+      parts = split(node.right, start);
+      node.right = parts[0];
+      parts[0] = node;
+    } else {
+      parts = split(node.left, start);
+      node.left = parts[1];
+      parts[1] = node;
+    }
+    update(node);
+    return parts;
+  }
+
+  /** Merges two treaps where every gap of the first one starts before the gaps of the second. */
+  private static Node merge(Node first, Node second) {
+    if (first == null) {
+      return second;
+    }
+    if (second == null) {
+      return first;
+    }
+    if (first.priority > second.priority) {
+      first.right = merge(first.right, second);
+      update(first);
+      return first;
+    }
+    second.left = merge(first, second.left);
+    update(second);
+    return second;
+  }
+
+  private static void update(Node node) {
+    double maxLength = node.end - node.start;
+    if (node.left != null) {
+      maxLength = Math.max(maxLength, node.left.maxLength);
+    }
+    if (node.right != null) {
+      maxLength = Math.max(maxLength, node.right.maxLength);
+    }
+    node.maxLength = maxLength;
+  }
+
+  private static void collect(Node node, List<ScheduleGap> gaps) {
+    if (node == null) {
+      return;
+    }
+    collect(node.left, gaps);
+    gaps.add(new ScheduleGap(node.start, node.end));
+    collect(node.right, gaps);
+  }
+
+  private static Node copy(Node node) {
+    if (node == null) {
+      return null;
+    }
+    var copy = new Node(node.start, node.end, node.priority);
+    copy.left = copy(node.left);
+    copy.right = copy(node.right);
+    copy.maxLength = node.maxLength;
+    return copy;
+  }
+
+  private static final class Node {
+    private final double start;
+    private final double end;
+    private final int priority;
+    private double maxLength;
+    private Node left;
+    private Node right;
+
+    private Node(double start, double end, int priority) {
+      this.start = start;
+      this.end = end;
+      this.priority = priority;
+      this.maxLength = end - start;
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.uniovi.sercheduler.service.support;
+
+import java.util.Arrays;
+
+/**
+ * The host and eft of the tasks of a partial schedule, indexed by task ordinal.
+ *
+ * <p>The assignments are immutable and shared by every partial schedule derived from them. The
+ * tasks are split in chunks of about {@code √n} tasks, assigning a task copies the table of chunks
+ * and the chunk of the task while the rest of the chunks are shared. Extending a partial schedule
+ * of {@code n} tasks costs {@code O(√n)} instead of copying the whole schedule, and reading a task
+ * is still two array accesses.
+ */
+public final class PersistentAssignments {
+
+  private final int chunkSize;
+  private final int[][] hosts;
+  private final double[][] efts;
+
+  private PersistentAssignments(int chunkSize, int[][] hosts, double[][] efts) {
+    this.chunkSize = chunkSize;
+    this.hosts = hosts;
+    this.efts = efts;
+  }
+
+  /**
+   * Creates the assignments of a schedule where no task has been scheduled yet.
+   *
+   * @param taskCount The number of tasks of the workflow.
+   * @return The empty assignments.
+   */
+  public static PersistentAssignments empty(int taskCount) {
+    int chunkSize = Math.max(1, (int) Math.ceil(Math.sqrt(taskCount)));
+    int chunks = (taskCount + chunkSize - 1) / chunkSize;
+    return new PersistentAssignments(chunkSize, new int[chunks][], new double[chunks][]);
+  }
+
+  /**
+   * Derives the assignments where a task is scheduled, these ones aren't modified.
+   *
+   * @param task Ordinal of the task.
+   * @param host Ordinal of its host.
+   * @param eft When does the task end.
+   * @return The new assignments.
+   */
+  public PersistentAssignments with(int task, int host, double eft) {
+    int chunk = task / chunkSize;
+    var newHosts = hosts.clone();
+    var newEfts = efts.clone();
+    if (hosts[chunk] == null) {
+      newHosts[chunk] = new int[chunkSize];
+      Arrays.fill(newHosts[chunk], -1);
+      newEfts[chunk] = new double[chunkSize];
+    } else {
+      newHosts[chunk] = hosts[chunk].clone();
+      newEfts[chunk] = efts[chunk].clone();
+    }
+    newHosts[chunk][task % chunkSize] = host;
+    newEfts[chunk][task % chunkSize] = eft;
+    return new PersistentAssignments(chunkSize, newHosts, newEfts);
+  }
+
+  /**
+   * Finds the host of a task.
+   *
+   * @param task Ordinal of the task.
+   * @return Ordinal of the host or -1 if the task isn't scheduled.
+   */
+  public int host(int task) {
+    var chunk = hosts[task / chunkSize];
+    return chunk == null ? -1 : chunk[task % chunkSize];
+  }
+
+  /**
+   * Finds when a task ends.
+   *
+   * @param task Ordinal of a scheduled task.
+   * @return The eft of the task.
+   */
+  public double eft(int task) {
+    return efts[task / chunkSize][task % chunkSize];
+  }
+}
@@ -0,0 +1,71 @@
+package com.uniovi.sercheduler.dto;
+
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.loadMontageTest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class TaskGraphTest {
+
+  @Test
+  void edgesFollowTheTaskLists() {
+    InstanceData instanceData = loadMontageTest();
+    var graph = instanceData.taskGraph();
+
+    assertEquals(instanceData.workflow().size(), graph.taskCount());
+    for (var task : instanceData.workflow().values()) {
+      int t = graph.taskOrdinal(task.getName());
+      assertEquals(task.getName(), graph.taskName(t));
+
+      int edge = graph.parentOffsets()[t];
+      for (var parent : task.getParents()) {
+        assertEquals(parent.getName(), graph.taskName(graph.parents()[edge++]));
+      }
+      assertEquals(graph.parentOffsets()[t + 1], edge);
+
+      edge = graph.childOffsets()[t];
+      for (var child : task.getChildren()) {
+        assertEquals(child.getName(), graph.taskName(graph.children()[edge++]));
+      }
+      assertEquals(graph.childOffsets()[t + 1], edge);
+    }
+  }
+
+  @Test
+  void edgeBitsAreTheSharedFiles() {
+    InstanceData instanceData = loadMontageTest();
+    var graph = instanceData.taskGraph();
+
+    for (var task : instanceData.workflow().values()) {
+      int t = graph.taskOrdinal(task.getName());
+      long parentsBits = 0L;
+      int edge = graph.parentOffsets()[t];
+      for (var parent : task.getParents()) {
+        long expected = 0L;
+        for (var output : parent.getOutput().getFiles()) {
+          for (var input : task.getInput().getFiles()) {
+            if (output.getName().equals(input.getName())) {
+              expected += output.getSize();
+              break;
+            }
+          }
+        }
+        assertEquals(expected, graph.parentBits()[edge++]);
+        parentsBits += expected;
+      }
+      assertEquals(task.getInput().getSizeInBits() - parentsBits, graph.stagingBits(t));
+    }
+  }
+
+  @Test
+  void graphsOfTheSameWorkflowAreEqual() {
+    assertEquals(loadMontageTest().taskGraph(), loadMontageTest().taskGraph());
+  }
+
+  @Test
+  void graphBuiltInParallel() {
+    var workflow = loadMontageTest().workflow();
+
+    assertEquals(TaskGraph.of(workflow, false), TaskGraph.of(workflow, true));
+  }
+}
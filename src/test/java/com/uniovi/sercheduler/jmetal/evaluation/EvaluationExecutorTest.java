@@ -0,0 +1,55 @@
+package com.uniovi.sercheduler.jmetal.evaluation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class EvaluationExecutorTest {
+
+  @Test
+  void everyElementIsVisitedOnce() {
+    try (var executor = new EvaluationExecutor(3, 2)) {
+      // Reuse the same threads with sizes smaller, equal and bigger than the number of chunks
+      for (int size : List.of(0, 1, 5, 6, 7, 100, 201)) {
+        var visits = new AtomicIntegerArray(size);
+        var elements = IntStream.range(0, size).boxed().toList();
+
+        executor.forEach(elements, visits::incrementAndGet);
+
+        for (int i = 0; i < size; i++) {
+          assertEquals(1, visits.get(i));
+        }
+      }
+    }
+  }
+
+  @Test
+  void errorsReachTheCaller() {
+    try (var executor = new EvaluationExecutor(2)) {
+      var elements = List.of(1, 2, 3);
+
+      assertThrows(
+          RuntimeException.class,
+          () ->
+              executor.forEach(
+                  elements,
+                  e -> {
+                    if (e == 2) {
+                      throw new IllegalStateException("Failed evaluation");
+                    }
+                  }));
+    }
+  }
+
+  @Test
+  void defaultsUseTheAvailableProcessors() {
+    try (var executor = new EvaluationExecutor(0, 0)) {
+      assertEquals(Runtime.getRuntime().availableProcessors(), executor.numberOfThreads());
+      assertEquals(EvaluationExecutor.DEFAULT_CHUNKS_PER_THREAD, executor.chunksPerThread());
+    }
+  }
+}
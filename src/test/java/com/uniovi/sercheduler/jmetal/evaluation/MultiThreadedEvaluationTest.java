@@ -0,0 +1,39 @@
+package com.uniovi.sercheduler.jmetal.evaluation;
+
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.loadMontageTest;
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.population;
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.problem;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.uniovi.sercheduler.dto.InstanceData;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MultiThreadedEvaluationTest {
+
+  @Test
+  void sharedCalculatorGivesTheSequentialResults() {
+    InstanceData instanceData = loadMontageTest();
+
+    try (var executor = new EvaluationExecutor(8, 1)) {
+      for (var fitness : List.of("simple", "rank", "heft", "fvlt-me-active", "multi")) {
+        var problem = problem(instanceData, fitness);
+
+        var expected = population(instanceData, 9L, 200);
+        expected.forEach(problem::evaluate);
+
+        var evaluated =
+            new MultiThreadEvaluationMulti(executor, problem, "energy")
+                .evaluate(population(instanceData, 9L, 200));
+
+        for (int i = 0; i < expected.size(); i++) {
+          var solution = evaluated.get(2 * i);
+          assertArrayEquals(expected.get(i).objectives(), solution.objectives());
+          assertEquals(expected.get(i).getPlan(), solution.getPlan());
+          assertEquals(expected.get(i).getMultiResult(), solution.getMultiResult());
+        }
+      }
+    }
+  }
+}
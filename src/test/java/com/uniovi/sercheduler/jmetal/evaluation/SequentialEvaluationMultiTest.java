@@ -0,0 +1,44 @@
+package com.uniovi.sercheduler.jmetal.evaluation;
+
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.loadMontageTest;
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.population;
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.problem;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.uniovi.sercheduler.dto.InstanceData;
+import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SequentialEvaluationMultiTest {
+
+  @Test
+  void singlePassGivesTheSameResultsAsEvaluatingEachArbiter() {
+    InstanceData instanceData = loadMontageTest();
+
+    for (var fitness : List.of("multi", "multi-makespan", "multi-energy", "simple")) {
+      var problem = problem(instanceData, fitness);
+
+      List<SchedulePermutationSolution> expected = new ArrayList<>();
+      for (var solution : population(instanceData, 4L, 50)) {
+        var copy = (SchedulePermutationSolution) solution.copy();
+        copy.setArbiter("energy");
+        expected.add(problem.evaluate(solution));
+        expected.add(problem.evaluate(copy));
+      }
+
+      var evaluated =
+          new SequentialEvaluationMulti(1, problem, "energy").evaluate(population(instanceData, 4L, 50));
+
+      assertEquals(expected.size(), evaluated.size());
+      for (int i = 0; i < expected.size(); i++) {
+        assertEquals(expected.get(i).getArbiter(), evaluated.get(i).getArbiter());
+        assertArrayEquals(expected.get(i).objectives(), evaluated.get(i).objectives());
+        assertEquals(expected.get(i).getPlan(), evaluated.get(i).getPlan());
+        assertEquals(expected.get(i).getMultiResult(), evaluated.get(i).getMultiResult());
+      }
+    }
+  }
+}
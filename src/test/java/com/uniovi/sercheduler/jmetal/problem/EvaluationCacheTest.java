@@ -0,0 +1,114 @@
+package com.uniovi.sercheduler.jmetal.problem;
+
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.loadFitnessTest;
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.problem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.uniovi.sercheduler.dto.InstanceData;
+import com.uniovi.sercheduler.service.PlanGenerator;
+import com.uniovi.sercheduler.service.PlanPair;
+import com.uniovi.sercheduler.service.core.CompiledInstance;
+import com.uniovi.sercheduler.service.core.PlanHasher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class EvaluationCacheTest {
+
+  @Test
+  void repeatedPlansAreOnlyEvaluatedOnce() {
+    InstanceData instanceData = loadFitnessTest();
+    var problem = problem(instanceData, "simple");
+    problem.enableEvaluationCache(16);
+
+    var plan = new PlanGenerator(new Random(3L), instanceData).generatePlan();
+    var first = problem.evaluate(new SchedulePermutationSolution(10, 2, null, plan, "makespan"));
+    var second =
+        problem.evaluate(
+            new SchedulePermutationSolution(10, 2, null, new ArrayList<>(plan), "makespan"));
+
+    assertEquals(1, problem.getEvaluationCache().misses());
+    assertEquals(1, problem.getEvaluationCache().hits());
+    assertEquals(first.getFitnessInfo(), second.getFitnessInfo());
+    assertEquals(first.objectives()[0], second.objectives()[0]);
+    assertEquals(first.getPlan(), second.getPlan());
+  }
+
+  @Test
+  void cachedEvaluationsMatchTheCalculator() {
+    InstanceData instanceData = loadFitnessTest();
+    var cached = problem(instanceData, "multi");
+    cached.enableEvaluationCache(4);
+    var uncached = problem(instanceData, "multi");
+
+    var generator = new PlanGenerator(new Random(5L), instanceData);
+    List<List<PlanPair>> plans = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      plans.add(generator.generatePlan());
+    }
+
+    for (int round = 0; round < 3; round++) {
+      for (var plan : plans) {
+        for (var arbiter : List.of("makespan", "energy")) {
+          var withCache =
+              cached.evaluate(
+                  new SchedulePermutationSolution(10, 2, null, new ArrayList<>(plan), arbiter));
+          var withoutCache =
+              uncached.evaluate(
+                  new SchedulePermutationSolution(10, 2, null, new ArrayList<>(plan), arbiter));
+
+          assertEquals(withoutCache.getFitnessInfo(), withCache.getFitnessInfo());
+          assertEquals(withoutCache.getMultiResult(), withCache.getMultiResult());
+        }
+      }
+    }
+    assertEquals(4, cached.getEvaluationCache().size());
+  }
+
+  @Test
+  void rankIgnoresTheTaskOrder() {
+    InstanceData instanceData = loadFitnessTest();
+    var problem = problem(instanceData, "rank");
+    problem.enableEvaluationCache(16);
+
+    var plan = new PlanGenerator(new Random(3L), instanceData).generatePlan();
+    // Same hosts in every position but the first two tasks swapped
+    var swapped = new ArrayList<>(plan);
+    swapped.set(0, new PlanPair(plan.get(1).task(), plan.get(0).host()));
+    swapped.set(1, new PlanPair(plan.get(0).task(), plan.get(1).host()));
+
+    problem.evaluate(new SchedulePermutationSolution(10, 2, null, plan, "makespan"));
+    problem.evaluate(new SchedulePermutationSolution(10, 2, null, swapped, "makespan"));
+
+    assertEquals(1, problem.getEvaluationCache().hits());
+  }
+
+  @Test
+  void bothHashesDependOnEveryPosition() {
+    InstanceData instanceData = loadFitnessTest();
+    var hasher = new PlanHasher(CompiledInstance.compile(instanceData), false, 11L);
+    var plan = new PlanGenerator(new Random(3L), instanceData).generatePlan();
+    var hash = hasher.hash(plan);
+
+    assertEquals(hash, hasher.hash(new ArrayList<>(plan)));
+    var hosts = List.copyOf(instanceData.hosts().values());
+    for (int i = 0; i < plan.size(); i++) {
+      var changedPlan = new ArrayList<>(plan);
+      var host = plan.get(i).host();
+      var otherHost = hosts.get((hosts.indexOf(host) + 1) % hosts.size());
+      changedPlan.set(i, new PlanPair(plan.get(i).task(), otherHost));
+
+      var changed = hasher.hash(changedPlan);
+      assertNotEquals(hash.hash(), changed.hash());
+      assertNotEquals(hash.check(), changed.check());
+    }
+  }
+
+  @Test
+  void disabledByDefault() {
+    assertNull(problem(loadFitnessTest(), "simple").getEvaluationCache());
+  }
+}
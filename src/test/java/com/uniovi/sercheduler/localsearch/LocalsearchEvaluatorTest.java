@@ -4,18 +4,20 @@ import com.uniovi.sercheduler.dto.InstanceData;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.localsearch.evaluator.LocalsearchEvaluator;
 import com.uniovi.sercheduler.localsearch.operator.*;
-import com.uniovi.sercheduler.service.FitnessCalculator;
-import com.uniovi.sercheduler.service.FitnessCalculatorSimple;
+import com.uniovi.sercheduler.service.calculator.FitnessCalculator;
+import com.uniovi.sercheduler.service.calculator.FitnessCalculatorSimple;
 import com.uniovi.sercheduler.service.FitnessInfo;
 import com.uniovi.sercheduler.service.PlanPair;
-import com.uniovi.sercheduler.util.UnitParser;
+import com.uniovi.sercheduler.service.core.PrecomputedInstance;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 import static com.uniovi.sercheduler.util.LoadLocalsearchTestInstanceData.loadNeighborhoodOperatorsTest;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 public class LocalsearchEvaluatorTest {
 
@@ -40,14 +42,15 @@ public class LocalsearchEvaluatorTest {
                         new PlanPair(instanceData.workflow().get("task10"), instanceData.hosts().get("HostC")));
 
         SchedulePermutationSolution originalSolution = new SchedulePermutationSolution(1,2,null, plan,"makespan");
+        originalSolution.setCompiledInstance(PrecomputedInstance.of(instanceData).compiledInstance());
 
         //Create a calculator
 
         FitnessCalculator fitnessCalculator = new FitnessCalculatorSimple(instanceData);
 
-        Map<String, Map<String, Double>> computationMatrix = fitnessCalculator.calculateComputationMatrix(UnitParser.parseUnits("1Gf"));
+        Map<String, Map<String, Double>> computationMatrix = fitnessCalculator.getComputationMatrix();
 
-        Map<String, Map<String, Long>> networkMatrix = fitnessCalculator.calculateNetworkMatrix();
+        Map<String, Map<String, Long>> networkMatrix = fitnessCalculator.getNetworkMatrix();
 
         //Evaluate the original solution
 
@@ -104,14 +107,15 @@ public class LocalsearchEvaluatorTest {
                         new PlanPair(instanceData.workflow().get("task10"), instanceData.hosts().get("HostC")));
 
         SchedulePermutationSolution originalSolution = new SchedulePermutationSolution(1,2,null, plan,"makespan");
+        originalSolution.setCompiledInstance(PrecomputedInstance.of(instanceData).compiledInstance());
 
         //Create a calculator
 
         FitnessCalculator fitnessCalculator = new FitnessCalculatorSimple(instanceData);
 
-        Map<String, Map<String, Double>> computationMatrix = fitnessCalculator.calculateComputationMatrix(UnitParser.parseUnits("1Gf"));
+        Map<String, Map<String, Double>> computationMatrix = fitnessCalculator.getComputationMatrix();
 
-        Map<String, Map<String, Long>> networkMatrix = fitnessCalculator.calculateNetworkMatrix();
+        Map<String, Map<String, Long>> networkMatrix = fitnessCalculator.getNetworkMatrix();
 
         //Evaluate the original solution
 
@@ -168,6 +172,7 @@ public class LocalsearchEvaluatorTest {
                         new PlanPair(instanceData.workflow().get("task10"), instanceData.hosts().get("HostC")));
 
         SchedulePermutationSolution originalSolution = new SchedulePermutationSolution(1,2,null, plan,"makespan");
+        originalSolution.setCompiledInstance(PrecomputedInstance.of(instanceData).compiledInstance());
 
         //Create a calculator
 
@@ -232,6 +237,7 @@ public class LocalsearchEvaluatorTest {
                         new PlanPair(instanceData.workflow().get("task10"), instanceData.hosts().get("HostC")));
 
         SchedulePermutationSolution originalSolution = new SchedulePermutationSolution(1,2,null, plan,"makespan");
+        originalSolution.setCompiledInstance(PrecomputedInstance.of(instanceData).compiledInstance());
 
         //Create a calculator
 
@@ -274,4 +280,126 @@ public class LocalsearchEvaluatorTest {
         }
 
     }
+
+    @Test
+    void evaluateFromIncrementalSolutionTest() {
+
+        //Load data and create a new solution
+
+        InstanceData instanceData = loadNeighborhoodOperatorsTest();
+
+        List<PlanPair> plan =
+                List.of(
+                        new PlanPair(instanceData.workflow().get("task01"), instanceData.hosts().get("HostA")),
+                        new PlanPair(instanceData.workflow().get("task02"), instanceData.hosts().get("HostA")),
+                        new PlanPair(instanceData.workflow().get("task04"), instanceData.hosts().get("HostA")),
+                        new PlanPair(instanceData.workflow().get("task05"), instanceData.hosts().get("HostC")),
+                        new PlanPair(instanceData.workflow().get("task03"), instanceData.hosts().get("HostC")),
+                        new PlanPair(instanceData.workflow().get("task06"), instanceData.hosts().get("HostB")),
+                        new PlanPair(instanceData.workflow().get("task07"), instanceData.hosts().get("HostA")),
+                        new PlanPair(instanceData.workflow().get("task09"), instanceData.hosts().get("HostB")),
+                        new PlanPair(instanceData.workflow().get("task08"), instanceData.hosts().get("HostC")),
+                        new PlanPair(instanceData.workflow().get("task10"), instanceData.hosts().get("HostC")));
+
+        SchedulePermutationSolution originalSolution = new SchedulePermutationSolution(1,2,null, plan,"makespan");
+        originalSolution.setCompiledInstance(PrecomputedInstance.of(instanceData).compiledInstance());
+
+        FitnessCalculator fitnessCalculator = new FitnessCalculatorSimple(instanceData);
+
+        originalSolution.setFitnessInfo(fitnessCalculator.calculateFitness(originalSolution));
+
+        LocalsearchEvaluator localsearchEvaluator = new LocalsearchEvaluator(
+                fitnessCalculator.getComputationMatrix(), fitnessCalculator.getNetworkMatrix(), instanceData);
+
+        //Move to a neighbor evaluated by the local search evaluator and explore its own neighbors
+
+        GeneratedNeighbor first = new NeighborhoodChangeHostPositional(instanceData).execute(originalSolution, 3).get(0);
+
+        SchedulePermutationSolution currentSolution = first.generatedSolution();
+
+        localsearchEvaluator.evaluate(originalSolution, currentSolution, first.movements().get(0));
+
+        //Asserts
+
+        double currentSolutionMakespan = currentSolution.getFitnessInfo().fitness().get("makespan");
+
+        assertEquals(
+                fitnessCalculator.calculateFitness(currentSolution).fitness().get("makespan"),
+                currentSolutionMakespan,
+                1e-9
+        );
+
+        for(GeneratedNeighbor gn : new NeighborhoodSwapHostPositional().execute(currentSolution, 5)){
+
+            double generatedSolutionMakespan = fitnessCalculator.calculateFitness(gn.generatedSolution()).fitness().get("makespan");
+
+            double makespanDifference = localsearchEvaluator.computeMakespanEnhancement(currentSolution, gn.generatedSolution(), gn.movements().get(0));
+
+            assertEquals(
+                    currentSolutionMakespan - generatedSolutionMakespan,
+                    makespanDifference,
+                    1e-9
+            );
+
+            //A neighbor that can't beat its own makespan is discarded without fitness
+
+            assertFalse(localsearchEvaluator.evaluate(currentSolution, gn.generatedSolution(), gn.movements().get(0),
+                    generatedSolutionMakespan));
+        }
+
+    }
+
+    @Test
+    void evaluateNeighborThroughMovementTest() {
+
+        //Load data and create a new solution
+
+        InstanceData instanceData = loadNeighborhoodOperatorsTest();
+
+        List<PlanPair> plan =
+                List.of(
+                        new PlanPair(instanceData.workflow().get("task01"), instanceData.hosts().get("HostA")),
+                        new PlanPair(instanceData.workflow().get("task02"), instanceData.hosts().get("HostA")),
+                        new PlanPair(instanceData.workflow().get("task04"), instanceData.hosts().get("HostA")),
+                        new PlanPair(instanceData.workflow().get("task05"), instanceData.hosts().get("HostC")),
+                        new PlanPair(instanceData.workflow().get("task03"), instanceData.hosts().get("HostC")),
+                        new PlanPair(instanceData.workflow().get("task06"), instanceData.hosts().get("HostB")),
+                        new PlanPair(instanceData.workflow().get("task07"), instanceData.hosts().get("HostA")),
+                        new PlanPair(instanceData.workflow().get("task09"), instanceData.hosts().get("HostB")),
+                        new PlanPair(instanceData.workflow().get("task08"), instanceData.hosts().get("HostC")),
+                        new PlanPair(instanceData.workflow().get("task10"), instanceData.hosts().get("HostC")));
+
+        SchedulePermutationSolution originalSolution = new SchedulePermutationSolution(1,2,null, plan,"makespan");
+        originalSolution.setCompiledInstance(PrecomputedInstance.of(instanceData).compiledInstance());
+
+        FitnessCalculator fitnessCalculator = new FitnessCalculatorSimple(instanceData);
+
+        originalSolution.setFitnessInfo(fitnessCalculator.calculateFitness(originalSolution));
+
+        LocalsearchEvaluator localsearchEvaluator = new LocalsearchEvaluator(
+                fitnessCalculator.getComputationMatrix(), fitnessCalculator.getNetworkMatrix(), instanceData);
+
+        //The neighbors are evaluated before their plans are built, and the plans match the movements
+
+        List<GeneratedNeighbor> neighbors = new ArrayList<>();
+        neighbors.addAll(new NeighborhoodInsertionPositional().execute(originalSolution, 4));
+        neighbors.addAll(new NeighborhoodSwapPositional().execute(originalSolution, 6));
+        neighbors.addAll(new NeighborhoodSwapHostPositional().execute(originalSolution, 5));
+        neighbors.addAll(new NeighborhoodChangeHostPositional(instanceData).execute(originalSolution, 3));
+
+        for(GeneratedNeighbor gn : neighbors){
+
+            FitnessInfo fitnessInfo = localsearchEvaluator.evaluate(originalSolution, gn, Double.POSITIVE_INFINITY);
+
+            assertEquals(
+                    fitnessCalculator.calculateFitness(gn.generatedSolution()).fitness().get("makespan"),
+                    fitnessInfo.fitness().get("makespan"),
+                    1e-9
+            );
+
+            assertEquals(gn.movements().get(0).apply(plan), gn.generatedSolution().getPlan());
+        }
+
+    }
+
 }
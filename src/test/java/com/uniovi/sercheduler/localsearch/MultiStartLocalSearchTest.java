@@ -0,0 +1,135 @@
+package com.uniovi.sercheduler.localsearch;
+
+import com.uniovi.sercheduler.dto.InstanceData;
+import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
+import com.uniovi.sercheduler.jmetal.problem.SchedulingProblem;
+import com.uniovi.sercheduler.localsearch.algorithms.localsearchalgorithm.LocalSearchAlgorithm;
+import com.uniovi.sercheduler.localsearch.algorithms.localsearchcomponents.InitialSolutionGeneratorImpl;
+import com.uniovi.sercheduler.localsearch.algorithms.localsearchcomponents.NeighborGeneratorImpl;
+import com.uniovi.sercheduler.localsearch.algorithms.localsearchcomponents.UpgradeTermination;
+import com.uniovi.sercheduler.localsearch.algorithms.multistart.MultiStartLocalSearch;
+import com.uniovi.sercheduler.localsearch.algorithms.multistartcomponents.AllStartOperatorSelector;
+import com.uniovi.sercheduler.localsearch.algorithms.multistartcomponents.RandomStartOperatorSelector;
+import com.uniovi.sercheduler.localsearch.algorithms.multistartcomponents.StartOperatorSelector;
+import com.uniovi.sercheduler.localsearch.observer.EvolutionMetrics;
+import com.uniovi.sercheduler.localsearch.observer.LocalSearchObserver;
+import com.uniovi.sercheduler.localsearch.observer.RunMetrics;
+import com.uniovi.sercheduler.localsearch.operator.NeighborhoodChangeHostLazy;
+import com.uniovi.sercheduler.localsearch.operator.NeighborhoodOperatorLazy;
+import com.uniovi.sercheduler.localsearch.operator.NeighborhoodSwapLazy;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.loadMontageTest;
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.problem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MultiStartLocalSearchTest {
+
+    @Test
+    void concurrentStartsTest() {
+
+        InstanceData instanceData = loadMontageTest();
+        SchedulingProblem problem = problem(instanceData, "simple");
+
+        //With no time every worker runs a single start
+        MultiStartLocalSearch multiStartLocalSearch =
+                new MultiStartLocalSearch(new AllStartOperatorSelector(), 4, 1L);
+        LocalSearchObserver observer = new LocalSearchObserver("HC", "test", -1);
+
+        SchedulePermutationSolution best = multiStartLocalSearch.executeLazy(
+                factory(problem), operators(instanceData), 0L, observer);
+
+        //Asserts
+
+        assertEquals(1, observer.numberOfRuns());
+        RunMetrics run = observer.getRuns().get(0);
+        assertEquals(4, run.numberOfStarts());
+
+        double bestMakespan = best.getFitnessInfo().fitness().get("makespan");
+        assertEquals(bestMakespan, multiStartLocalSearch.incumbentMakespan());
+        assertEquals(bestMakespan, run.minStartsReachedMakespan());
+    }
+
+    @Test
+    void sampledEvolutionTest() {
+
+        InstanceData instanceData = loadMontageTest();
+        SchedulingProblem problem = problem(instanceData, "simple");
+
+        MultiStartLocalSearch multiStartLocalSearch =
+                new MultiStartLocalSearch(new AllStartOperatorSelector(), 2, 1L);
+        LocalSearchObserver observer = new LocalSearchObserver("HC", "test", 5);
+
+        SchedulePermutationSolution best = multiStartLocalSearch.executeLazy(
+                factory(problem), operators(instanceData), 500L, observer);
+
+        //Asserts
+
+        EvolutionMetrics evolution = observer.getRuns().get(0).evolutionMetrics();
+        List<Double> bestMakespans = evolution.getBestMakespanEvolution();
+        List<Long> neighbors = evolution.getAccNumberOfNeighborsList();
+
+        assertFalse(bestMakespans.isEmpty());
+        double bestMakespan = best.getFitnessInfo().fitness().get("makespan");
+        for(int i = 0; i < bestMakespans.size(); i++){
+            assertTrue(bestMakespans.get(i) >= bestMakespan);
+            if(i > 0){
+                assertTrue(bestMakespans.get(i) <= bestMakespans.get(i - 1));
+                assertTrue(neighbors.get(i) >= neighbors.get(i - 1));
+            }
+        }
+    }
+
+    @Test
+    void seededWorkersTest() {
+
+        InstanceData instanceData = loadMontageTest();
+        SchedulingProblem problem = problem(instanceData, "simple");
+
+        //The operators of each start are also chosen with the random generator of the worker
+        SchedulePermutationSolution first = new MultiStartLocalSearch(new RandomStartOperatorSelector(), 3, 7L)
+                .executeLazy(factory(problem), operators(instanceData), 0L,
+                        new LocalSearchObserver("HC", "test", -1));
+        SchedulePermutationSolution second = new MultiStartLocalSearch(new RandomStartOperatorSelector(), 3, 7L)
+                .executeLazy(factory(problem), operators(instanceData), 0L,
+                        new LocalSearchObserver("HC", "test", -1));
+
+        //Asserts
+
+        assertEquals(first.getPlan(), second.getPlan());
+        assertEquals(
+                first.getFitnessInfo().fitness().get("makespan"),
+                second.getFitnessInfo().fitness().get("makespan")
+        );
+    }
+
+    @Test
+    void workerSelectorTest() {
+
+        List<NeighborhoodOperatorLazy> operators = operators(loadMontageTest());
+
+        StartOperatorSelector first = new RandomStartOperatorSelector().withRandom(new Random(3L));
+        StartOperatorSelector second = new RandomStartOperatorSelector().withRandom(new Random(3L));
+
+        for(int i = 0; i < 10; i++)
+            assertEquals(first.selectOperatorsLazy(operators), second.selectOperatorsLazy(operators));
+    }
+
+    private static Function<Random, LocalSearchAlgorithm> factory(SchedulingProblem problem) {
+        return random -> new LocalSearchAlgorithm.Builder(problem)
+                .initialSolutionGenerator(new InitialSolutionGeneratorImpl(problem, random))
+                .neighborGenerator(new NeighborGeneratorImpl(random))
+                .terminationCriterion(new UpgradeTermination())
+                .build();
+    }
+
+    private static List<NeighborhoodOperatorLazy> operators(InstanceData instanceData) {
+        return List.of(new NeighborhoodChangeHostLazy(instanceData), new NeighborhoodSwapLazy());
+    }
+}
@@ -0,0 +1,115 @@
+package com.uniovi.sercheduler.localsearch;
+
+import com.uniovi.sercheduler.dto.InstanceData;
+import com.uniovi.sercheduler.jmetal.evaluation.EvaluationExecutor;
+import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
+import com.uniovi.sercheduler.localsearch.algorithms.localsearchcomponents.NeighborSelectorImpl;
+import com.uniovi.sercheduler.localsearch.algorithms.localsearchcomponents.UpgradeTermination;
+import com.uniovi.sercheduler.localsearch.evaluator.LocalsearchEvaluator;
+import com.uniovi.sercheduler.localsearch.observer.LocalSearchObserver;
+import com.uniovi.sercheduler.localsearch.operator.*;
+import com.uniovi.sercheduler.service.PlanGenerator;
+import com.uniovi.sercheduler.service.PlanPair;
+import com.uniovi.sercheduler.service.core.PrecomputedInstance;
+import com.uniovi.sercheduler.service.calculator.FitnessCalculator;
+import com.uniovi.sercheduler.service.calculator.FitnessCalculatorSimple;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.loadMontageTest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class NeighborSelectorTest {
+
+    @Test
+    void parallelSelectionTest() {
+
+        //Load data and create a new solution
+
+        InstanceData instanceData = loadMontageTest();
+
+        List<PlanPair> plan =
+                new PlanGenerator(new Random(1L), instanceData).generatePlan();
+
+        SchedulePermutationSolution originalSolution = new SchedulePermutationSolution(1, 2, null, plan, "makespan");
+        originalSolution.setCompiledInstance(PrecomputedInstance.of(instanceData).compiledInstance());
+
+        FitnessCalculator fitnessCalculator = new FitnessCalculatorSimple(instanceData);
+
+        originalSolution.setFitnessInfo(fitnessCalculator.calculateFitness(originalSolution));
+
+        LocalsearchEvaluator localsearchEvaluator = new LocalsearchEvaluator(
+                fitnessCalculator.getComputationMatrix(), fitnessCalculator.getNetworkMatrix(), instanceData);
+
+        List<GeneratedNeighbor> neighbors = new ArrayList<>();
+        neighbors.addAll(new NeighborhoodChangeHostGlobal(instanceData).execute(originalSolution));
+        neighbors.addAll(new NeighborhoodInsertionGlobal().execute(originalSolution));
+        neighbors.addAll(new NeighborhoodSwapGlobal().execute(originalSolution));
+
+        //Select the best neighbor in one thread and in several
+
+        RecordingObserver sequentialObserver = new RecordingObserver();
+        NeighborSelectorImpl sequentialSelector = new NeighborSelectorImpl();
+        SchedulePermutationSolution sequentialBest = sequentialSelector.selectBestNeighborGlobalAndUpdateObserver(
+                originalSolution, originalSolution, neighbors, localsearchEvaluator, new UpgradeTermination(),
+                sequentialObserver);
+
+        RecordingObserver parallelObserver = new RecordingObserver();
+        SchedulePermutationSolution parallelBest;
+        try(EvaluationExecutor executor = new EvaluationExecutor(4)){
+            NeighborSelectorImpl parallelSelector = new NeighborSelectorImpl(executor);
+            parallelBest = parallelSelector.selectBestNeighborGlobalAndUpdateObserver(
+                    originalSolution, originalSolution, neighbors, localsearchEvaluator, new UpgradeTermination(),
+                    parallelObserver);
+        }
+
+        //Asserts
+
+        assertEquals(sequentialBest.getPlan(), parallelBest.getPlan());
+        assertEquals(
+                sequentialBest.getFitnessInfo().fitness().get("makespan"),
+                parallelBest.getFitnessInfo().fitness().get("makespan")
+        );
+
+        assertEquals(sequentialObserver.numberOfGeneratedNeighbors, parallelObserver.numberOfGeneratedNeighbors);
+        assertEquals(sequentialObserver.betterNeighborsRatio, parallelObserver.betterNeighborsRatio);
+        assertEquals(sequentialObserver.allNeighborsImprovingRatio, parallelObserver.allNeighborsImprovingRatio);
+        assertEquals(sequentialObserver.betterNeighborsImprovingRatio, parallelObserver.betterNeighborsImprovingRatio);
+    }
+
+    private static class RecordingObserver extends LocalSearchObserver {
+
+        private int numberOfGeneratedNeighbors;
+        private double betterNeighborsRatio;
+        private double allNeighborsImprovingRatio;
+        private double betterNeighborsImprovingRatio;
+
+        RecordingObserver() {
+            super("GD", "N1uN2uN3", -1);
+            startRun(System.currentTimeMillis());
+        }
+
+        @Override
+        public void setNumberOfGeneratedNeighbors(int numberOfGeneratedNeighbors) {
+            this.numberOfGeneratedNeighbors = numberOfGeneratedNeighbors;
+        }
+
+        @Override
+        public void setBetterNeighborsRatio(double betterNeighborsRatio) {
+            this.betterNeighborsRatio = betterNeighborsRatio;
+        }
+
+        @Override
+        public void setAllNeighborsImprovingRatio(double allNeighborsImprovingRatio) {
+            this.allNeighborsImprovingRatio = allNeighborsImprovingRatio;
+        }
+
+        @Override
+        public void setBetterNeighborsImprovingRatio(double betterNeighborsImprovingRatio) {
+            this.betterNeighborsImprovingRatio = betterNeighborsImprovingRatio;
+        }
+    }
+}
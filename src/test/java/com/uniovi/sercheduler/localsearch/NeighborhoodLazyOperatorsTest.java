@@ -4,6 +4,7 @@ import com.uniovi.sercheduler.dto.InstanceData;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.localsearch.operator.*;
 import com.uniovi.sercheduler.service.PlanPair;
+import com.uniovi.sercheduler.service.core.PrecomputedInstance;
 import org.jline.terminal.TerminalBuilder;
 import org.junit.jupiter.api.Test;
 
@@ -35,6 +36,7 @@ public class NeighborhoodLazyOperatorsTest {
                         new PlanPair(instanceData.workflow().get("task10"), instanceData.hosts().get("HostC")));
 
         SchedulePermutationSolution originalSolution = new SchedulePermutationSolution(0, 0, null, plan, "");
+        originalSolution.setCompiledInstance(PrecomputedInstance.of(instanceData).compiledInstance());
 
         List<GeneratedNeighbor> generatedNeighbors = new NeighborhoodSwapGlobal().execute(originalSolution);
 
@@ -73,6 +75,7 @@ public class NeighborhoodLazyOperatorsTest {
                         new PlanPair(instanceData.workflow().get("task10"), instanceData.hosts().get("HostC")));
 
         SchedulePermutationSolution originalSolution = new SchedulePermutationSolution(0, 0, null, plan, "");
+        originalSolution.setCompiledInstance(PrecomputedInstance.of(instanceData).compiledInstance());
 
         List<GeneratedNeighbor> generatedNeighbors = new NeighborhoodInsertionGlobal().execute(originalSolution);
 
@@ -111,6 +114,7 @@ public class NeighborhoodLazyOperatorsTest {
                         new PlanPair(instanceData.workflow().get("task10"), instanceData.hosts().get("HostC")));
 
         SchedulePermutationSolution originalSolution = new SchedulePermutationSolution(0, 0, null, plan, "");
+        originalSolution.setCompiledInstance(PrecomputedInstance.of(instanceData).compiledInstance());
 
         List<GeneratedNeighbor> generatedNeighbors = new NeighborhoodChangeHostGlobal(instanceData).execute(originalSolution);
 
@@ -149,6 +153,7 @@ public class NeighborhoodLazyOperatorsTest {
                         new PlanPair(instanceData.workflow().get("task10"), instanceData.hosts().get("HostC")));
 
         SchedulePermutationSolution originalSolution = new SchedulePermutationSolution(0, 0, null, plan, "");
+        originalSolution.setCompiledInstance(PrecomputedInstance.of(instanceData).compiledInstance());
 
         List<GeneratedNeighbor> generatedNeighbors = new NeighborhoodSwapHostGlobal().execute(originalSolution);
 
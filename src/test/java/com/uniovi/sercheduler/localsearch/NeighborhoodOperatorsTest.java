@@ -4,6 +4,7 @@ import com.uniovi.sercheduler.dto.InstanceData;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.localsearch.operator.*;
 import com.uniovi.sercheduler.service.PlanPair;
+import com.uniovi.sercheduler.service.core.PrecomputedInstance;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
@@ -35,6 +36,7 @@ public class NeighborhoodOperatorsTest {
                         new PlanPair(instanceData.workflow().get("task10"), instanceData.hosts().get("HostC")));
 
         SchedulePermutationSolution originalSolution = new SchedulePermutationSolution(0, 0, null, plan, "");
+        originalSolution.setCompiledInstance(PrecomputedInstance.of(instanceData).compiledInstance());
 
         List<List<PlanPair>> expectedPlans = new ArrayList<>();
 
@@ -159,6 +161,7 @@ public class NeighborhoodOperatorsTest {
                         new PlanPair(instanceData.workflow().get("task10"), instanceData.hosts().get("HostC")));
 
         SchedulePermutationSolution originalSolution = new SchedulePermutationSolution(0, 0, null, plan, "");
+        originalSolution.setCompiledInstance(PrecomputedInstance.of(instanceData).compiledInstance());
 
         List<List<PlanPair>> expectedPlans = new ArrayList<>();
 
@@ -283,6 +286,7 @@ public class NeighborhoodOperatorsTest {
                         new PlanPair(instanceData.workflow().get("task10"), instanceData.hosts().get("HostC")));
 
         SchedulePermutationSolution originalSolution = new SchedulePermutationSolution(0, 0, null, plan, "");
+        originalSolution.setCompiledInstance(PrecomputedInstance.of(instanceData).compiledInstance());
 
         List<List<PlanPair>> expectedPlans = new ArrayList<>();
 
@@ -347,6 +351,7 @@ public class NeighborhoodOperatorsTest {
                         new PlanPair(instanceData.workflow().get("task10"), instanceData.hosts().get("HostC")));
 
         SchedulePermutationSolution originalSolution = new SchedulePermutationSolution(0, 0, null, plan, "");
+        originalSolution.setCompiledInstance(PrecomputedInstance.of(instanceData).compiledInstance());
 
         List<List<PlanPair>> expectedPlans = new ArrayList<>();
 
@@ -7,6 +7,7 @@ import com.uniovi.sercheduler.localsearch.operator.NeighborhoodSwapGlobal;
 import com.uniovi.sercheduler.localsearch.operator.NeighborhoodSwapLazy;
 import com.uniovi.sercheduler.localsearch.operator.NeighborhoodSwapPositional;
 import com.uniovi.sercheduler.service.PlanPair;
+import com.uniovi.sercheduler.service.core.PrecomputedInstance;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
@@ -34,6 +35,7 @@ public class SpecificSwapOperatorsTest {
                         new PlanPair(instanceData.workflow().get("task05"), instanceData.hosts().get("HostA")));
 
         SchedulePermutationSolution originalSolution = new SchedulePermutationSolution(0, 0, null, plan, "");
+        originalSolution.setCompiledInstance(PrecomputedInstance.of(instanceData).compiledInstance());
 
         List<List<PlanPair>> expectedPlans = new ArrayList<>();
 
@@ -77,6 +79,7 @@ public class SpecificSwapOperatorsTest {
                         new PlanPair(instanceData.workflow().get("task05"), instanceData.hosts().get("HostA")));
 
         SchedulePermutationSolution originalSolution = new SchedulePermutationSolution(0, 0, null, plan, "");
+        originalSolution.setCompiledInstance(PrecomputedInstance.of(instanceData).compiledInstance());
 
         List<GeneratedNeighbor> generatedNeighbors = new NeighborhoodSwapGlobal().execute(originalSolution);
 
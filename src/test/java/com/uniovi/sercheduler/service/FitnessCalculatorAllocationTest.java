@@ -0,0 +1,73 @@
+package com.uniovi.sercheduler.service;
+
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.loadMontageTest;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.uniovi.sercheduler.dto.InstanceData;
+import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
+import com.uniovi.sercheduler.service.calculator.FitnessCalculator;
+import com.uniovi.sercheduler.service.calculator.FitnessCalculatorSimple;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures the bytes allocated by each evaluation. The detailed numbers can be obtained with {@link
+ * FitnessCalculatorBenchmark} and the gc profiler.
+ */
+class FitnessCalculatorAllocationTest {
+
+  private static final int EVALUATIONS = 2000;
+
+  @Test
+  void simpleDoesNotAllocateWhileScheduling() {
+    InstanceData instanceData = loadMontageTest();
+    var calculator = new FitnessCalculatorSimple(instanceData);
+
+    double bytesPerTask =
+        bytesPerEvaluation(calculator, instanceData) / instanceData.workflow().size();
+
+    // The only memory left per task is the raw copy of the schedule, it isn't sorted nor turned
+    // into objects unless it's requested.
+    assertTrue(bytesPerTask < 48, "Allocated " + bytesPerTask + " bytes per task");
+  }
+
+  @Test
+  void heuristicsDoNotAllocatePerHost() {
+    InstanceData instanceData = loadMontageTest();
+
+    // Without insertion, the gaps of the active scheduling allocate their own nodes
+    for (var fitness :
+        List.of("heft-energy-semi-active", "min-energy-UM-semi-active", "fvlt-me-semi-active")) {
+      var calculator = FitnessCalculator.getFitness(fitness, instanceData, new ArrayList<>());
+
+      double bytesPerTask =
+          bytesPerEvaluation(calculator, instanceData) / instanceData.workflow().size();
+
+      // Every host is evaluated into the scratch buffers, so the cost doesn't grow with the hosts
+      assertTrue(bytesPerTask < 48, fitness + " allocated " + bytesPerTask + " bytes per task");
+    }
+  }
+
+  static double bytesPerEvaluation(FitnessCalculator calculator, InstanceData instanceData) {
+    var threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    var plan = new PlanGenerator(new Random(1L), instanceData).generatePlan();
+    var solution = new SchedulePermutationSolution(plan.size(), 2, null, plan, "makespan");
+
+    // Warm up so the thread buffers and the JIT are ready.
+    for (int i = 0; i < EVALUATIONS; i++) {
+      calculator.calculateFitness(solution);
+    }
+
+    long threadId = Thread.currentThread().getId();
+    long before = threadBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < EVALUATIONS; i++) {
+      calculator.calculateFitness(solution);
+    }
+    long after = threadBean.getThreadAllocatedBytes(threadId);
+
+    return (after - before) / (double) EVALUATIONS;
+  }
+}
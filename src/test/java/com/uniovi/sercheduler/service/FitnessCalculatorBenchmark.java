@@ -0,0 +1,67 @@
+package com.uniovi.sercheduler.service;
+
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.loadMontageTest;
+
+import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
+import com.uniovi.sercheduler.service.calculator.FitnessCalculator;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark of a single evaluation of montage with 16 hosts.
+ *
+ * <p>Run the main method to get the time and the bytes allocated per evaluation, reported by the gc
+ * profiler as {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FitnessCalculatorBenchmark {
+
+  @Param({"simple", "heft", "min-energy-UM-active", "fvlt-me-active"})
+  public String fitness;
+
+  private FitnessCalculator calculator;
+  private SchedulePermutationSolution solution;
+
+  @Setup
+  public void setUp() {
+    var instanceData = loadMontageTest();
+    calculator = FitnessCalculator.getFitness(fitness, instanceData, new ArrayList<>());
+    var plan = new PlanGenerator(new Random(1L), instanceData).generatePlan();
+    solution = new SchedulePermutationSolution(plan.size(), 2, null, plan, "makespan");
+  }
+
+  @Benchmark
+  public FitnessInfo evaluate() {
+    return calculator.calculateFitness(solution);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(FitnessCalculatorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+        .run();
+  }
+}
@@ -2,12 +2,16 @@ package com.uniovi.sercheduler.service;
 
 import static com.uniovi.sercheduler.util.LoadTestInstanceData.loadCalculatorTest;
 import static com.uniovi.sercheduler.util.LoadTestInstanceData.loadFitnessTest;
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.loadMontageTest;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.uniovi.sercheduler.dto.Host;
 import com.uniovi.sercheduler.dto.InstanceData;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.service.calculator.*;
+import com.uniovi.sercheduler.service.core.CandidateHosts;
+import com.uniovi.sercheduler.service.core.PrecomputedInstance;
 import com.uniovi.sercheduler.util.UnitParser;
 import java.io.IOException;
 import java.util.*;
@@ -62,6 +66,52 @@ public class FitnessCalculatorTest {
   }
 
 
+  @Test
+  void CalculateFitnessSimpleBounded() {
+
+    InstanceData instanceData = loadFitnessTest();
+    FitnessCalculator fitnessCalculator = new FitnessCalculatorSimple(instanceData);
+
+    List<PlanPair> plan =
+        List.of(
+            new PlanPair(instanceData.workflow().get("task01"), instanceData.hosts().get("HostA")),
+            new PlanPair(instanceData.workflow().get("task04"), instanceData.hosts().get("HostA")),
+            new PlanPair(instanceData.workflow().get("task03"), instanceData.hosts().get("HostB")),
+            new PlanPair(instanceData.workflow().get("task02"), instanceData.hosts().get("HostC")),
+            new PlanPair(instanceData.workflow().get("task05"), instanceData.hosts().get("HostA")),
+            new PlanPair(instanceData.workflow().get("task06"), instanceData.hosts().get("HostB")),
+            new PlanPair(instanceData.workflow().get("task07"), instanceData.hosts().get("HostC")),
+            new PlanPair(instanceData.workflow().get("task09"), instanceData.hosts().get("HostA")),
+            new PlanPair(instanceData.workflow().get("task08"), instanceData.hosts().get("HostB")),
+            new PlanPair(instanceData.workflow().get("task10"), instanceData.hosts().get("HostC")));
+
+    var solution = new SchedulePermutationSolution(1, 2, null, plan, "makespan");
+
+    // The makespan is 210, it can beat 211 but not 210 or any lower bound
+    var better = fitnessCalculator.calculateFitness(solution, 211D);
+    assertTrue(better.isPresent());
+    assertEquals(210D, better.get().fitness().get("makespan"));
+    assertTrue(fitnessCalculator.calculateFitness(solution, 210D).isEmpty());
+    assertTrue(fitnessCalculator.calculateFitness(solution, 100D).isEmpty());
+
+    // Aborted evaluations don't affect the next ones
+    assertEquals(210D, fitnessCalculator.calculateFitness(solution).fitness().get("makespan"));
+  }
+
+  @Test
+  void CalculateFitnessHeftBounded() {
+
+    InstanceData instanceData = loadFitnessTest();
+    FitnessCalculator fitnessCalculator = new FitnessCalculatorHeft(instanceData);
+    var plan = new PlanGenerator(new Random(1L), instanceData).generatePlan();
+    var solution = new SchedulePermutationSolution(1, 2, null, plan, "makespan");
+
+    double makespan = fitnessCalculator.calculateFitness(solution).fitness().get("makespan");
+
+    assertTrue(fitnessCalculator.calculateFitness(solution, makespan + 1).isPresent());
+    assertTrue(fitnessCalculator.calculateFitness(solution, makespan).isEmpty());
+  }
+
   @Test
   void CalculateFitnessSimpleCheck() {
 
@@ -194,7 +244,211 @@ public class FitnessCalculatorTest {
     assertEquals(209D, result.fitness().get("makespan"));
   }
 
+  @Test
+  void CalculateFitnessMultiSharedBound() {
+
+    InstanceData instanceData = loadMontageTest();
+    List<FitnessCalculator> calculators =
+        List.of(
+            new FitnessCalculatorSimple(instanceData),
+            new FitnessCalculatorHeft(instanceData),
+            new FitnessCalculatorRank(instanceData));
+    FitnessCalculator fitnessCalculator =
+        new FitnessCalculatorMulti(
+            instanceData, calculators, Collections.emptyList(), new ArrayList<>());
+    var generator = new PlanGenerator(new Random(2L), instanceData);
+
+    for (int i = 0; i < 100; i++) {
+      var plan = generator.generatePlan();
+
+      // The first calculator with the lowest makespan wins
+      FitnessInfo expected = null;
+      for (var calculator : calculators) {
+        var fitness =
+            calculator.calculateFitness(
+                new SchedulePermutationSolution(1, 2, null, plan, "makespan"));
+        if (expected == null
+            || fitness.fitness().get("makespan") < expected.fitness().get("makespan")) {
+          expected = fitness;
+        }
+      }
+
+      var solution = new SchedulePermutationSolution(1, 2, null, plan, "makespan");
+      var result = fitnessCalculator.calculateFitness(solution);
+      double makespan = result.fitness().get("makespan");
+
+      assertEquals(expected.fitness(), result.fitness());
+      assertEquals(expected.fitnessFunction(), result.fitnessFunction());
+      assertEquals(expected.fitnessFunction(), solution.getMultiResult().fitness());
+      // The rank calculator replaces the plan of the solution
+      assertTrue(
+          fitnessCalculator
+              .calculateFitness(
+                  new SchedulePermutationSolution(1, 2, null, plan, "makespan"), makespan + 1)
+              .isPresent());
+      assertTrue(
+          fitnessCalculator
+              .calculateFitness(
+                  new SchedulePermutationSolution(1, 2, null, plan, "makespan"), makespan)
+              .isEmpty());
+    }
+  }
+
+  @Test
+  void CalculateFitnessMultiSharedBoundConcurrent() {
+
+    InstanceData instanceData = loadMontageTest();
+    List<FitnessCalculator> calculators =
+        List.of(
+            new FitnessCalculatorSimple(instanceData),
+            new FitnessCalculatorHeft(instanceData),
+            new FitnessCalculatorRank(instanceData));
+    var sequentialCalculator =
+        new FitnessCalculatorMulti(
+            instanceData,
+            calculators,
+            Collections.emptyList(),
+            "none",
+            new ArrayList<>(),
+            Integer.MAX_VALUE);
+    // The montage workflow is small, the calculators only run concurrently when forced
+    var concurrentCalculator =
+        new FitnessCalculatorMulti(
+            instanceData,
+            calculators,
+            Collections.emptyList(),
+            "none",
+            new ArrayList<>(),
+            0);
+    var generator = new PlanGenerator(new Random(3L), instanceData);
+
+    for (int i = 0; i < 100; i++) {
+      var plan = generator.generatePlan();
+
+      var sequential = new SchedulePermutationSolution(1, 2, null, plan, "makespan");
+      var expected = sequentialCalculator.calculateFitness(sequential);
+      var concurrent = new SchedulePermutationSolution(1, 2, null, plan, "makespan");
+      var result = concurrentCalculator.calculateFitness(concurrent);
+
+      assertEquals(expected.fitness(), result.fitness());
+      assertEquals(expected.fitnessFunction(), result.fitnessFunction());
+      assertEquals(sequential.getMultiResult(), concurrent.getMultiResult());
+      // The plan replaced by the rank calculator is copied back from its view
+      assertEquals(sequential.getPlan(), concurrent.getPlan());
+
+      double makespan = expected.fitness().get("makespan");
+      assertEquals(
+          expected.fitness(),
+          concurrentCalculator
+              .calculateFitness(
+                  new SchedulePermutationSolution(1, 2, null, plan, "makespan"), makespan + 1)
+              .orElseThrow()
+              .fitness());
+      assertTrue(
+          concurrentCalculator
+              .calculateFitness(
+                  new SchedulePermutationSolution(1, 2, null, plan, "makespan"), makespan)
+              .isEmpty());
+    }
+  }
 
+  @Test
+  void CalculateFitnessMultiBothArbitersConcurrent() {
 
+    InstanceData instanceData = loadMontageTest();
+    // The simple calculator is shared, so it only runs once per plan
+    var simple = new FitnessCalculatorSimple(instanceData);
+    List<FitnessCalculator> makespanCalculators =
+        List.of(
+            simple, new FitnessCalculatorHeft(instanceData), new FitnessCalculatorRank(instanceData));
+    List<FitnessCalculator> energyCalculators =
+        List.of(
+            simple,
+            new FitnessCalculatorMinEnergyUM(instanceData, "active"),
+            new FitnessCalculatorFastVirtualMachineForLargeTasks(instanceData, "active"));
+    var sequentialCalculator =
+        new FitnessCalculatorMulti(
+            instanceData,
+            makespanCalculators,
+            energyCalculators,
+            "none",
+            new ArrayList<>(),
+            Integer.MAX_VALUE);
+    // The montage workflow is small, the calculators only run concurrently when forced
+    var concurrentCalculator =
+        new FitnessCalculatorMulti(
+            instanceData,
+            makespanCalculators,
+            energyCalculators,
+            "none",
+            new ArrayList<>(),
+            0);
+    var generator = new PlanGenerator(new Random(5L), instanceData);
+
+    for (int i = 0; i < 50; i++) {
+      var plan = generator.generatePlan();
+
+      var makespanSolution = new SchedulePermutationSolution(1, 2, null, plan, "makespan");
+      var energySolution = new SchedulePermutationSolution(1, 2, null, plan, "energy");
+      var expectedMakespan = sequentialCalculator.calculateFitness(makespanSolution);
+      var expectedEnergy = sequentialCalculator.calculateFitness(energySolution);
+
+      var solution = new SchedulePermutationSolution(1, 2, null, plan, "makespan");
+      var alternative = new SchedulePermutationSolution(1, 2, null, plan, "energy");
+      var result = concurrentCalculator.calculateFitness(solution, alternative);
+
+      assertEquals(expectedMakespan.fitness(), result[0].fitness());
+      assertEquals(expectedMakespan.fitnessFunction(), result[0].fitnessFunction());
+      assertEquals(makespanSolution.getMultiResult(), solution.getMultiResult());
+      assertEquals(expectedEnergy.fitness(), result[1].fitness());
+      assertEquals(expectedEnergy.fitnessFunction(), result[1].fitnessFunction());
+      assertEquals(energySolution.getMultiResult(), alternative.getMultiResult());
+    }
+  }
 
+  @Test
+  void CalculateFitnessWithCandidateHosts() {
+
+    InstanceData instanceData = loadMontageTest();
+    var compiled = PrecomputedInstance.of(instanceData).compiledInstance();
+    int hostCount = instanceData.hosts().size();
+    var candidateHosts = CandidateHosts.topK(compiled, 2, false);
+    var random = new Random(1L);
+
+    for (int i = 0; i < 20; i++) {
+      var plan = new PlanGenerator(random, instanceData).generatePlan();
+
+      // Enough candidates behave like the calculators without them
+      assertEquals(
+          new FitnessCalculatorHeft(instanceData)
+              .calculateFitness(new SchedulePermutationSolution(1, 2, null, plan, "makespan"))
+              .fitness(),
+          new FitnessCalculatorHeft(instanceData, hostCount, true)
+              .calculateFitness(new SchedulePermutationSolution(1, 2, null, plan, "makespan"))
+              .fitness());
+      assertEquals(
+          new FitnessCalculatorMinEnergyUM(instanceData, "active")
+              .calculateFitness(new SchedulePermutationSolution(1, 2, null, plan, "makespan"))
+              .fitness(),
+          new FitnessCalculatorMinEnergyUM(instanceData, "active", hostCount, true)
+              .calculateFitness(new SchedulePermutationSolution(1, 2, null, plan, "makespan"))
+              .fitness());
+
+      // Without fallback every task runs in one of its candidates
+      for (var calculator :
+          List.of(
+              new FitnessCalculatorHeft(instanceData, 2, false),
+              new FitnessCalculatorMinEnergyUM(instanceData, "active", 2, false))) {
+        var schedule =
+            calculator
+                .calculateFitness(new SchedulePermutationSolution(1, 2, null, plan, "makespan"))
+                .schedule();
+        for (var taskSchedule : schedule) {
+          int host = compiled.hostOrdinal(taskSchedule.host());
+          int[] hosts = candidateHosts.hosts(compiled.taskOrdinal(taskSchedule.task()));
+          assertTrue(Arrays.stream(hosts).anyMatch(h -> h == host));
+        }
+      }
+    }
+  }
 }
@@ -0,0 +1,54 @@
+package com.uniovi.sercheduler.service;
+
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.loadFitnessTest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.uniovi.sercheduler.dto.InstanceData;
+import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
+import com.uniovi.sercheduler.service.calculator.FitnessCalculatorHeft;
+import com.uniovi.sercheduler.service.calculator.FitnessCalculatorSimple;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class FitnessInfoTest {
+
+  @Test
+  void lazyScheduleIsOrderedByAst() {
+    InstanceData instanceData = loadFitnessTest();
+    var plan = new PlanGenerator(new Random(1L), instanceData).generatePlan();
+
+    var solution = new SchedulePermutationSolution(plan.size(), 2, null, plan, "makespan");
+
+    var fitnessInfo = new FitnessCalculatorSimple(instanceData).calculateFitness(solution);
+
+    var schedule = fitnessInfo.schedule();
+    assertEquals(plan.size(), schedule.size());
+    for (int i = 1; i < schedule.size(); i++) {
+      assertTrue(schedule.get(i - 1).ast() <= schedule.get(i).ast());
+    }
+    assertEquals(
+        schedule.stream().map(s -> new PlanPair(s.task(), s.host())).toList(),
+        fitnessInfo.orderedPlan());
+  }
+
+  @Test
+  void orderedPlanDoesNotNeedTheSchedule() {
+    InstanceData instanceData = loadFitnessTest();
+    var plan = new PlanGenerator(new Random(2L), instanceData).generatePlan();
+    var calculator = new FitnessCalculatorHeft(instanceData);
+
+    var first =
+        calculator.calculateFitness(
+            new SchedulePermutationSolution(plan.size(), 2, null, plan, "makespan"));
+    var second =
+        calculator.calculateFitness(
+            new SchedulePermutationSolution(plan.size(), 2, null, plan, "makespan"));
+
+    // The plan is read before the schedule is built in the first one.
+    var orderedPlan = first.orderedPlan();
+    assertEquals(second.schedule().size(), orderedPlan.size());
+    assertEquals(second.orderedPlan(), orderedPlan);
+    assertEquals(second, first.copy());
+  }
+}
@@ -0,0 +1,123 @@
+package com.uniovi.sercheduler.service;
+
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.loadFitnessTest;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.uniovi.sercheduler.dto.InstanceData;
+import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
+import com.uniovi.sercheduler.service.core.CompiledInstance;
+import com.uniovi.sercheduler.service.core.PrecomputedInstance;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class PlanPositionsTest {
+
+  @Test
+  void positionsMatchThePlan() {
+    InstanceData instanceData = loadFitnessTest();
+    var plan = new PlanGenerator(new Random(1L), instanceData).generatePlan();
+
+    assertMatches(plan, PlanPositions.of(compiled(instanceData), plan));
+  }
+
+  @Test
+  void derivedPositionsMatchTheNewPlan() {
+    InstanceData instanceData = loadFitnessTest();
+    var random = new Random(2L);
+    var plan = new PlanGenerator(random, instanceData).generatePlan();
+    var positions = PlanPositions.of(compiled(instanceData), plan);
+
+    for (int i = 0; i < 50; i++) {
+      int position = random.nextInt(plan.size());
+      int[] validPositions = positions.validPositions(position);
+      int newPosition = validPositions[random.nextInt(validPositions.length)];
+
+      var newPlan = new ArrayList<>(plan);
+      if (i % 2 == 0) {
+        newPlan.add(newPosition, newPlan.remove(position));
+        positions = positions.move(position, newPosition);
+      } else if (positions.isValidPosition(newPosition, position)) {
+        newPlan.set(position, plan.get(newPosition));
+        newPlan.set(newPosition, plan.get(position));
+        positions = positions.swap(position, newPosition);
+      }
+      plan = List.copyOf(newPlan);
+
+      assertMatches(plan, positions);
+    }
+  }
+
+  @Test
+  void reindexedAfterTheFullRangeIsMoved() {
+    InstanceData instanceData = loadFitnessTest();
+    var plan = new PlanGenerator(new Random(3L), instanceData).generatePlan();
+    var positions = PlanPositions.of(compiled(instanceData), plan);
+
+    // Moving the last valid position to the first one goes through every chunk in between
+    int position = plan.size() - 1;
+    int first = positions.validPositions(position)[0];
+    var newPlan = new ArrayList<>(plan);
+    newPlan.add(first, newPlan.remove(position));
+
+    assertMatches(List.copyOf(newPlan), positions.move(position, first));
+    assertMatches(plan, positions);
+  }
+
+  @Test
+  void solutionIsIndexedWithItsInstance() {
+    InstanceData instanceData = loadFitnessTest();
+    var plan = new PlanGenerator(new Random(4L), instanceData).generatePlan();
+    var solution = new SchedulePermutationSolution(plan.size(), 2, null, plan, "makespan");
+
+    assertThrows(IllegalStateException.class, solution::getPlanPositions);
+
+    solution.setCompiledInstance(compiled(instanceData));
+    assertMatches(plan, solution.getPlanPositions());
+
+    // A new plan keeps the instance of the solution
+    var newPlan = new ArrayList<>(plan);
+    Collections.reverse(newPlan);
+    solution.setPlan(newPlan);
+    assertEquals(plan.size() - 1, solution.getPlanPositions().position(plan.get(0).task()));
+  }
+
+  private static CompiledInstance compiled(InstanceData instanceData) {
+    return PrecomputedInstance.of(instanceData).compiledInstance();
+  }
+
+  private static void assertMatches(List<PlanPair> plan, PlanPositions positions) {
+    for (int position = 0; position < plan.size(); position++) {
+      var task = plan.get(position).task();
+      assertEquals(position, positions.position(task));
+      assertArrayEquals(
+          IntStream.range(0, plan.size())
+              .filter(p -> task.getParents().contains(plan.get(p).task()))
+              .toArray(),
+          positions.parentsPositions(position));
+      assertArrayEquals(
+          IntStream.range(0, plan.size())
+              .filter(p -> task.getChildren().contains(plan.get(p).task()))
+              .toArray(),
+          positions.childrenPositions(position));
+
+      int lastParent = position - 1;
+      while (lastParent >= 0 && !task.getParents().contains(plan.get(lastParent).task())) {
+        lastParent--;
+      }
+      int firstChild = position + 1;
+      while (firstChild < plan.size()
+          && !task.getChildren().contains(plan.get(firstChild).task())) {
+        firstChild++;
+      }
+      assertArrayEquals(
+          IntStream.range(lastParent + 1, firstChild).toArray(),
+          positions.validPositions(position));
+    }
+  }
+}
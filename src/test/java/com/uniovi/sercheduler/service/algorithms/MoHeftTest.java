@@ -5,12 +5,21 @@ import com.uniovi.sercheduler.dto.InstanceData;
 import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
 import com.uniovi.sercheduler.util.NonDominatedChecker;
 import org.junit.jupiter.api.Test;
+import org.uma.jmetal.util.ranking.impl.FastNonDominatedSortRanking;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
 
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.loadCalculatorTest;
 import static com.uniovi.sercheduler.util.LoadTestInstanceData.loadFitnessTest;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class MoHeftTest {
@@ -49,6 +58,60 @@ class MoHeftTest {
 
     }
 
+    @Test
+    void firstFrontMatchesJMetalRanking() {
+        Random random = new Random(1L);
+
+        for (int round = 0; round < 200; round++) {
+            int size = 1 + random.nextInt(60);
+            double[] energies = new double[size];
+            double[] makespans = new double[size];
+            List<SchedulePermutationSolution> solutions = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                // Few different values so there are ties and duplicates
+                energies[i] = random.nextInt(8);
+                makespans[i] = random.nextInt(8);
+                var solution = new SchedulePermutationSolution(1, 2, null, List.of(), "energy");
+                solution.objectives()[0] = energies[i];
+                solution.objectives()[1] = makespans[i];
+                solutions.add(solution);
+            }
+
+            var ranking = new FastNonDominatedSortRanking<SchedulePermutationSolution>();
+            ranking.compute(solutions);
+            // The solutions are equal for equals(), so they are found by identity
+            var front = ranking.getSubFront(0);
+            int[] expected =
+                    IntStream.range(0, size)
+                            .filter(i -> front.stream().anyMatch(s -> s == solutions.get(i)))
+                            .toArray();
+
+            assertArrayEquals(expected, MoHeft.firstFront(energies, makespans));
+        }
+    }
+
+    @Test
+    void firstFrontWithoutEnergy() {
+        // Instances without energy costs have NaN energies, only the makespan decides
+        double[] energies = {Double.NaN, Double.NaN, Double.NaN, Double.NaN};
+        double[] makespans = {12D, 10D, 11D, 10D};
+
+        assertArrayEquals(new int[] {1, 3}, MoHeft.firstFront(energies, makespans));
+    }
+
+    @Test
+    void calculateMoHeftWithoutEnergy() {
+        // The hosts of this instance don't define their energy costs
+        InstanceData instanceData = loadCalculatorTest();
+
+        MoHeft moHeft = new MoHeft(instanceData);
+
+        var solutions = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> moHeft.calculate(10));
+
+        assertFalse(solutions.isEmpty());
+        assertTrue(solutions.stream().allMatch(s -> Double.isNaN(s.objectives()[0])));
+    }
+
 
 
 
@@ -0,0 +1,58 @@
+package com.uniovi.sercheduler.service.core;
+
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.loadMontageTest;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class CandidateHostsTest {
+
+  @Test
+  void candidatesContainTheFastestAndMostEfficientHosts() {
+    var compiled = CompiledInstance.compile(loadMontageTest());
+    int k = 2;
+    var candidateHosts = CandidateHosts.topK(compiled, k, true);
+
+    for (int t = 0; t < compiled.taskCount(); t++) {
+      int[] hosts = candidateHosts.hosts(t);
+      assertTrue(hosts.length >= k && hosts.length <= 2 * k);
+      assertArrayEquals(IntStream.of(hosts).sorted().distinct().toArray(), hosts);
+      assertTrue(candidateHosts.canFallBack(t));
+
+      int task = t;
+      double[] time =
+          IntStream.range(0, compiled.hostCount())
+              .mapToDouble(
+                  h ->
+                      compiled.stagingBits(task) / (double) compiled.diskSpeed(h)
+                          + compiled.outputBits(task) / (double) compiled.diskSpeed(h)
+                          + compiled.computation(task, h))
+              .toArray();
+      double fastest = Arrays.stream(time).min().orElseThrow();
+      double lowestEnergy =
+          IntStream.range(0, compiled.hostCount())
+              .mapToDouble(h -> time[h] * compiled.energyCost(h))
+              .min()
+              .orElseThrow();
+
+      assertTrue(IntStream.of(hosts).anyMatch(h -> time[h] == fastest));
+      assertTrue(
+          IntStream.of(hosts).anyMatch(h -> time[h] * compiled.energyCost(h) == lowestEnergy));
+    }
+  }
+
+  @Test
+  void enoughCandidatesConsiderEveryHost() {
+    var compiled = CompiledInstance.compile(loadMontageTest());
+    var candidateHosts = CandidateHosts.topK(compiled, compiled.hostCount(), true);
+
+    for (int t = 0; t < compiled.taskCount(); t++) {
+      assertArrayEquals(candidateHosts.allHosts(), candidateHosts.hosts(t));
+      assertFalse(candidateHosts.canFallBack(t));
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.uniovi.sercheduler.service.core;
+
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.loadCalculatorTest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.uniovi.sercheduler.dto.InstanceData;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class CompiledInstanceTest {
+
+  @Test
+  void compiledMatricesMatchTheMaps() {
+    InstanceData instanceData = loadCalculatorTest();
+    var computationMatrix =
+        SchedulingHelper.calculateComputationMatrix(instanceData, instanceData.referenceFlops());
+    var networkMatrix = SchedulingHelper.calculateNetworkMatrix(instanceData);
+
+    var compiled = CompiledInstance.compile(instanceData, computationMatrix);
+
+    assertEquals(instanceData.workflow().size(), compiled.taskCount());
+    assertEquals(instanceData.hosts().size(), compiled.hostCount());
+
+    for (var task : instanceData.workflow().values()) {
+      int t = compiled.taskOrdinal(task);
+      assertEquals(task, compiled.task(t));
+      for (var host : instanceData.hosts().values()) {
+        int h = compiled.hostOrdinal(host);
+        assertEquals(host, compiled.host(h));
+        assertEquals(
+            computationMatrix.get(task.getName()).get(host.getName()), compiled.computation(t, h));
+      }
+      assertEquals(
+          networkMatrix.get(task.getName()).get(task.getName()), compiled.stagingBits(t));
+      assertEquals(task.getOutput().getSizeInBits(), compiled.outputBits(t));
+    }
+  }
+
+  @Test
+  void parentsAreStoredWithTheirBits() {
+    InstanceData instanceData = loadCalculatorTest();
+    var compiled = CompiledInstance.compile(instanceData);
+
+    // task05 receives from task02, task03 and task04
+    int task05 = compiled.taskOrdinal("task05");
+    Map<String, Long> parentBits = new HashMap<>();
+    for (int edge = compiled.parentOffsets()[task05];
+        edge < compiled.parentOffsets()[task05 + 1];
+        edge++) {
+      parentBits.put(
+          compiled.task(compiled.parents()[edge]).getName(), compiled.parentBits()[edge]);
+    }
+
+    assertEquals(
+        Map.of("task02", 160000000L, "task03", 192000000L, "task04", 224000000L), parentBits);
+
+    int task01 = compiled.taskOrdinal("task01");
+    assertEquals(
+        3, compiled.childOffsets()[task01 + 1] - compiled.childOffsets()[task01]);
+    assertEquals(0, compiled.parentOffsets()[task01 + 1] - compiled.parentOffsets()[task01]);
+  }
+
+  @Test
+  void hostSpeedMatchesTheHostVersion() {
+    InstanceData instanceData = loadCalculatorTest();
+    var compiled = CompiledInstance.compile(instanceData);
+
+    for (var host : instanceData.hosts().values()) {
+      for (var parentHost : instanceData.hosts().values()) {
+        assertEquals(
+            SchedulingHelper.findHostSpeed(host, parentHost),
+            SchedulingHelper.findHostSpeed(
+                compiled, compiled.hostOrdinal(host), compiled.hostOrdinal(parentHost)));
+        assertEquals(
+            1D / SchedulingHelper.findHostSpeed(host, parentHost),
+            compiled.inverseTransferSpeed(
+                compiled.hostOrdinal(host), compiled.hostOrdinal(parentHost)));
+      }
+    }
+  }
+
+  @Test
+  void tailBoundFollowsTheLongestChain() {
+    var compiled = CompiledInstance.compile(loadCalculatorTest());
+
+    int task05 = compiled.taskOrdinal("task05");
+    assertEquals(0D, compiled.tailBound(task05));
+
+    // task01 is followed by one of task02, task03 or task04 and then by task05
+    int task01 = compiled.taskOrdinal("task01");
+    double task05Duration = Double.MAX_VALUE;
+    for (int h = 0; h < compiled.hostCount(); h++) {
+      task05Duration =
+          Math.min(
+              task05Duration,
+              compiled.stagingBits(task05) / (double) compiled.diskSpeed(h)
+                  + compiled.outputBits(task05) / (double) compiled.diskSpeed(h)
+                  + compiled.computation(task05, h));
+    }
+    assertTrue(compiled.tailBound(task01) > task05Duration);
+    for (var middle : new String[] {"task02", "task03", "task04"}) {
+      assertEquals(task05Duration, compiled.tailBound(compiled.taskOrdinal(middle)));
+    }
+  }
+
+  @Test
+  void unknownTaskFails() {
+    var compiled = CompiledInstance.compile(loadCalculatorTest());
+
+    assertThrows(IllegalArgumentException.class, () -> compiled.taskOrdinal("missing"));
+  }
+}
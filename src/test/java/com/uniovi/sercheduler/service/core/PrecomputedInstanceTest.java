@@ -0,0 +1,65 @@
+package com.uniovi.sercheduler.service.core;
+
+import static com.uniovi.sercheduler.util.LoadTestInstanceData.loadCalculatorTest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.uniovi.sercheduler.dto.InstanceData;
+import com.uniovi.sercheduler.service.calculator.FitnessCalculatorHeft;
+import com.uniovi.sercheduler.service.calculator.FitnessCalculatorSimple;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PrecomputedInstanceTest {
+
+  @Test
+  void sameInstanceIsOnlyPrecomputedOnce() {
+    InstanceData instanceData = loadCalculatorTest();
+
+    var simple = new FitnessCalculatorSimple(instanceData);
+    var heft = new FitnessCalculatorHeft(instanceData);
+
+    assertSame(PrecomputedInstance.of(instanceData), PrecomputedInstance.of(instanceData));
+    assertSame(simple.getCompiledInstance(), heft.getCompiledInstance());
+    assertNotSame(
+        PrecomputedInstance.of(instanceData), PrecomputedInstance.of(loadCalculatorTest()));
+  }
+
+  @Test
+  void precomputedValuesMatchTheHelper() {
+    InstanceData instanceData = loadCalculatorTest();
+    var precomputed = PrecomputedInstance.of(instanceData);
+
+    var computationMatrix =
+        SchedulingHelper.calculateComputationMatrix(instanceData, instanceData.referenceFlops());
+    var referenceSpeedRead = SchedulingHelper.calculateReferenceSpeedRead(instanceData);
+    var referenceSpeedWrite = SchedulingHelper.calculateReferenceSpeedWrite(instanceData);
+    var ranking =
+        SchedulingHelper.calculateHeftRanking(
+            instanceData, computationMatrix, referenceSpeedRead, referenceSpeedWrite);
+
+    assertEquals(computationMatrix, precomputed.computationMatrix());
+    assertEquals(SchedulingHelper.calculateNetworkMatrix(instanceData), precomputed.networkMatrix());
+    assertEquals(referenceSpeedRead, precomputed.referenceSpeedRead());
+    assertEquals(referenceSpeedWrite, precomputed.referenceSpeedWrite());
+    assertEquals(new ArrayList<>(ranking.keySet()), precomputed.heftOrder());
+    assertEquals(List.copyOf(ranking.values()), List.copyOf(precomputed.heftRanking().values()));
+  }
+
+  @Test
+  void priorityTasksAreAboveTheAverageRank() {
+    InstanceData instanceData = loadCalculatorTest();
+    var precomputed = PrecomputedInstance.of(instanceData);
+    var compiled = precomputed.compiledInstance();
+
+    var average =
+        precomputed.heftRanking().values().stream().mapToDouble(x -> x).average().orElseThrow();
+    var priorities = precomputed.priorityTasks();
+
+    for (var entry : precomputed.heftRanking().entrySet()) {
+      assertEquals(entry.getValue() > average, priorities[compiled.taskOrdinal(entry.getKey())]);
+    }
+  }
+}
@@ -8,6 +8,7 @@ import com.uniovi.sercheduler.service.calculator.FitnessCalculator;
 import com.uniovi.sercheduler.service.calculator.FitnessCalculatorSimple;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.List;
 
 import static com.uniovi.sercheduler.util.LoadTestInstanceData.loadFitnessTest;
@@ -49,4 +50,39 @@ class RandomKeysCoderTest {
         assertEquals(210D, result.fitness().get("makespan"));
         assertEquals (679.65D, result.fitness().get("energy"), 1e-10);
     }
+
+    @Test
+    void codeAndDecodeArrayTest() {
+
+        InstanceData instanceData = loadFitnessTest();
+
+        List<PlanPair> plan =
+                List.of(
+                        new PlanPair(instanceData.workflow().get("task01"), instanceData.hosts().get("HostA")),
+                        new PlanPair(instanceData.workflow().get("task04"), instanceData.hosts().get("HostA")),
+                        new PlanPair(instanceData.workflow().get("task03"), instanceData.hosts().get("HostB")),
+                        new PlanPair(instanceData.workflow().get("task02"), instanceData.hosts().get("HostC")),
+                        new PlanPair(instanceData.workflow().get("task05"), instanceData.hosts().get("HostA")),
+                        new PlanPair(instanceData.workflow().get("task06"), instanceData.hosts().get("HostB")),
+                        new PlanPair(instanceData.workflow().get("task07"), instanceData.hosts().get("HostC")),
+                        new PlanPair(instanceData.workflow().get("task09"), instanceData.hosts().get("HostA")),
+                        new PlanPair(instanceData.workflow().get("task08"), instanceData.hosts().get("HostB")),
+                        new PlanPair(instanceData.workflow().get("task10"), instanceData.hosts().get("HostC")));
+
+        RandomKeysCoder randomKeysCoder = new RandomKeysCoder(instanceData);
+
+        // The particle is reused, the keys written by a previous plan are overwritten
+        double[] particle = new double[2 * plan.size()];
+        Arrays.fill(particle, 0.7D);
+        randomKeysCoder.encode(plan, particle);
+
+        assertEquals(randomKeysCoder.encode(plan), Arrays.stream(particle).boxed().toList());
+        assertEquals(plan, randomKeysCoder.decode(particle));
+
+        // Tasks with the same priority are decoded as the list based particles
+        double[] ties = new double[2 * plan.size()];
+        assertEquals(
+                randomKeysCoder.decode(Arrays.stream(ties).boxed().toList()),
+                randomKeysCoder.decode(ties));
+    }
 }
@@ -0,0 +1,99 @@
+package com.uniovi.sercheduler.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class HostGapsTest {
+
+  @Test
+  void newHostHasTheWholeTimeline() {
+    var gaps = new HostGaps();
+
+    assertEquals(List.of(new ScheduleGap(0D, Double.MAX_VALUE)), gaps.gaps());
+    assertEquals(0D, gaps.hostReady());
+    assertEquals(0D, gaps.findEarliestStart(0D, 10D));
+    assertEquals(-1D, gaps.findEarliestStart(5D, 10D));
+  }
+
+  @Test
+  void occupySplitsTheGap() {
+    var gaps = new HostGaps();
+    gaps.occupy(10D, 20D);
+    gaps.occupy(0D, 5D);
+
+    assertEquals(
+        List.of(new ScheduleGap(5D, 10D), new ScheduleGap(20D, Double.MAX_VALUE)), gaps.gaps());
+    assertEquals(20D, gaps.hostReady());
+    assertEquals(5D, gaps.findEarliestStart(0D, 5D));
+    assertEquals(20D, gaps.findEarliestStart(0D, 6D));
+    assertEquals(20D, gaps.findEarliestStart(6D, 1D));
+  }
+
+  @Test
+  void copyIsIndependent() {
+    var gaps = new HostGaps();
+    gaps.occupy(10D, 20D);
+    var copy = gaps.copy();
+    copy.occupy(0D, 10D);
+
+    assertEquals(2, gaps.size());
+    assertEquals(1, copy.size());
+  }
+
+  @Test
+  void occupyOutsideAGapFails() {
+    var gaps = new HostGaps();
+    gaps.occupy(10D, 20D);
+
+    assertThrows(RuntimeException.class, () -> gaps.occupy(5D, 15D));
+  }
+
+  @Test
+  void matchesALinearScan() {
+    var random = new Random(7);
+    var gaps = new HostGaps();
+    List<ScheduleGap> expected = new ArrayList<>(List.of(new ScheduleGap(0D, Double.MAX_VALUE)));
+
+    for (int i = 0; i < 500; i++) {
+      double minStart = random.nextInt(1000);
+      double duration = 1 + random.nextInt(20);
+
+      double ast = -1D;
+      for (var gap : expected) {
+        if (gap.start() >= minStart && duration <= gap.end() - gap.start()) {
+          if (ast < 0 || gap.start() < ast) {
+            ast = gap.start();
+          }
+        }
+      }
+      assertEquals(ast, gaps.findEarliestStart(minStart, duration));
+
+      // Occupy the gap when the task fits, as the calculators do
+      double start = ast < 0 ? minStart : ast;
+      double end = start + duration;
+      var containing =
+          expected.stream().filter(g -> end <= g.end() && g.start() <= start).findFirst();
+      if (containing.isEmpty()) {
+        continue;
+      }
+      var gap = containing.get();
+      expected.remove(gap);
+      if (gap.start() != start) {
+        expected.add(new ScheduleGap(gap.start(), start));
+      }
+      if (end != gap.end()) {
+        expected.add(new ScheduleGap(end, gap.end()));
+      }
+      expected.sort(Comparator.comparing(ScheduleGap::start));
+      gaps.occupy(start, end);
+
+      assertEquals(expected, gaps.gaps());
+    }
+  }
+}
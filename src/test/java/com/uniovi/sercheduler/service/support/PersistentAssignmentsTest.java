@@ -0,0 +1,57 @@
+package com.uniovi.sercheduler.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PersistentAssignmentsTest {
+
+  @Test
+  void emptyAssignmentsHaveNoHosts() {
+    var assignments = PersistentAssignments.empty(10);
+
+    for (int task = 0; task < 10; task++) {
+      assertEquals(-1, assignments.host(task));
+    }
+  }
+
+  @Test
+  void derivedAssignmentsDontModifyTheOriginal() {
+    int taskCount = 50;
+    var random = new Random(1L);
+
+    // Every version is checked against plain arrays copied at each step
+    var versions = new PersistentAssignments[taskCount + 1];
+    var hosts = new int[taskCount + 1][];
+    var efts = new double[taskCount + 1][];
+    versions[0] = PersistentAssignments.empty(taskCount);
+    hosts[0] = new int[taskCount];
+    Arrays.fill(hosts[0], -1);
+    efts[0] = new double[taskCount];
+
+    for (int i = 1; i <= taskCount; i++) {
+      // Extend a random previous version, like a partial schedule that survives
+      int previous = random.nextInt(i);
+      int task = random.nextInt(taskCount);
+      int host = random.nextInt(8);
+      double eft = random.nextDouble() * 100;
+
+      versions[i] = versions[previous].with(task, host, eft);
+      hosts[i] = hosts[previous].clone();
+      hosts[i][task] = host;
+      efts[i] = efts[previous].clone();
+      efts[i][task] = eft;
+    }
+
+    for (int i = 0; i <= taskCount; i++) {
+      for (int task = 0; task < taskCount; task++) {
+        assertEquals(hosts[i][task], versions[i].host(task));
+        if (hosts[i][task] != -1) {
+          assertEquals(efts[i][task], versions[i].eft(task));
+        }
+      }
+    }
+  }
+}
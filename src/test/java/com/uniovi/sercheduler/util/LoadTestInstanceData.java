@@ -1,11 +1,18 @@
 package com.uniovi.sercheduler.util;
 
+import com.uniovi.sercheduler.dao.Objective;
 import com.uniovi.sercheduler.dto.InstanceData;
+import com.uniovi.sercheduler.jmetal.problem.SchedulePermutationSolution;
+import com.uniovi.sercheduler.jmetal.problem.SchedulingProblem;
 import com.uniovi.sercheduler.parser.HostFileLoader;
 import com.uniovi.sercheduler.parser.HostLoader;
 import com.uniovi.sercheduler.parser.WorkflowFileLoader;
 import com.uniovi.sercheduler.parser.WorkflowLoader;
+import com.uniovi.sercheduler.service.PlanGenerator;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import org.springframework.core.io.ClassPathResource;
 
 public class LoadTestInstanceData {
@@ -19,6 +26,33 @@ public class LoadTestInstanceData {
     return loadTestJson("hosts_test.json", "workflow_test.json");
   }
 
+  public static InstanceData loadMontageTest() {
+    return loadTestJson("extreme/hosts-16.json", "montage.json");
+  }
+
+  public static SchedulingProblem problem(InstanceData instanceData, String fitness) {
+    return new SchedulingProblem(
+        "test",
+        fitness,
+        1L,
+        instanceData,
+        List.of(Objective.MAKESPAN, Objective.ENERGY),
+        "makespan",
+        10);
+  }
+
+  public static List<SchedulePermutationSolution> population(
+      InstanceData instanceData, long seed, int size) {
+    var generator = new PlanGenerator(new Random(seed), instanceData);
+    List<SchedulePermutationSolution> population = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      population.add(
+          new SchedulePermutationSolution(
+              instanceData.workflow().size(), 2, null, generator.generatePlan(), "makespan"));
+    }
+    return population;
+  }
+
   private static InstanceData loadTestJson(String hostFile, String workflowFile) {
     try {
       HostLoader hostLoader = new HostFileLoader();